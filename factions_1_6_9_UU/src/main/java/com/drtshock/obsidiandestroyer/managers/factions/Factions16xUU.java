@@ -2,10 +2,31 @@ package com.drtshock.obsidiandestroyer.managers.factions;
 
 import com.massivecraft.factions.Board;
 import com.massivecraft.factions.FLocation;
+import com.massivecraft.factions.FPlayer;
+import com.massivecraft.factions.FPlayers;
 import com.massivecraft.factions.Faction;
+import com.massivecraft.factions.event.FPlayerJoinEvent;
+import com.massivecraft.factions.event.FPlayerLeaveEvent;
+import com.massivecraft.factions.event.FactionDisbandEvent;
+import com.massivecraft.factions.event.LandClaimEvent;
+import com.massivecraft.factions.event.LandUnclaimAllEvent;
+import com.massivecraft.factions.event.LandUnclaimEvent;
+import com.massivecraft.factions.event.PowerLossEvent;
 import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 
-public class Factions16xUU implements FactionsHook {
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+public class Factions16xUU implements FactionsHook, Listener {
+
+    private final FactionStateCache states = new FactionStateCache();
 
     @Override
     public boolean isFactionOffline(Location loc) {
@@ -15,7 +36,7 @@ public class Factions16xUU implements FactionsHook {
             return false;
         }
         //ObsidianDestroyer.debug("Factions16x.isFactionOffline: " + (faction.getOnlinePlayers().size() == 0));
-        return faction.getOnlinePlayers().size() == 0;
+        return getState(faction).isOffline();
     }
 
     @Override
@@ -31,7 +52,105 @@ public class Factions16xUU implements FactionsHook {
     @Override
     public boolean isFactionAtPower(Location loc) {
         Faction faction = Board.getInstance().getFactionAt(new FLocation(loc));
-        return faction.getPower() >= faction.getLandRounded();
+        return getState(faction).isAtPower();
+    }
+
+    @Override
+    public ClaimInfo getClaim(World world, int chunkX, int chunkZ) {
+        return getClaim(Board.getInstance().getFactionAt(new FLocation(world.getName(), chunkX, chunkZ)), chunkX, chunkZ);
+    }
+
+    @Override
+    public ClaimInfo[] getClaims(World world, int[] chunkXs, int[] chunkZs) {
+        final Board board = Board.getInstance();
+        final String worldName = world.getName();
+        final ClaimInfo[] claims = new ClaimInfo[chunkXs.length];
+        // Chunks of the same faction share its state, resolve it once per faction
+        final Map<Faction, ClaimInfo> factions = new IdentityHashMap<Faction, ClaimInfo>();
+        for (int i = 0; i < claims.length; i++) {
+            final Faction faction = board.getFactionAt(new FLocation(worldName, chunkXs[i], chunkZs[i]));
+            ClaimInfo claim = factions.get(faction);
+            if (claim == null) {
+                claim = getClaim(faction, chunkXs[i], chunkZs[i]);
+                factions.put(faction, claim);
+                claims[i] = claim;
+            } else {
+                claims[i] = new ClaimInfo(chunkXs[i], chunkZs[i], claim.isExplosionsEnabled(), claim.isFactionAtPower(), claim.isFactionOffline());
+            }
+        }
+        return claims;
+    }
+
+    private ClaimInfo getClaim(Faction faction, int chunkX, int chunkZ) {
+        final FactionStateCache.State state = getState(faction);
+        // Checks if faction isn't safezone, warzone, or wilderness.
+        if (!faction.isNormal()) {
+            return new ClaimInfo(chunkX, chunkZ, faction.getId().equalsIgnoreCase("0"), state.isAtPower(), false);
+        }
+        return new ClaimInfo(chunkX, chunkZ, !faction.noExplosionsInTerritory(), state.isAtPower(), state.isOffline());
+    }
+
+    private FactionStateCache.State getState(Faction faction) {
+        final FactionStateCache.State state = states.get(faction.getId());
+        if (state != null) {
+            return state;
+        }
+        return states.put(faction.getId(), faction.getOnlinePlayers().size() == 0, faction.getPower() >= faction.getLandRounded());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        invalidate(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        invalidate(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onFPlayerJoin(FPlayerJoinEvent event) {
+        states.invalidate(event.getfPlayer().getFactionId());
+        states.invalidate(event.getFaction().getId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onFPlayerLeave(FPlayerLeaveEvent event) {
+        states.invalidate(event.getFaction().getId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onLandClaim(LandClaimEvent event) {
+        // The faction losing the chunk changes land count as well
+        states.invalidate(Board.getInstance().getIdAt(event.getLocation()));
+        states.invalidate(event.getFaction().getId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onLandUnclaim(LandUnclaimEvent event) {
+        states.invalidate(event.getFaction().getId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onLandUnclaimAll(LandUnclaimAllEvent event) {
+        states.invalidate(event.getFaction().getId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPowerLoss(PowerLossEvent event) {
+        states.invalidate(event.getFaction().getId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onDisband(FactionDisbandEvent event) {
+        states.invalidate(event.getFaction().getId());
+    }
+
+    private void invalidate(Player player) {
+        final FPlayer fplayer = FPlayers.getInstance().getByPlayer(player);
+        if (fplayer != null) {
+            states.invalidate(fplayer.getFactionId());
+        }
     }
 
     @Override
@@ -3,11 +3,28 @@ package com.drtshock.obsidiandestroyer.managers.factions;
 import com.massivecraft.factions.entity.BoardColl;
 import com.massivecraft.factions.entity.Faction;
 import com.massivecraft.factions.entity.MFlag;
+import com.massivecraft.factions.entity.MPlayer;
+import com.massivecraft.factions.event.EventFactionsChunksChange;
+import com.massivecraft.factions.event.EventFactionsDisband;
+import com.massivecraft.factions.event.EventFactionsMembershipChange;
+import com.massivecraft.factions.event.EventFactionsPowerChange;
 import com.massivecraft.massivecore.ps.PS;
 import org.bukkit.ChatColor;
 import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 
-public class Factions28x implements FactionsHook {
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+public class Factions28x implements FactionsHook, Listener {
+
+    private final FactionStateCache states = new FactionStateCache();
 
     @Override
     public boolean isFactionOffline(Location loc) {
@@ -19,7 +36,7 @@ public class Factions28x implements FactionsHook {
             return false;
         }
         //ObsidianDestroyer.debug("Factions25x.isFactionOffline: " + faction.isFactionConsideredOffline());
-        return faction.isFactionConsideredOffline() && faction.getFlag(MFlag.ID_OFFLINEEXPLOSIONS);
+        return getState(faction).isOffline() && faction.getFlag(MFlag.ID_OFFLINEEXPLOSIONS);
     }
 
     @Override
@@ -32,7 +49,101 @@ public class Factions28x implements FactionsHook {
     @Override
     public boolean isFactionAtPower(Location loc) {
         Faction faction = BoardColl.get().getFactionAt(PS.valueOf(loc));
-        return faction.getPower() >= faction.getLandCount();
+        return getState(faction).isAtPower();
+    }
+
+    @Override
+    public ClaimInfo getClaim(World world, int chunkX, int chunkZ) {
+        return getClaim(BoardColl.get().getFactionAt(PS.valueOf(world.getName(), chunkX, chunkZ)), chunkX, chunkZ);
+    }
+
+    @Override
+    public ClaimInfo[] getClaims(World world, int[] chunkXs, int[] chunkZs) {
+        final BoardColl board = BoardColl.get();
+        final String worldName = world.getName();
+        final ClaimInfo[] claims = new ClaimInfo[chunkXs.length];
+        // Chunks of the same faction share its state, resolve it once per faction
+        final Map<Faction, ClaimInfo> factions = new IdentityHashMap<Faction, ClaimInfo>();
+        for (int i = 0; i < claims.length; i++) {
+            final Faction faction = board.getFactionAt(PS.valueOf(worldName, chunkXs[i], chunkZs[i]));
+            ClaimInfo claim = factions.get(faction);
+            if (claim == null) {
+                claim = getClaim(faction, chunkXs[i], chunkZs[i]);
+                factions.put(faction, claim);
+                claims[i] = claim;
+            } else {
+                claims[i] = new ClaimInfo(chunkXs[i], chunkZs[i], claim.isExplosionsEnabled(), claim.isFactionAtPower(), claim.isFactionOffline());
+            }
+        }
+        return claims;
+    }
+
+    private ClaimInfo getClaim(Faction faction, int chunkX, int chunkZ) {
+        if (faction == null) {
+            return new ClaimInfo(chunkX, chunkZ, true, false, false);
+        }
+        final FactionStateCache.State state = getState(faction);
+        final boolean offline;
+        if ((faction.isNone()) ||
+                ChatColor.stripColor(faction.getName()).equalsIgnoreCase("safezone") ||
+                ChatColor.stripColor(faction.getName()).equalsIgnoreCase("warzone")) {
+            offline = false;
+        } else {
+            offline = state.isOffline() && faction.getFlag(MFlag.ID_OFFLINEEXPLOSIONS);
+        }
+        return new ClaimInfo(chunkX, chunkZ, faction.getFlag(MFlag.ID_EXPLOSIONS), state.isAtPower(), offline);
+    }
+
+    private FactionStateCache.State getState(Faction faction) {
+        final FactionStateCache.State state = states.get(faction.getId());
+        if (state != null) {
+            return state;
+        }
+        return states.put(faction.getId(), faction.isFactionConsideredOffline(), faction.getPower() >= faction.getLandCount());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        invalidate(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        invalidate(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onMembershipChange(EventFactionsMembershipChange event) {
+        states.invalidate(event.getMPlayer().getFaction().getId());
+        if (event.getNewFaction() != null) {
+            states.invalidate(event.getNewFaction().getId());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onChunksChange(EventFactionsChunksChange event) {
+        // Both the factions losing the chunks and the one claiming them change land count
+        for (Faction faction : event.getOldFactionChunks().keySet()) {
+            states.invalidate(faction.getId());
+        }
+        states.invalidate(event.getNewFaction().getId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPowerChange(EventFactionsPowerChange event) {
+        states.invalidate(event.getMPlayer().getFaction().getId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onDisband(EventFactionsDisband event) {
+        states.invalidate(event.getFactionId());
+    }
+
+    private void invalidate(Player player) {
+        final MPlayer mplayer = MPlayer.get(player);
+        if (mplayer != null) {
+            states.invalidate(mplayer.getFaction().getId());
+        }
     }
 
     @Override
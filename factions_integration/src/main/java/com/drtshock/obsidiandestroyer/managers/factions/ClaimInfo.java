@@ -0,0 +1,42 @@
+package com.drtshock.obsidiandestroyer.managers.factions;
+
+/**
+ * State of the faction claiming a chunk, resolved with a single board lookup.
+ * Follows the same rules as the location checks of {@link FactionsHook}.
+ */
+public class ClaimInfo {
+
+    private final int chunkX;
+    private final int chunkZ;
+    private final boolean explosionsEnabled;
+    private final boolean factionAtPower;
+    private final boolean factionOffline;
+
+    public ClaimInfo(int chunkX, int chunkZ, boolean explosionsEnabled, boolean factionAtPower, boolean factionOffline) {
+        this.chunkX = chunkX;
+        this.chunkZ = chunkZ;
+        this.explosionsEnabled = explosionsEnabled;
+        this.factionAtPower = factionAtPower;
+        this.factionOffline = factionOffline;
+    }
+
+    public int getChunkX() {
+        return chunkX;
+    }
+
+    public int getChunkZ() {
+        return chunkZ;
+    }
+
+    public boolean isExplosionsEnabled() {
+        return explosionsEnabled;
+    }
+
+    public boolean isFactionAtPower() {
+        return factionAtPower;
+    }
+
+    public boolean isFactionOffline() {
+        return factionOffline;
+    }
+}
@@ -0,0 +1,93 @@
+package com.drtshock.obsidiandestroyer.managers.factions;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Online and power state of factions, kept until something changes it.
+ * <p/>
+ * A faction only goes offline or loses power when players join or quit, change faction, claim land or lose
+ * power, so the hooks invalidate the state of a faction from those events instead of recomputing it for every
+ * block. States also expire after {@link #TIME_TO_LIVE} milliseconds, for changes no event reports such as power
+ * regenerating over time. The cache is only used on the server thread.
+ */
+public class FactionStateCache {
+
+    public static final long TIME_TO_LIVE = 10000L;
+
+    private final Map<String, State> states = new HashMap<String, State>();
+
+    /**
+     * Gets the cached state of a faction
+     *
+     * @param factionId the id of the faction
+     * @return the state, or null if it is not cached or has expired
+     */
+    public State get(String factionId) {
+        final State state = states.get(factionId);
+        if (state == null) {
+            return null;
+        }
+        if (state.expires < System.currentTimeMillis()) {
+            states.remove(factionId);
+            return null;
+        }
+        return state;
+    }
+
+    /**
+     * Caches the state of a faction
+     *
+     * @param factionId the id of the faction
+     * @param offline   true if the faction is considered offline
+     * @param atPower   true if the faction has at least as much power as land
+     * @return the cached state
+     */
+    public State put(String factionId, boolean offline, boolean atPower) {
+        final State state = new State(offline, atPower, System.currentTimeMillis() + TIME_TO_LIVE);
+        states.put(factionId, state);
+        return state;
+    }
+
+    /**
+     * Forgets the state of a faction
+     *
+     * @param factionId the id of the faction, ignored if null
+     */
+    public void invalidate(String factionId) {
+        if (factionId != null) {
+            states.remove(factionId);
+        }
+    }
+
+    /**
+     * Forgets the state of every faction
+     */
+    public void invalidateAll() {
+        states.clear();
+    }
+
+    /**
+     * Cached state of a faction
+     */
+    public static class State {
+
+        private final boolean offline;
+        private final boolean atPower;
+        private final long expires;
+
+        private State(boolean offline, boolean atPower, long expires) {
+            this.offline = offline;
+            this.atPower = atPower;
+            this.expires = expires;
+        }
+
+        public boolean isOffline() {
+            return offline;
+        }
+
+        public boolean isAtPower() {
+            return atPower;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.drtshock.obsidiandestroyer.managers.factions;
 
 import org.bukkit.Location;
+import org.bukkit.World;
 
 public interface FactionsHook {
 
@@ -11,4 +12,24 @@ public interface FactionsHook {
     public boolean isExplosionsEnabled(Location loc);
 
     public boolean isFactionAtPower(Location loc);
+
+    /**
+     * Resolves the claim of a chunk
+     *
+     * @param world  the world of the chunk
+     * @param chunkX the chunk x coordinate
+     * @param chunkZ the chunk z coordinate
+     * @return the state of the claim
+     */
+    public ClaimInfo getClaim(World world, int chunkX, int chunkZ);
+
+    /**
+     * Resolves the claims of many chunks of a world at once
+     *
+     * @param world   the world of the chunks
+     * @param chunkXs the chunk x coordinates
+     * @param chunkZs the chunk z coordinates, in the same order
+     * @return the state of the claims, in the order of the chunks
+     */
+    public ClaimInfo[] getClaims(World world, int[] chunkXs, int[] chunkZs);
 }
@@ -1,5 +1,6 @@
 package com.drtshock.obsidiandestroyer.managers.factions;
 
+import org.bukkit.event.Listener;
 import org.bukkit.plugin.Plugin;
 
 import java.io.BufferedReader;
@@ -39,6 +40,10 @@ public class FactionsManager {
                                     Object o = clazz.newInstance();
                                     if (o instanceof FactionsHook) {
                                         this.hook = (FactionsHook) o;
+                                        // Hooks caching faction state listen for the events changing it
+                                        if (o instanceof Listener) {
+                                            plugin.getServer().getPluginManager().registerEvents((Listener) o, plugin);
+                                        }
                                         break;
                                     } else {
                                         plugin.getLogger().warning("Invalid hook (found classes, not a hook): " + line);
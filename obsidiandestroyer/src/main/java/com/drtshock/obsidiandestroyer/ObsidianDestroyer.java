@@ -1,6 +1,7 @@
 package com.drtshock.obsidiandestroyer;
 
 import com.drtshock.obsidiandestroyer.commands.ODCommand;
+import com.drtshock.obsidiandestroyer.datatypes.DamageSource;
 import com.drtshock.obsidiandestroyer.enumerations.DamageResult;
 import com.drtshock.obsidiandestroyer.listeners.*;
 import com.drtshock.obsidiandestroyer.managers.ChunkManager;
@@ -42,11 +43,20 @@ public class ObsidianDestroyer extends JavaPlugin {
      * @param debug message
      */
     public static void vdebug(String debug) {
-        if (ConfigManager.getInstance() == null || (ConfigManager.getInstance().getDebug() && ConfigManager.getInstance().getVerbose())) {
+        if (isVerbose()) {
             LOG.info(debug);
         }
     }
 
+    /**
+     * Checks if verbose debug messages are printed, so callers can skip building them
+     *
+     * @return true if verbose debug is enabled
+     */
+    public static boolean isVerbose() {
+        return ConfigManager.getInstance() == null || (ConfigManager.getInstance().getDebug() && ConfigManager.getInstance().getVerbose());
+    }
+
     /**
      * Gets the durability of a material a location
      *
@@ -125,6 +135,29 @@ public class ObsidianDestroyer extends JavaPlugin {
         return ChunkManager.getInstance().damageBlock(location, entity);
     }
 
+    /**
+     * Damage block at location by a damage source. A source can be created once and used for many blocks,
+     * which is faster than damaging every block by an entity.
+     *
+     * @param location the location to attempt to apply damage
+     * @param source   the source of the damage, see {@link DamageSource}
+     * @return the result of the attempted damage to location
+     */
+    public static DamageResult damageBlock(Location location, DamageSource source) {
+        if (instance == null || ChunkManager.getInstance() == null) {
+            return DamageResult.ERROR;
+        }
+        if (!instance.isEnabled()) {
+            return DamageResult.ERROR;
+        }
+
+        if (source == null) {
+            return DamageResult.ERROR;
+        }
+
+        return ChunkManager.getInstance().damageBlock(location, source);
+    }
+
     @Override
     public void onEnable() {
         instance = this;
@@ -161,7 +194,7 @@ public class ObsidianDestroyer extends JavaPlugin {
     public void onDisable() {
         // Save persistent data
         if (ChunkManager.getInstance() != null) {
-            ChunkManager.getInstance().save();
+            ChunkManager.getInstance().shutdown();
         }
     }
 }
\ No newline at end of file
@@ -1,26 +1,48 @@
 package com.drtshock.obsidiandestroyer.commands;
 
 import com.drtshock.obsidiandestroyer.ObsidianDestroyer;
+import com.drtshock.obsidiandestroyer.datatypes.DamageSummary;
+import com.drtshock.obsidiandestroyer.datatypes.Key;
 import com.drtshock.obsidiandestroyer.managers.ChunkManager;
 import com.drtshock.obsidiandestroyer.managers.ConfigManager;
 import com.drtshock.obsidiandestroyer.managers.HookManager;
 import com.drtshock.obsidiandestroyer.managers.MaterialManager;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
+import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
 import java.util.logging.Level;
 
 public class ODCommand implements CommandExecutor {
 
+    private static final int DEFAULT_DAMAGED_RADIUS = 16;
+    private static final int MAX_DAMAGED_RADIUS = 256;
+    private static final int MAX_LISTED = 10;
+
     @Override
     public boolean onCommand(CommandSender sender, Command cmd, String label, String[] args) {
         if (args.length == 0) {
             showHelp(sender);
 
+        } else if (args[0].equalsIgnoreCase("reset")) {
+            return resetDurability(sender, args);
+
+        } else if (args[0].equalsIgnoreCase("damaged")) {
+            return listDamaged(sender, args);
+
+        } else if (args[0].equalsIgnoreCase("summary")) {
+            return showSummary(sender, args);
+
         } else if (args.length == 1) {
             // commands with 0 arguments
             String command = args[0];
@@ -35,9 +57,6 @@ public class ODCommand implements CommandExecutor {
             } else if (command.equalsIgnoreCase("reloadDB") || command.equalsIgnoreCase("reloadDataBase")) {
                 reloadDurabilites(sender);
 
-            } else if (command.equalsIgnoreCase("reset")) {
-                resetDurability(sender);
-
             } else if (command.equalsIgnoreCase("version")) {
                 sender.sendMessage(ChatColor.DARK_PURPLE + "ObsidianDestroyer version: " + ChatColor.GRAY + ObsidianDestroyer.getInstance().getDescription().getVersion());
 
@@ -69,17 +88,20 @@ public class ODCommand implements CommandExecutor {
         sender.sendMessage(ChatColor.DARK_PURPLE + "/od reload - " + ChatColor.LIGHT_PURPLE + "reloads the plugin's config file.");
         sender.sendMessage(ChatColor.DARK_PURPLE + "/od reloadDB - " + ChatColor.LIGHT_PURPLE + "reloads the durability database.");
         sender.sendMessage(ChatColor.DARK_PURPLE + "/od reset - " + ChatColor.LIGHT_PURPLE + " reset all durability damage and timers.");
+        sender.sendMessage(ChatColor.DARK_PURPLE + "/od reset <world> [x1 z1 x2 z2] - " + ChatColor.LIGHT_PURPLE + " reset the durability damage of a world or an area of it.");
+        sender.sendMessage(ChatColor.DARK_PURPLE + "/od damaged [radius] - " + ChatColor.LIGHT_PURPLE + " lists the damaged blocks around you.");
+        sender.sendMessage(ChatColor.DARK_PURPLE + "/od summary [world] - " + ChatColor.LIGHT_PURPLE + " shows the damage tracked in a world.");
         sender.sendMessage(ChatColor.DARK_PURPLE + "/od testb - " + ChatColor.LIGHT_PURPLE + " creates a test explosion above your head.");
         sender.sendMessage(ChatColor.GREEN + "" + ChatColor.STRIKETHROUGH + "                                                             ");
     }
 
     private void reloadDurabilites(CommandSender sender) {
         long time = System.currentTimeMillis();
-        if (!ChunkManager.getInstance().save()) {
+        ChunkManager.getInstance().loadDisabledWorlds();
+        if (!ChunkManager.getInstance().saveChanged()) {
             sender.sendMessage(ChatColor.RED + "Save in progress, please wait!");
             return;
         }
-        ChunkManager.getInstance().load();
         sender.sendMessage(ChatColor.GREEN + "Reloading ObsidianDestroyer database completed in " + (System.currentTimeMillis() - time) + " ms!");
     }
 
@@ -97,7 +119,7 @@ public class ODCommand implements CommandExecutor {
         } catch (Exception e) {
             e.printStackTrace();
         }
-        new ConfigManager(true).backup(true);
+        ConfigManager.getInstance().backup(true);
         new HookManager();
         MaterialManager.getInstance().load();
         ChunkManager.getInstance().loadDisabledWorlds();
@@ -105,8 +127,142 @@ public class ODCommand implements CommandExecutor {
         sender.sendMessage(ChatColor.RED + "Reloading ObsidianDestroyer config failed, restored from memory. See log file.  Completed in " + (System.currentTimeMillis() - time) + " ms!");
     }
 
-    private void resetDurability(CommandSender sender) {
-        long time = ChunkManager.getInstance().resetAllDurabilities();
-        sender.sendMessage(ChatColor.GREEN + "Reset all Material durability's in " + (System.currentTimeMillis() - time) + " ms.");
+    private boolean listDamaged(CommandSender sender, String[] args) {
+        if (!(sender instanceof Player)) {
+            return false;
+        }
+        Player player = (Player) sender;
+        int radius = DEFAULT_DAMAGED_RADIUS;
+        if (args.length > 1) {
+            try {
+                radius = Integer.parseInt(args[1]);
+            } catch (NumberFormatException e) {
+                sender.sendMessage(ChatColor.RED + "Invalid radius: " + args[1]);
+                return true;
+            }
+            if (radius < 1 || radius > MAX_DAMAGED_RADIUS) {
+                sender.sendMessage(ChatColor.RED + "The radius must be between 1 and " + MAX_DAMAGED_RADIUS + ".");
+                return true;
+            }
+        }
+
+        long time = System.currentTimeMillis();
+        final Location location = player.getLocation();
+        final int x = location.getBlockX(), y = location.getBlockY(), z = location.getBlockZ();
+        List<Key> keys = ChunkManager.getInstance().getDamagedBlocks(player.getWorld(), x - radius, y - radius, z - radius, x + radius, y + radius, z + radius);
+        // Keep the blocks inside the sphere of the radius
+        final int radiusSquared = radius * radius;
+        long damage = 0L;
+        Iterator<Key> it = keys.iterator();
+        while (it.hasNext()) {
+            Key key = it.next();
+            if ((key.x - x) * (key.x - x) + (key.y - y) * (key.y - y) + (key.z - z) * (key.z - z) > radiusSquared) {
+                it.remove();
+            } else {
+                damage += key.durabilityAmount;
+            }
+        }
+        Collections.sort(keys, new Comparator<Key>() {
+            @Override
+            public int compare(Key k1, Key k2) {
+                return k2.durabilityAmount < k1.durabilityAmount ? -1 : (k2.durabilityAmount == k1.durabilityAmount ? 0 : 1);
+            }
+        });
+
+        sender.sendMessage(ChatColor.DARK_PURPLE + "Damaged blocks within " + radius + " blocks: " + ChatColor.LIGHT_PURPLE + keys.size()
+                + ChatColor.DARK_PURPLE + ", total damage: " + ChatColor.LIGHT_PURPLE + damage
+                + ChatColor.GRAY + " (" + (System.currentTimeMillis() - time) + " ms)");
+        for (int i = 0; i < keys.size() && i < MAX_LISTED; i++) {
+            Key key = keys.get(i);
+            sender.sendMessage(ChatColor.DARK_PURPLE + " " + key.x + ", " + key.y + ", " + key.z + " - " + ChatColor.LIGHT_PURPLE + key.durabilityAmount + " damage");
+        }
+        return true;
+    }
+
+    private boolean showSummary(final CommandSender sender, String[] args) {
+        World world;
+        if (args.length > 1) {
+            world = Bukkit.getWorld(args[1]);
+            if (world == null) {
+                sender.sendMessage(ChatColor.RED + "Unknown world: " + args[1]);
+                return true;
+            }
+        } else if (sender instanceof Player) {
+            world = ((Player) sender).getWorld();
+        } else {
+            return false;
+        }
+
+        // The chunks that are not loaded are read in the background
+        final long time = System.currentTimeMillis();
+        ChunkManager.getInstance().getDamageSummary(world, new DamageSummary.Callback() {
+            @Override
+            public void onSummary(DamageSummary summary) {
+                sendSummary(sender, summary, time);
+            }
+        });
+        return true;
+    }
+
+    private void sendSummary(CommandSender sender, final DamageSummary summary, long time) {
+        // Most damaged chunks first
+        List<Integer> entries = new ArrayList<Integer>(summary.size());
+        for (int i = 0; i < summary.size(); i++) {
+            entries.add(i);
+        }
+        Collections.sort(entries, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer e1, Integer e2) {
+                return summary.getDamage(e2) < summary.getDamage(e1) ? -1 : (summary.getDamage(e2) == summary.getDamage(e1) ? 0 : 1);
+            }
+        });
+
+        sender.sendMessage(ChatColor.DARK_PURPLE + "Damage tracked in " + summary.getWorld() + ChatColor.GRAY + " (" + (System.currentTimeMillis() - time) + " ms)");
+        sender.sendMessage(ChatColor.DARK_PURPLE + " Chunks: " + ChatColor.LIGHT_PURPLE + summary.size()
+                + ChatColor.DARK_PURPLE + ", blocks: " + ChatColor.LIGHT_PURPLE + summary.getTotalBlocks()
+                + ChatColor.DARK_PURPLE + ", total damage: " + ChatColor.LIGHT_PURPLE + summary.getTotalDamage()
+                + ChatColor.DARK_PURPLE + ", highest: " + ChatColor.LIGHT_PURPLE + summary.getMaxDamage());
+        for (int i = 0; i < entries.size() && i < MAX_LISTED; i++) {
+            int entry = entries.get(i);
+            sender.sendMessage(ChatColor.DARK_PURPLE + " Chunk " + summary.getChunkX(entry) + ", " + summary.getChunkZ(entry) + " - "
+                    + ChatColor.LIGHT_PURPLE + summary.getBlocks(entry) + " blocks, " + summary.getDamage(entry) + " damage");
+        }
+    }
+
+    private boolean resetDurability(CommandSender sender, String[] args) {
+        final boolean started;
+        if (args.length == 1) {
+            started = ChunkManager.getInstance().resetDurabilities(sender);
+        } else {
+            World world = Bukkit.getWorld(args[1]);
+            if (world == null) {
+                sender.sendMessage(ChatColor.RED + "Unknown world: " + args[1]);
+                return true;
+            }
+            if (args.length == 2) {
+                started = ChunkManager.getInstance().resetDurabilities(world, sender);
+            } else if (args.length == 6) {
+                int x1, z1, x2, z2;
+                try {
+                    x1 = Integer.parseInt(args[2]);
+                    z1 = Integer.parseInt(args[3]);
+                    x2 = Integer.parseInt(args[4]);
+                    z2 = Integer.parseInt(args[5]);
+                } catch (NumberFormatException e) {
+                    sender.sendMessage(ChatColor.RED + "Invalid coordinates, expected the block x and z of two corners.");
+                    return true;
+                }
+                // Whole chunks covering the area are reset
+                started = ChunkManager.getInstance().resetDurabilities(world, Math.min(x1, x2) >> 4, Math.min(z1, z2) >> 4, Math.max(x1, x2) >> 4, Math.max(z1, z2) >> 4, sender);
+            } else {
+                return false;
+            }
+        }
+        if (started) {
+            sender.sendMessage(ChatColor.GREEN + "Resetting Material durability's, removing the stored durabilities in the background...");
+        } else {
+            sender.sendMessage(ChatColor.RED + "A durability reset is already running, try again once it is done.");
+        }
+        return true;
     }
 }
@@ -0,0 +1,142 @@
+package com.drtshock.obsidiandestroyer.datatypes;
+
+import org.bukkit.Chunk;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+/**
+ * Copy of the block types and data inside a box of the world.
+ * <p/>
+ * Every block of the box is read from its chunk exactly once when the capture is taken, after that the capture
+ * answers type, data and liquid lookups from two arrays without touching the world. Blocks outside of the box,
+ * or outside of the height of the world, are read as air.
+ */
+public class BlockCapture {
+
+    private static final Material[] MATERIALS = Material.values();
+    private static final int WORLD_HEIGHT = 256;
+
+    private final int minX, minY, minZ;
+    private final int sizeX, sizeY, sizeZ;
+    private final short[] types;
+    private final byte[] data;
+
+    /**
+     * Captures a box of blocks, loading the chunks it covers if needed
+     *
+     * @param world the world to read the blocks from
+     * @param minX  the lowest block x coordinate
+     * @param minY  the lowest block y coordinate
+     * @param minZ  the lowest block z coordinate
+     * @param maxX  the highest block x coordinate
+     * @param maxY  the highest block y coordinate
+     * @param maxZ  the highest block z coordinate
+     */
+    public BlockCapture(World world, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.sizeX = maxX - minX + 1;
+        this.sizeY = maxY - minY + 1;
+        this.sizeZ = maxZ - minZ + 1;
+        this.types = new short[sizeX * sizeY * sizeZ];
+        this.data = new byte[types.length];
+
+        final int fromY = Math.max(minY, 0);
+        final int toY = Math.min(maxY, WORLD_HEIGHT - 1);
+        // Read chunk by chunk so every chunk is looked up once
+        for (int cx = minX >> 4; cx <= maxX >> 4; cx++) {
+            for (int cz = minZ >> 4; cz <= maxZ >> 4; cz++) {
+                final Chunk chunk = world.getChunkAt(cx, cz);
+                final int fromX = Math.max(minX, cx << 4), toX = Math.min(maxX, (cx << 4) + 15);
+                final int fromZ = Math.max(minZ, cz << 4), toZ = Math.min(maxZ, (cz << 4) + 15);
+                for (int y = fromY; y <= toY; y++) {
+                    for (int z = fromZ; z <= toZ; z++) {
+                        for (int x = fromX; x <= toX; x++) {
+                            final Block block = chunk.getBlock(x & 15, y, z & 15);
+                            final int index = index(x, y, z);
+                            types[index] = (short) block.getType().ordinal();
+                            data[index] = block.getData();
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if a block is inside the capture
+     *
+     * @param x the block x coordinate
+     * @param y the block y coordinate
+     * @param z the block z coordinate
+     * @return true if the block is inside the capture
+     */
+    public boolean contains(int x, int y, int z) {
+        return x >= minX && y >= minY && z >= minZ && x - minX < sizeX && y - minY < sizeY && z - minZ < sizeZ;
+    }
+
+    /**
+     * Gets the captured type of a block
+     *
+     * @param x the block x coordinate
+     * @param y the block y coordinate
+     * @param z the block z coordinate
+     * @return the type of the block, air if it is outside of the capture
+     */
+    public Material getType(int x, int y, int z) {
+        return contains(x, y, z) ? MATERIALS[types[index(x, y, z)]] : Material.AIR;
+    }
+
+    /**
+     * Gets the captured data of a block
+     *
+     * @param x the block x coordinate
+     * @param y the block y coordinate
+     * @param z the block z coordinate
+     * @return the data of the block, 0 if it is outside of the capture
+     */
+    public byte getData(int x, int y, int z) {
+        return contains(x, y, z) ? data[index(x, y, z)] : 0;
+    }
+
+    /**
+     * Checks if a block is a liquid
+     *
+     * @param x the block x coordinate
+     * @param y the block y coordinate
+     * @param z the block z coordinate
+     * @return true if the captured block is water or lava
+     */
+    public boolean isLiquid(int x, int y, int z) {
+        switch (getType(x, y, z)) {
+            case WATER:
+            case STATIONARY_WATER:
+            case LAVA:
+            case STATIONARY_LAVA:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Checks if a block is a liquid or touches a liquid on one of its faces
+     *
+     * @param x the block x coordinate
+     * @param y the block y coordinate
+     * @param z the block z coordinate
+     * @return true if the block or one of its neighbours is a liquid
+     */
+    public boolean isNearLiquid(int x, int y, int z) {
+        return isLiquid(x, y, z)
+                || isLiquid(x + 1, y, z) || isLiquid(x - 1, y, z)
+                || isLiquid(x, y + 1, z) || isLiquid(x, y - 1, z)
+                || isLiquid(x, y, z + 1) || isLiquid(x, y, z - 1);
+    }
+
+    private int index(int x, int y, int z) {
+        return ((y - minY) * sizeZ + (z - minZ)) * sizeX + (x - minX);
+    }
+}
@@ -0,0 +1,223 @@
+package com.drtshock.obsidiandestroyer.datatypes;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+import java.util.UUID;
+
+/**
+ * Identity of a block: the world UUID plus the block coordinates packed into a long.
+ * <p/>
+ * x and z take 26 bits each and y takes 12 bits, which covers the full world border.
+ */
+public final class BlockId {
+
+    public final UUID world;
+    public final long position;
+
+    /**
+     * Creates a new block identity
+     *
+     * @param world    the UUID of the world
+     * @param position the packed block position
+     */
+    public BlockId(UUID world, long position) {
+        this.world = world;
+        this.position = position;
+    }
+
+    /**
+     * Creates a new block identity
+     *
+     * @param world the UUID of the world
+     * @param x     the block x coordinate
+     * @param y     the block y coordinate
+     * @param z     the block z coordinate
+     */
+    public BlockId(UUID world, int x, int y, int z) {
+        this(world, pack(x, y, z));
+    }
+
+    /**
+     * Gets the identity of a block
+     *
+     * @param block the block
+     * @return the identity of the block
+     */
+    public static BlockId of(Block block) {
+        return new BlockId(block.getWorld().getUID(), block.getX(), block.getY(), block.getZ());
+    }
+
+    /**
+     * Gets the identity of the block at a location
+     *
+     * @param location the location of the block
+     * @return the identity of the block
+     */
+    public static BlockId of(Location location) {
+        return new BlockId(location.getWorld().getUID(), location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
+
+    /**
+     * Gets the identity of the block at coordinates of a world
+     *
+     * @param world the world of the block
+     * @param x     the block x coordinate
+     * @param y     the block y coordinate
+     * @param z     the block z coordinate
+     * @return the identity of the block
+     */
+    public static BlockId of(World world, int x, int y, int z) {
+        return new BlockId(world.getUID(), x, y, z);
+    }
+
+    /**
+     * Packs block coordinates into a long
+     *
+     * @param x the block x coordinate
+     * @param y the block y coordinate
+     * @param z the block z coordinate
+     * @return the packed position
+     */
+    public static long pack(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    /**
+     * Unpacks the block x coordinate of a packed position
+     *
+     * @param position the packed position
+     * @return the block x coordinate
+     */
+    public static int unpackX(long position) {
+        return (int) (position >> 38);
+    }
+
+    /**
+     * Unpacks the block y coordinate of a packed position
+     *
+     * @param position the packed position
+     * @return the block y coordinate
+     */
+    public static int unpackY(long position) {
+        return (int) (position & 0xFFF);
+    }
+
+    /**
+     * Unpacks the block z coordinate of a packed position
+     *
+     * @param position the packed position
+     * @return the block z coordinate
+     */
+    public static int unpackZ(long position) {
+        return (int) (position << 26 >> 38);
+    }
+
+    /**
+     * Stable hash of a packed position
+     *
+     * @param position the packed position
+     * @return the hash of the position
+     */
+    public static int hash(long position) {
+        long hash = position * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * Gets the block x coordinate of this block
+     *
+     * @return the block x coordinate
+     */
+    public int getX() {
+        return unpackX(position);
+    }
+
+    /**
+     * Gets the block y coordinate of this block
+     *
+     * @return the block y coordinate
+     */
+    public int getY() {
+        return unpackY(position);
+    }
+
+    /**
+     * Gets the block z coordinate of this block
+     *
+     * @return the block z coordinate
+     */
+    public int getZ() {
+        return unpackZ(position);
+    }
+
+    /**
+     * Gets the x coordinate of the chunk of this block
+     *
+     * @return the chunk x coordinate
+     */
+    public int getChunkX() {
+        return getX() >> 4;
+    }
+
+    /**
+     * Gets the z coordinate of the chunk of this block
+     *
+     * @return the chunk z coordinate
+     */
+    public int getChunkZ() {
+        return getZ() >> 4;
+    }
+
+    /**
+     * Gets the chunk local key of this block
+     *
+     * @return the packed chunk local key
+     * @see DurabilityStore#pack(int, int, int)
+     */
+    public int getLocalKey() {
+        return DurabilityStore.pack(getX(), getY(), getZ());
+    }
+
+    /**
+     * Gets the world of this block
+     *
+     * @return the world, or null if it is not loaded
+     */
+    public World getWorld() {
+        return Bukkit.getWorld(world);
+    }
+
+    /**
+     * Gets the location of this block
+     *
+     * @return the location of the block
+     */
+    public Location toLocation() {
+        return new Location(getWorld(), getX(), getY(), getZ());
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (object instanceof BlockId) {
+            BlockId other = (BlockId) object;
+            return this.position == other.position && this.world.equals(other.world);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * world.hashCode() + hash(position);
+    }
+
+    @Override
+    public String toString() {
+        return "BlockId{" + world + " " + getX() + "," + getY() + "," + getZ() + "}";
+    }
+}
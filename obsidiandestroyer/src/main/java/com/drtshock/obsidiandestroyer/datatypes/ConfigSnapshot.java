@@ -0,0 +1,119 @@
+package com.drtshock.obsidiandestroyer.datatypes;
+
+import com.drtshock.obsidiandestroyer.enumerations.BleedingMode;
+import org.bukkit.ChatColor;
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable copy of the config.yml settings, read once when the config is loaded.
+ * <p/>
+ * A reload builds a new snapshot and publishes it in one step, so code holding a snapshot never sees
+ * a mix of old and new values.
+ */
+public final class ConfigSnapshot {
+
+    public final boolean verbose;
+    public final boolean debug;
+    public final List<String> disabledWorlds;
+    public final int radius;
+    public final boolean regeneratesOverTime;
+    public final boolean visibleRegeneration;
+    public final int expiryCheckInterval;
+    public final boolean fluidsProtectIndustructables;
+    public final boolean bypassAllFluidProtection;
+    public final boolean protectTNTCannons;
+    public final boolean effectsEnabled;
+    public final double effectsChance;
+    public final boolean ignoreUnhandledExplosionTypes;
+    public final boolean asyncExplosions;
+    public final int asyncExplosionThreads;
+    public final int asyncExplosionLatencyBudget;
+    public final int asyncExplosionMaxPending;
+    public final boolean batchExplosions;
+    public final int explosionBatchMaxSize;
+    public final boolean singleDamageEvents;
+    public final Material durabilityCheckItem;
+    public final String durabilityMessage;
+    public final boolean handleFactions;
+    public final boolean handleFactionsExplosions;
+    public final boolean useFactionsPowerLevel;
+    public final boolean handleOfflineFactions;
+    public final boolean protectOfflineFactions;
+    public final boolean handleOnlineFactions;
+    public final double offlineFactionsDurabilityMultiplier;
+    public final double onlineFactionsDurabilityMultiplier;
+    public final boolean protectBedrockBorders;
+    public final int borderToProtectNormal;
+    public final int borderToProtectNether;
+    public final boolean disableDamageBleeding;
+    public final BleedingMode bleedingMode;
+    public final double nextLayerDamageChance;
+    public final int autosaveInterval;
+    public final int autosaveChunksPerTick;
+
+    /**
+     * Reads the settings of a config
+     *
+     * @param config the loaded config.yml
+     */
+    public ConfigSnapshot(ConfigurationSection config) {
+        this.verbose = config.getBoolean("Verbose", config.getBoolean("verbose", false));
+        this.debug = config.getBoolean("Debug", config.getBoolean("debug", false));
+        this.disabledWorlds = Collections.unmodifiableList(new ArrayList<String>(config.getStringList("DisabledOnWorlds")));
+        this.radius = config.getInt("Explosions.Radius", 3);
+        this.regeneratesOverTime = config.getBoolean("DurabilityGlobal.RegeneratesOverTime", false);
+        this.visibleRegeneration = config.getBoolean("DurabilityGlobal.VisibleRegeneration", false);
+        this.expiryCheckInterval = config.getInt("DurabilityGlobal.ExpiryCheckInterval", 20);
+        this.fluidsProtectIndustructables = config.getBoolean("Explosions.FluidsProtectIndustructables", true);
+        this.bypassAllFluidProtection = config.getBoolean("Explosions.BypassAllFluidProtection", false);
+        this.protectTNTCannons = config.getBoolean("Explosions.TNTCannonsProtected", true);
+        this.effectsEnabled = config.getBoolean("DurabilityGlobal.Effects.Enabled", true);
+        double chance = config.getDouble("DurabilityGlobal.Effects.Chance", 0.12);
+        if (chance > 0.6) {
+            chance = 0.6;
+        }
+        if (chance <= 0) {
+            chance = 0.01;
+        }
+        this.effectsChance = chance;
+        this.ignoreUnhandledExplosionTypes = config.getBoolean("Explosions.IgnoreUnhandledTypes", false);
+        this.asyncExplosions = config.getBoolean("Explosions.Async.Enabled", false);
+        this.asyncExplosionThreads = Math.max(1, config.getInt("Explosions.Async.Threads", 2));
+        this.asyncExplosionLatencyBudget = Math.max(0, config.getInt("Explosions.Async.LatencyBudget", 100));
+        this.asyncExplosionMaxPending = Math.max(1, config.getInt("Explosions.Async.MaxPending", 64));
+        this.batchExplosions = config.getBoolean("Explosions.Batching.Enabled", false);
+        this.explosionBatchMaxSize = Math.max(1, config.getInt("Explosions.Batching.MaxSize", 48));
+        this.singleDamageEvents = config.getBoolean("Explosions.SingleDamageEvents", false);
+        Material checkItem = Material.matchMaterial(config.getString("DurabilityGlobal.CheckItem", "POTATO_ITEM"));
+        this.durabilityCheckItem = checkItem != null ? checkItem : Material.POTATO_ITEM;
+        this.durabilityMessage = ChatColor.translateAlternateColorCodes('&', config.getString("DurabilityGlobal.CheckMessage", ChatColor.DARK_PURPLE + "Durability of this block is: " + ChatColor.WHITE + "{DURABILITY}"));
+        this.handleFactions = config.getBoolean("Factions.Enabled", false);
+        this.handleFactionsExplosions = config.getBoolean("Factions.HandleExplosions", true);
+        this.useFactionsPowerLevel = config.getBoolean("Factions.UseFactionPowerLevel", false);
+        this.handleOfflineFactions = config.getBoolean("Factions.HandleOffline", false);
+        this.protectOfflineFactions = config.getBoolean("Factions.ProtectOffline", false);
+        this.handleOnlineFactions = config.getBoolean("Factions.HandleOnline", false);
+        this.offlineFactionsDurabilityMultiplier = config.getDouble("Factions.OfflineDurabilityMultiplier", 1.0);
+        this.onlineFactionsDurabilityMultiplier = config.getDouble("Factions.OnlineDurabilityMultiplier", 1.0);
+        this.protectBedrockBorders = config.getBoolean("WorldsEdge.ProtectBedrockBorders", true);
+        this.borderToProtectNormal = config.getInt("WorldsEdge.BorderToProtect.World", 5);
+        this.borderToProtectNether = config.getInt("WorldsEdge.BorderToProtect.Nether", 123);
+        this.disableDamageBleeding = config.getBoolean("Explosions.DisableDamageBleeding", true);
+        BleedingMode bleedingMode = BleedingMode.RAYS;
+        final String bleedingModeName = config.getString("Explosions.BleedingMode", BleedingMode.RAYS.name());
+        for (BleedingMode mode : BleedingMode.values()) {
+            if (mode.name().equalsIgnoreCase(bleedingModeName)) {
+                bleedingMode = mode;
+            }
+        }
+        this.bleedingMode = bleedingMode;
+        this.nextLayerDamageChance = config.getDouble("Explosions.NextLevelDamageChance", 0.5);
+        this.autosaveInterval = config.getInt("Storage.AutosaveInterval", 60);
+        this.autosaveChunksPerTick = config.getInt("Storage.AutosaveChunksPerTick", 20);
+    }
+}
@@ -0,0 +1,196 @@
+package com.drtshock.obsidiandestroyer.datatypes;
+
+import org.bukkit.entity.Creeper;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+
+/**
+ * What damages the durability of blocks.
+ * <p/>
+ * The damage a source does to a material is resolved once when the source is created, so a source can be
+ * reused for every block of an explosion and only needs the durability material of a block to damage it.
+ * Sources are immutable.
+ */
+public final class DamageSource {
+
+    // Damage of the durability materials a source uses
+    private static final int FIXED = 0;
+    private static final int TNT = 1;
+    private static final int CREEPER = 2;
+    private static final int CHARGED_CREEPER = 3;
+    private static final int WITHER = 4;
+    private static final int TNT_MINECART = 5;
+    private static final int GHAST = 6;
+    private static final int NULL = 7;
+    private static final int CANNON_IMPACT = 8;
+    private static final int CANNON_PIERCE = 9;
+    private static final int HARMLESS = 10;
+    private static final int OTHER = 11;
+
+    private static final DamageSource CANNON_IMPACT_SOURCE = new DamageSource(null, CANNON_IMPACT, 0);
+    private static final DamageSource CANNON_PIERCE_SOURCE = new DamageSource(null, CANNON_PIERCE, 0);
+
+    private final EntityType entityType;
+    private final int column;
+    private final int amount;
+
+    private DamageSource(EntityType entityType, int column, int amount) {
+        this.entityType = entityType;
+        this.column = column;
+        this.amount = amount;
+    }
+
+    /**
+     * Gets the source of the damage done by an entity
+     *
+     * @param entity the damaging entity
+     * @return the damage source of the entity
+     */
+    public static DamageSource of(Entity entity) {
+        if (entity.getType() == EntityType.CREEPER && ((Creeper) entity).isPowered()) {
+            return new DamageSource(EntityType.CREEPER, CHARGED_CREEPER, 0);
+        }
+        return of(entity.getType());
+    }
+
+    /**
+     * Gets the source of the damage done by a type of entity
+     *
+     * @param entityType the type of the damaging entity
+     * @return the damage source of the entity type
+     */
+    public static DamageSource of(EntityType entityType) {
+        switch (entityType) {
+            case PRIMED_TNT:
+                return new DamageSource(entityType, TNT, 0);
+            case SNOWBALL:
+                return new DamageSource(entityType, HARMLESS, 0);
+            case CREEPER:
+                return new DamageSource(entityType, CREEPER, 0);
+            case WITHER:
+            case WITHER_SKULL:
+                return new DamageSource(entityType, WITHER, 0);
+            case MINECART_TNT:
+                return new DamageSource(entityType, TNT_MINECART, 0);
+            case FIREBALL:
+            case SMALL_FIREBALL:
+            case GHAST:
+                return new DamageSource(entityType, GHAST, 0);
+            case BAT:
+                return new DamageSource(entityType, NULL, 0);
+            default:
+                return new DamageSource(entityType, OTHER, 0);
+        }
+    }
+
+    /**
+     * Gets a source doing the same damage to every material
+     *
+     * @param amount the damage done to a block
+     * @return the damage source
+     */
+    public static DamageSource fixed(int amount) {
+        return new DamageSource(null, FIXED, Math.max(0, amount));
+    }
+
+    /**
+     * Gets the source of the damage done by the impact of a cannon projectile
+     *
+     * @return the damage source
+     */
+    public static DamageSource cannonImpact() {
+        return CANNON_IMPACT_SOURCE;
+    }
+
+    /**
+     * Gets the source of the damage done by a piercing cannon projectile
+     *
+     * @return the damage source
+     */
+    public static DamageSource cannonPierce() {
+        return CANNON_PIERCE_SOURCE;
+    }
+
+    /**
+     * Gets the type of the damaging entity
+     *
+     * @return the entity type, or null if the damage is not done by an entity
+     */
+    public EntityType getEntityType() {
+        return entityType;
+    }
+
+    /**
+     * Checks if the damage is done by a cannon projectile
+     *
+     * @return true for cannon damage
+     */
+    public boolean isCannon() {
+        return column == CANNON_IMPACT || column == CANNON_PIERCE;
+    }
+
+    /**
+     * Checks if the source is enabled to damage a material
+     *
+     * @param material the durability material of the block
+     * @return true if the source damages the material
+     */
+    public boolean damages(DurabilityMaterial material) {
+        switch (column) {
+            case TNT:
+                return material.getTntEnabled();
+            case CREEPER:
+            case CHARGED_CREEPER:
+                return material.getCreepersEnabled();
+            case WITHER:
+                // Withers themselves never damage handled materials, only their skulls can
+                return entityType != EntityType.WITHER && material.getWithersEnabled();
+            case TNT_MINECART:
+                return material.getTntMinecartsEnabled();
+            case GHAST:
+                return material.getGhastsEnabled();
+            case NULL:
+                return material.isNullEnabled();
+            case CANNON_IMPACT:
+            case CANNON_PIERCE:
+                return material.getCannonsEnabled();
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Gets the damage the source does to a material
+     *
+     * @param material the durability material of the block
+     * @return the damage done to a block of the material
+     */
+    public int getDamage(DurabilityMaterial material) {
+        switch (column) {
+            case FIXED:
+                return amount;
+            case TNT:
+                return material.getTntDamage();
+            case CREEPER:
+                return material.getCreepersDamage();
+            case CHARGED_CREEPER:
+                return material.getChargedCreeperDamage();
+            case WITHER:
+                return material.getWithersDamage();
+            case TNT_MINECART:
+                return material.getTntMinecartsDamage();
+            case GHAST:
+                return material.getGhastsDamage();
+            case NULL:
+                return material.getNullDamage();
+            case CANNON_IMPACT:
+                return material.getCannonsImpactDamage();
+            case CANNON_PIERCE:
+                return material.getCannonsPierceDamage();
+            case HARMLESS:
+                return 0;
+            default:
+                return 1;
+        }
+    }
+}
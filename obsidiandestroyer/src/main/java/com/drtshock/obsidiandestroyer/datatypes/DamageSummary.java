@@ -0,0 +1,133 @@
+package com.drtshock.obsidiandestroyer.datatypes;
+
+import java.util.Arrays;
+
+/**
+ * Durability damage tracked in the chunks of a world, counted per chunk.
+ * <p/>
+ * Every entry is a chunk holding damaged blocks, with the amount of damaged blocks and the damage done to them,
+ * which is what a heat map of the world needs. The totals of the world are kept as entries are added.
+ */
+public class DamageSummary {
+
+    private final String world;
+    private int size;
+    private int[] chunkXs;
+    private int[] chunkZs;
+    private int[] blocks;
+    private long[] damage;
+    private int totalBlocks;
+    private long totalDamage;
+    private int maxDamage;
+
+    /**
+     * Creates an empty summary
+     *
+     * @param world          the name of the world
+     * @param expectedChunks the amount of chunks expected to be added
+     */
+    public DamageSummary(String world, int expectedChunks) {
+        this.world = world;
+        final int capacity = Math.max(16, expectedChunks);
+        this.chunkXs = new int[capacity];
+        this.chunkZs = new int[capacity];
+        this.blocks = new int[capacity];
+        this.damage = new long[capacity];
+    }
+
+    /**
+     * Adds the damage of a chunk, used while the summary is built
+     *
+     * @param chunkX    the chunk x coordinate
+     * @param chunkZ    the chunk z coordinate
+     * @param blocks    the amount of damaged blocks in the chunk
+     * @param damage    the damage done to the blocks of the chunk
+     * @param maxDamage the damage of the most damaged block of the chunk
+     */
+    public void addChunk(int chunkX, int chunkZ, int blocks, long damage, int maxDamage) {
+        if (size == chunkXs.length) {
+            final int capacity = size << 1;
+            this.chunkXs = Arrays.copyOf(chunkXs, capacity);
+            this.chunkZs = Arrays.copyOf(chunkZs, capacity);
+            this.blocks = Arrays.copyOf(this.blocks, capacity);
+            this.damage = Arrays.copyOf(this.damage, capacity);
+        }
+        this.chunkXs[size] = chunkX;
+        this.chunkZs[size] = chunkZ;
+        this.blocks[size] = blocks;
+        this.damage[size] = damage;
+        size++;
+        this.totalBlocks += blocks;
+        this.totalDamage += damage;
+        this.maxDamage = Math.max(this.maxDamage, maxDamage);
+    }
+
+    public String getWorld() {
+        return world;
+    }
+
+    /**
+     * Gets the amount of chunks holding damaged blocks
+     *
+     * @return the amount of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getChunkX(int entry) {
+        return chunkXs[entry];
+    }
+
+    public int getChunkZ(int entry) {
+        return chunkZs[entry];
+    }
+
+    public int getBlocks(int entry) {
+        return blocks[entry];
+    }
+
+    public long getDamage(int entry) {
+        return damage[entry];
+    }
+
+    /**
+     * Gets the amount of damaged blocks in the world
+     *
+     * @return the amount of damaged blocks
+     */
+    public int getTotalBlocks() {
+        return totalBlocks;
+    }
+
+    /**
+     * Gets the damage done to the blocks of the world
+     *
+     * @return the sum of the durability damage
+     */
+    public long getTotalDamage() {
+        return totalDamage;
+    }
+
+    /**
+     * Gets the damage of the most damaged block of the world
+     *
+     * @return the highest durability damage
+     */
+    public int getMaxDamage() {
+        return maxDamage;
+    }
+
+    /**
+     * Receives a summary built in the background, on the server thread
+     */
+    public interface Callback {
+
+        /**
+         * Called once every chunk of the world was counted
+         *
+         * @param summary the summary of the world
+         */
+        void onSummary(DamageSummary summary);
+    }
+}
@@ -0,0 +1,378 @@
+package com.drtshock.obsidiandestroyer.datatypes;
+
+import java.util.Arrays;
+
+/**
+ * Primitive durability table for the blocks of a single chunk.
+ * <p/>
+ * Blocks are keyed by their packed chunk local coordinates (see {@link #pack(int, int, int)}) in an
+ * open addressing table with parallel durability, timer and material arrays, so tracking a block never
+ * allocates and two blocks can never share an entry. The material of a block (see {@link #material(int, int)})
+ * is kept so expiry can be decided without looking at the world.
+ * <p/>
+ * The store is not thread-safe and is meant to be accessed from the server thread.
+ */
+public class DurabilityStore {
+
+    private static final int EMPTY = -1;
+    public static final int UNKNOWN_MATERIAL = 0;
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] keys;
+    private int[] durabilities;
+    private long[] times;
+    private int[] materials;
+    private int size;
+    private int mask;
+    private int resizeAt;
+
+    /**
+     * Creates a new empty durability store
+     */
+    public DurabilityStore() {
+        allocate(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new empty durability store sized to hold some blocks without growing
+     *
+     * @param expectedSize the amount of blocks expected to be tracked
+     */
+    public DurabilityStore(int expectedSize) {
+        int capacity = DEFAULT_CAPACITY;
+        while ((capacity * 3) >>> 2 <= expectedSize) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * Packs block coordinates into a chunk local key
+     *
+     * @param x the block x coordinate
+     * @param y the block y coordinate
+     * @param z the block z coordinate
+     * @return the packed local key
+     */
+    public static int pack(int x, int y, int z) {
+        return ((y & 0xFFF) << 8) | ((z & 15) << 4) | (x & 15);
+    }
+
+    /**
+     * Gets the chunk local x coordinate of a packed key
+     *
+     * @param key the packed local key
+     * @return the local x coordinate (0-15)
+     */
+    public static int unpackX(int key) {
+        return key & 15;
+    }
+
+    /**
+     * Gets the y coordinate of a packed key
+     *
+     * @param key the packed local key
+     * @return the y coordinate
+     */
+    public static int unpackY(int key) {
+        return (key >>> 8) & 0xFFF;
+    }
+
+    /**
+     * Gets the chunk local z coordinate of a packed key
+     *
+     * @param key the packed local key
+     * @return the local z coordinate (0-15)
+     */
+    public static int unpackZ(int key) {
+        return (key >>> 4) & 15;
+    }
+
+    /**
+     * Packs a material id and data value
+     *
+     * @param typeId the material id of the block
+     * @param data   the data value of the block
+     * @return the packed material
+     */
+    public static int material(int typeId, int data) {
+        return (typeId << 4) | (data & 15);
+    }
+
+    /**
+     * Gets the material id of a packed material
+     *
+     * @param material the packed material
+     * @return the material id
+     */
+    public static int materialType(int material) {
+        return material >>> 4;
+    }
+
+    /**
+     * Gets the data value of a packed material
+     *
+     * @param material the packed material
+     * @return the data value
+     */
+    public static int materialData(int material) {
+        return material & 15;
+    }
+
+    /**
+     * Gets the amount of tracked blocks
+     *
+     * @return the amount of tracked blocks
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if a block is tracked
+     *
+     * @param key the packed local key
+     * @return true if the block is tracked
+     */
+    public boolean contains(int key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Gets the durability damage of a block
+     *
+     * @param key the packed local key
+     * @return the durability damage, or 0 if the block is not tracked
+     */
+    public int getDurability(int key) {
+        int index = indexOf(key);
+        return index >= 0 ? durabilities[index] : 0;
+    }
+
+    /**
+     * Gets the durability timer of a block
+     *
+     * @param key the packed local key
+     * @return the durability time, or 0 if the block is not tracked
+     */
+    public long getTime(int key) {
+        int index = indexOf(key);
+        return index >= 0 ? times[index] : 0L;
+    }
+
+    /**
+     * Gets the packed material of a block
+     *
+     * @param key the packed local key
+     * @return the packed material, or {@link #UNKNOWN_MATERIAL} if the block is not tracked or its material is unknown
+     */
+    public int getMaterial(int key) {
+        int index = indexOf(key);
+        return index >= 0 ? materials[index] : UNKNOWN_MATERIAL;
+    }
+
+    /**
+     * Tracks a block, replacing any previous values but its material
+     *
+     * @param key        the packed local key
+     * @param durability the durability damage
+     * @param time       the durability time
+     */
+    public void put(int key, int durability, long time) {
+        put(key, durability, time, UNKNOWN_MATERIAL);
+    }
+
+    /**
+     * Tracks a block, replacing any previous values
+     *
+     * @param key        the packed local key
+     * @param durability the durability damage
+     * @param time       the durability time
+     * @param material   the packed material, {@link #UNKNOWN_MATERIAL} keeps the current one
+     */
+    public void put(int key, int durability, long time, int material) {
+        int index = slot(key);
+        while (keys[index] != EMPTY) {
+            if (keys[index] == key) {
+                durabilities[index] = durability;
+                times[index] = time;
+                if (material != UNKNOWN_MATERIAL) {
+                    materials[index] = material;
+                }
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        durabilities[index] = durability;
+        times[index] = time;
+        materials[index] = material;
+        if (++size >= resizeAt) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    /**
+     * Stops tracking a block
+     *
+     * @param key the packed local key
+     * @return true if the block was tracked
+     */
+    public boolean remove(int key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    /**
+     * Removes all tracked blocks and releases the table
+     */
+    public void clear() {
+        allocate(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a copy of this store
+     *
+     * @return the copy
+     */
+    public DurabilityStore copy() {
+        DurabilityStore copy = new DurabilityStore();
+        copy.keys = keys.clone();
+        copy.durabilities = durabilities.clone();
+        copy.times = times.clone();
+        copy.materials = materials.clone();
+        copy.size = size;
+        copy.mask = mask;
+        copy.resizeAt = resizeAt;
+        return copy;
+    }
+
+    /**
+     * Gets the next occupied slot, used to iterate the store without allocating.
+     * <pre>
+     * for (int slot = store.nextSlot(0); slot >= 0; slot = store.nextSlot(slot + 1))
+     * </pre>
+     *
+     * @param from the first slot to check
+     * @return the next occupied slot or -1 if there is none
+     */
+    public int nextSlot(int from) {
+        for (int i = from; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the packed local key stored in a slot
+     *
+     * @param slot the occupied slot
+     * @return the packed local key
+     */
+    public int keyAt(int slot) {
+        return keys[slot];
+    }
+
+    /**
+     * Gets the durability damage stored in a slot
+     *
+     * @param slot the occupied slot
+     * @return the durability damage
+     */
+    public int durabilityAt(int slot) {
+        return durabilities[slot];
+    }
+
+    /**
+     * Gets the durability time stored in a slot
+     *
+     * @param slot the occupied slot
+     * @return the durability time
+     */
+    public long timeAt(int slot) {
+        return times[slot];
+    }
+
+    /**
+     * Gets the packed material stored in a slot
+     *
+     * @param slot the occupied slot
+     * @return the packed material
+     */
+    public int materialAt(int slot) {
+        return materials[slot];
+    }
+
+    private int slot(int key) {
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private int indexOf(int key) {
+        int index = slot(key);
+        while (keys[index] != EMPTY) {
+            if (keys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void removeAt(int index) {
+        // Backward shift deletion keeps probe chains intact without tombstones
+        int gap = index;
+        int next = (gap + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = slot(keys[next]);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                durabilities[gap] = durabilities[next];
+                times[gap] = times[next];
+                materials[gap] = materials[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        size--;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        durabilities = new int[capacity];
+        times = new long[capacity];
+        materials = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = (capacity * 3) >>> 2;
+        size = 0;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldDurabilities = durabilities;
+        long[] oldTimes = times;
+        int[] oldMaterials = materials;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int index = slot(oldKeys[i]);
+                while (keys[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                durabilities[index] = oldDurabilities[i];
+                times[index] = oldTimes[i];
+                materials[index] = oldMaterials[i];
+                size++;
+            }
+        }
+    }
+}
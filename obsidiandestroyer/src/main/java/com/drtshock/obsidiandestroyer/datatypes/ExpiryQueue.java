@@ -0,0 +1,143 @@
+package com.drtshock.obsidiandestroyer.datatypes;
+
+import java.util.Arrays;
+
+/**
+ * Primitive min-heap of block durability timers, ordered by the time they are due.
+ * <p/>
+ * Each entry carries the durability time it was scheduled for as a token. Entries are never updated or
+ * removed in place: when a timer is restarted a new entry is added, and the old one is recognised as stale
+ * when it is polled because its token no longer matches the durability time of the block.
+ * <p/>
+ * The queue is not thread-safe and is meant to be accessed from the server thread.
+ */
+public class ExpiryQueue {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private long[] due = new long[DEFAULT_CAPACITY];
+    private int[] keys = new int[DEFAULT_CAPACITY];
+    private long[] tokens = new long[DEFAULT_CAPACITY];
+    private int size;
+
+    /**
+     * Gets the amount of queued entries, stale ones included
+     *
+     * @return the amount of queued entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if there is no queued entry
+     *
+     * @return true if the queue is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Queues a timer
+     *
+     * @param time  the time the timer is due
+     * @param key   the packed local key of the block
+     * @param token the durability time of the block when the timer was queued
+     */
+    public void add(long time, int key, long token) {
+        if (size == due.length) {
+            int capacity = size << 1;
+            due = Arrays.copyOf(due, capacity);
+            keys = Arrays.copyOf(keys, capacity);
+            tokens = Arrays.copyOf(tokens, capacity);
+        }
+        int index = size++;
+        // Sift up
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (due[parent] <= time) {
+                break;
+            }
+            set(index, due[parent], keys[parent], tokens[parent]);
+            index = parent;
+        }
+        set(index, time, key, token);
+    }
+
+    /**
+     * Gets the time the first timer is due
+     *
+     * @return the due time, or {@link Long#MAX_VALUE} if the queue is empty
+     */
+    public long peekTime() {
+        return size > 0 ? due[0] : Long.MAX_VALUE;
+    }
+
+    /**
+     * Gets the packed local key of the first timer
+     *
+     * @return the packed local key
+     */
+    public int peekKey() {
+        return keys[0];
+    }
+
+    /**
+     * Gets the token of the first timer
+     *
+     * @return the durability time of the block when the timer was queued
+     */
+    public long peekToken() {
+        return tokens[0];
+    }
+
+    /**
+     * Removes the first timer
+     */
+    public void poll() {
+        if (size == 0) {
+            return;
+        }
+        size--;
+        if (size == 0) {
+            return;
+        }
+        final long time = due[size];
+        final int key = keys[size];
+        final long token = tokens[size];
+        int index = 0;
+        // Sift down
+        while (true) {
+            int child = (index << 1) + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && due[child + 1] < due[child]) {
+                child++;
+            }
+            if (time <= due[child]) {
+                break;
+            }
+            set(index, due[child], keys[child], tokens[child]);
+            index = child;
+        }
+        set(index, time, key, token);
+    }
+
+    /**
+     * Removes every queued timer and releases the heap
+     */
+    public void clear() {
+        due = new long[DEFAULT_CAPACITY];
+        keys = new int[DEFAULT_CAPACITY];
+        tokens = new long[DEFAULT_CAPACITY];
+        size = 0;
+    }
+
+    private void set(int index, long time, int key, long token) {
+        due[index] = time;
+        keys[index] = key;
+        tokens[index] = token;
+    }
+}
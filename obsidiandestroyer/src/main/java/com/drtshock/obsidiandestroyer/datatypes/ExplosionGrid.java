@@ -0,0 +1,149 @@
+package com.drtshock.obsidiandestroyer.datatypes;
+
+/**
+ * Dense state of the blocks around a single explosion.
+ * <p/>
+ * Every block inside the bounding box of the explosion holds a set of flags, so checking or updating the state
+ * of a block is one array access instead of a scan of the block lists. Blocks outside of the box have no flags.
+ */
+public class ExplosionGrid {
+
+    public static final int IGNORED = 1;
+    public static final int DESTROYED = 1 << 1;
+    public static final int BLOCKED = 1 << 2;
+    // Destroyed block that is not a handled material
+    public static final int UNHANDLED_DESTROYED = 1 << 3;
+    // Block listed by the explosion event
+    public static final int EVENT = 1 << 4;
+
+    private final int minX, minY, minZ;
+    private final int sizeX, sizeY, sizeZ;
+    private final byte[] flags;
+
+    /**
+     * Creates a grid covering a box of blocks
+     *
+     * @param minX the lowest block x coordinate
+     * @param minY the lowest block y coordinate
+     * @param minZ the lowest block z coordinate
+     * @param maxX the highest block x coordinate
+     * @param maxY the highest block y coordinate
+     * @param maxZ the highest block z coordinate
+     */
+    public ExplosionGrid(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.sizeX = maxX - minX + 1;
+        this.sizeY = maxY - minY + 1;
+        this.sizeZ = maxZ - minZ + 1;
+        this.flags = new byte[sizeX * sizeY * sizeZ];
+    }
+
+    /**
+     * Checks if a block is inside the grid
+     *
+     * @param x the block x coordinate
+     * @param y the block y coordinate
+     * @param z the block z coordinate
+     * @return true if the block is inside the grid
+     */
+    public boolean contains(int x, int y, int z) {
+        return x >= minX && y >= minY && z >= minZ && x - minX < sizeX && y - minY < sizeY && z - minZ < sizeZ;
+    }
+
+    /**
+     * Gets the flags of a block
+     *
+     * @param x the block x coordinate
+     * @param y the block y coordinate
+     * @param z the block z coordinate
+     * @return the flags of the block, 0 if it is outside of the grid
+     */
+    public int get(int x, int y, int z) {
+        return contains(x, y, z) ? flags[index(x, y, z)] : 0;
+    }
+
+    /**
+     * Checks if a block has any of some flags
+     *
+     * @param x    the block x coordinate
+     * @param y    the block y coordinate
+     * @param z    the block z coordinate
+     * @param flag the flags to check
+     * @return true if the block has any of the flags
+     */
+    public boolean has(int x, int y, int z, int flag) {
+        return (get(x, y, z) & flag) != 0;
+    }
+
+    /**
+     * Adds flags to a block, blocks outside of the grid are ignored
+     *
+     * @param x    the block x coordinate
+     * @param y    the block y coordinate
+     * @param z    the block z coordinate
+     * @param flag the flags to add
+     */
+    public void set(int x, int y, int z, int flag) {
+        if (contains(x, y, z)) {
+            flags[index(x, y, z)] |= flag;
+        }
+    }
+
+    /**
+     * Gets the amount of blocks in the grid, used to iterate the grid.
+     * <pre>
+     * for (int index = 0; index < grid.size(); index++)
+     * </pre>
+     *
+     * @return the amount of blocks
+     */
+    public int size() {
+        return flags.length;
+    }
+
+    /**
+     * Gets the flags of the block at an index
+     *
+     * @param index the index of the block
+     * @return the flags of the block
+     */
+    public int flagsAt(int index) {
+        return flags[index];
+    }
+
+    /**
+     * Gets the x coordinate of the block at an index
+     *
+     * @param index the index of the block
+     * @return the block x coordinate
+     */
+    public int xAt(int index) {
+        return minX + index % sizeX;
+    }
+
+    /**
+     * Gets the y coordinate of the block at an index
+     *
+     * @param index the index of the block
+     * @return the block y coordinate
+     */
+    public int yAt(int index) {
+        return minY + index / (sizeX * sizeZ);
+    }
+
+    /**
+     * Gets the z coordinate of the block at an index
+     *
+     * @param index the index of the block
+     * @return the block z coordinate
+     */
+    public int zAt(int index) {
+        return minZ + (index / sizeX) % sizeZ;
+    }
+
+    private int index(int x, int y, int z) {
+        return ((y - minY) * sizeZ + (z - minZ)) * sizeX + (x - minX);
+    }
+}
@@ -0,0 +1,129 @@
+package com.drtshock.obsidiandestroyer.datatypes;
+
+import java.util.Arrays;
+
+/**
+ * Ordered list of the decisions taken for the blocks of an explosion.
+ * <p/>
+ * A plan is computed from a {@link BlockCapture} and can be built away from the server thread. It only
+ * describes what should happen to each block; the durability damage, the block changes and the events are
+ * applied when the plan is committed on the server thread, in the order of the steps.
+ */
+public class ExplosionPlan {
+
+    // Mark the block as ignored
+    public static final int IGNORE = 0;
+    // Mark the block as blocked and ignored
+    public static final int BLOCK = 1;
+    // Mark the block as an unhandled destroyed block
+    public static final int UNHANDLED = 2;
+    // Mark the block as destroyed
+    public static final int DESTROY = 3;
+    // Damage a block of the explosion event
+    public static final int EVENT_DAMAGE = 4;
+    // Damage a block in the radius
+    public static final int DAMAGE = 5;
+    // Damage a block in the radius unless the block blocking its path protects it
+    public static final int PATH_DAMAGE = 6;
+    // Ignore the block if it is a block of the explosion event
+    public static final int OUTSIDE = 7;
+
+    // The step belongs to the radius check and is skipped for blocks already ignored or destroyed
+    public static final int RADIUS = 1 << 4;
+    // The step is skipped unless the block has been blocked before
+    public static final int REQUIRES_BLOCKED = 1 << 5;
+
+    private static final int ACTION_MASK = 15;
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private long[] positions = new long[DEFAULT_CAPACITY];
+    private int[] actions = new int[DEFAULT_CAPACITY];
+    private long[] blockers = new long[DEFAULT_CAPACITY];
+    private double[] distances = new double[DEFAULT_CAPACITY];
+    private int size;
+
+    /**
+     * Adds a step to the plan
+     *
+     * @param x        the block x coordinate
+     * @param y        the block y coordinate
+     * @param z        the block z coordinate
+     * @param action   the action and flags of the step
+     * @param blocker  the packed position of the block blocking the path, only used by {@link #PATH_DAMAGE}
+     * @param distance the distance of the block from the detonation
+     */
+    public void add(int x, int y, int z, int action, long blocker, double distance) {
+        if (size == positions.length) {
+            int capacity = size << 1;
+            positions = Arrays.copyOf(positions, capacity);
+            actions = Arrays.copyOf(actions, capacity);
+            blockers = Arrays.copyOf(blockers, capacity);
+            distances = Arrays.copyOf(distances, capacity);
+        }
+        positions[size] = BlockId.pack(x, y, z);
+        actions[size] = action;
+        blockers[size] = blocker;
+        distances[size] = distance;
+        size++;
+    }
+
+    /**
+     * Gets the amount of steps in the plan
+     *
+     * @return the amount of steps
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the packed position of the block of a step
+     *
+     * @param index the index of the step
+     * @return the packed block position
+     */
+    public long positionAt(int index) {
+        return positions[index];
+    }
+
+    /**
+     * Gets the action of a step, without its flags
+     *
+     * @param index the index of the step
+     * @return the action of the step
+     */
+    public int actionAt(int index) {
+        return actions[index] & ACTION_MASK;
+    }
+
+    /**
+     * Checks if a step has a flag
+     *
+     * @param index the index of the step
+     * @param flag  the flag to check
+     * @return true if the step has the flag
+     */
+    public boolean hasFlag(int index, int flag) {
+        return (actions[index] & flag) != 0;
+    }
+
+    /**
+     * Gets the packed position of the block blocking the path of a step
+     *
+     * @param index the index of the step
+     * @return the packed position of the blocking block
+     */
+    public long blockerAt(int index) {
+        return blockers[index];
+    }
+
+    /**
+     * Gets the distance of the block of a step from the detonation
+     *
+     * @param index the index of the step
+     * @return the distance from the detonation
+     */
+    public double distanceAt(int index) {
+        return distances[index];
+    }
+}
@@ -10,13 +10,20 @@ public class Key {
     public final int x, y, z;
     public final int durabilityAmount;
     public final long durabilityTime;
+    private final long position;
+    private BlockId blockId;
 
     public Key(Location location, int durabilityAmount, long durabilityTime) {
-        this(location.getWorld().getName(), location.getBlockX(), location.getBlockY(), location.getBlockZ(), durabilityAmount, durabilityTime);
+        this(BlockId.of(location), location.getWorld().getName(), durabilityAmount, durabilityTime);
     }
 
     public Key(Location location, int durabilityAmount) {
-        this(location.getWorld().getName(), location.getBlockX(), location.getBlockY(), location.getBlockZ(), durabilityAmount);
+        this(location, durabilityAmount, 0L);
+    }
+
+    public Key(BlockId blockId, String world, int durabilityAmount, long durabilityTime) {
+        this(world, blockId.getX(), blockId.getY(), blockId.getZ(), durabilityAmount, durabilityTime);
+        this.blockId = blockId;
     }
 
     public Key(String world, int x, int y, int z, int durabilityAmount) {
@@ -30,6 +37,22 @@ public class Key {
         this.z = z;
         this.durabilityAmount = durabilityAmount;
         this.durabilityTime = durabilityTime;
+        this.position = BlockId.pack(x, y, z);
+    }
+
+    /**
+     * Gets the identity of the block this key belongs to
+     *
+     * @return the block identity, or null if the world of this key is not loaded
+     */
+    public BlockId getBlockId() {
+        if (blockId == null) {
+            World bWorld = Bukkit.getWorld(world);
+            if (bWorld != null) {
+                blockId = new BlockId(bWorld.getUID(), position);
+            }
+        }
+        return blockId;
     }
 
     public Location toLocation(World world) {
@@ -44,16 +67,13 @@ public class Key {
     public boolean equals(Object object) {
         if (object instanceof Key) {
             Key other = (Key) object;
-            return this.world.equals(other.world) && this.x == other.x && this.y == other.y && this.z == other.z;
+            return this.position == other.position && this.world.equals(other.world);
         }
         return false;
     }
 
     @Override
     public int hashCode() {
-        final int prime = 31;
-        int result = 1;
-        result = prime * result + toLocation().hashCode();
-        return result;
+        return 31 * world.hashCode() + BlockId.hash(position);
     }
 }
@@ -0,0 +1,179 @@
+package com.drtshock.obsidiandestroyer.datatypes;
+
+/**
+ * Order in which occlusion is propagated through the blocks around the center of an explosion.
+ * <p/>
+ * The blocks of the radius cube are visited shell by shell, from the center outwards. Every block has a parent
+ * on the shell before it, the block closest to the line from the center to the block, so a block is shadowed
+ * when its parent blocks the path or is shadowed itself. The shells only depend on the radius, so they are
+ * built once per radius and shared by every explosion.
+ * <p/>
+ * The tables are immutable once built and can be read from any thread.
+ */
+public final class OcclusionShells {
+
+    public static final int MAX_RADIUS = 10;
+    private static final OcclusionShells[] CACHE = new OcclusionShells[MAX_RADIUS + 1];
+
+    private final int radius;
+    private final int size;
+    // Every block of the cube but the center, ordered by shell
+    private final int[] order;
+    private final int[] parents;
+
+    /**
+     * Gets the shells of a radius, building them the first time
+     *
+     * @param radius the explosion radius, from 0 to {@link #MAX_RADIUS}
+     * @return the shells of the radius cube
+     */
+    public static OcclusionShells of(int radius) {
+        if (radius < 0 || radius > MAX_RADIUS) {
+            throw new IllegalArgumentException("Radius must be between 0 and " + MAX_RADIUS + ": " + radius);
+        }
+        synchronized (CACHE) {
+            if (CACHE[radius] == null) {
+                CACHE[radius] = new OcclusionShells(radius);
+            }
+            return CACHE[radius];
+        }
+    }
+
+    private OcclusionShells(int radius) {
+        this.radius = radius;
+        this.size = (radius << 1) + 1;
+        final int cells = size * size * size;
+        parents = new int[cells];
+        order = new int[cells - 1];
+        parents[center()] = -1;
+
+        int next = 0;
+        for (int shell = 1; shell <= radius; shell++) {
+            for (int cell = 0; cell < cells; cell++) {
+                final int dx = xOf(cell), dy = yOf(cell), dz = zOf(cell);
+                if (Math.max(Math.abs(dx), Math.max(Math.abs(dy), Math.abs(dz))) != shell) {
+                    continue;
+                }
+                // Scale the offset down to the shell before it
+                final double scale = (shell - 1) / (double) shell;
+                parents[cell] = index(round(dx * scale), round(dy * scale), round(dz * scale));
+                order[next++] = cell;
+            }
+        }
+    }
+
+    /**
+     * Gets the radius the shells were built for
+     *
+     * @return the radius
+     */
+    public int getRadius() {
+        return radius;
+    }
+
+    /**
+     * Gets the amount of blocks in the radius cube
+     *
+     * @return the amount of blocks
+     */
+    public int getCells() {
+        return size * size * size;
+    }
+
+    /**
+     * Checks if an offset is inside the radius cube
+     *
+     * @param dx the x offset from the center
+     * @param dy the y offset from the center
+     * @param dz the z offset from the center
+     * @return true if the offset has a block in the cube
+     */
+    public boolean contains(int dx, int dy, int dz) {
+        return dx >= -radius && dx <= radius && dy >= -radius && dy <= radius && dz >= -radius && dz <= radius;
+    }
+
+    /**
+     * Gets the block of an offset inside the radius cube
+     *
+     * @param dx the x offset from the center
+     * @param dy the y offset from the center
+     * @param dz the z offset from the center
+     * @return the index of the block
+     */
+    public int index(int dx, int dy, int dz) {
+        return ((dy + radius) * size + (dz + radius)) * size + (dx + radius);
+    }
+
+    /**
+     * Gets the block at the center of the cube
+     *
+     * @return the index of the center block
+     */
+    public int center() {
+        return index(0, 0, 0);
+    }
+
+    /**
+     * Gets the amount of blocks visited, which is every block but the center
+     *
+     * @return the amount of blocks in the order
+     */
+    public int getOrdered() {
+        return order.length;
+    }
+
+    /**
+     * Gets a block in the order it is visited
+     *
+     * @param i the position in the order
+     * @return the index of the block
+     */
+    public int cellAt(int i) {
+        return order[i];
+    }
+
+    /**
+     * Gets the parent of a block, on the shell before it
+     *
+     * @param cell the index of the block
+     * @return the index of the parent, or -1 for the center
+     */
+    public int parent(int cell) {
+        return parents[cell];
+    }
+
+    /**
+     * Gets the x offset of a block
+     *
+     * @param cell the index of the block
+     * @return the x offset from the center
+     */
+    public int xOf(int cell) {
+        return cell % size - radius;
+    }
+
+    /**
+     * Gets the y offset of a block
+     *
+     * @param cell the index of the block
+     * @return the y offset from the center
+     */
+    public int yOf(int cell) {
+        return cell / (size * size) - radius;
+    }
+
+    /**
+     * Gets the z offset of a block
+     *
+     * @param cell the index of the block
+     * @return the z offset from the center
+     */
+    public int zOf(int cell) {
+        return (cell / size) % size - radius;
+    }
+
+    // Rounds half away from zero so the shells are symmetric around the center
+    private static int round(double value) {
+        return value < 0 ? -(int) (-value + 0.5) : (int) (value + 0.5);
+    }
+}
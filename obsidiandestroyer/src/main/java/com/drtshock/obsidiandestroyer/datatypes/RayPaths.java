@@ -0,0 +1,232 @@
+package com.drtshock.obsidiandestroyer.datatypes;
+
+import java.util.Arrays;
+
+/**
+ * Blocks crossed by the rays from the center of a block to the blocks around it.
+ * <p/>
+ * A path only depends on the offset of the target from the origin, so the paths of every offset in the
+ * radius cube are traced once per radius and shared by every explosion. A path holds the blocks from the
+ * origin towards the target, without the target itself, and follows the limits of the explosion path checks:
+ * at most radius + 1 blocks, and no further than the whole distance to the target.
+ * <p/>
+ * The tables are immutable once built and can be read from any thread.
+ */
+public final class RayPaths {
+
+    public static final int MAX_RADIUS = 10;
+    private static final RayPaths[] CACHE = new RayPaths[MAX_RADIUS + 1];
+
+    private final int radius;
+    private final int size;
+    // Start of the path of every offset in the steps, the path of an offset ends where the next one starts
+    private final int[] starts;
+    private final byte[] xs, ys, zs;
+
+    /**
+     * Gets the paths of a radius, tracing them the first time
+     *
+     * @param radius the explosion radius, from 0 to {@link #MAX_RADIUS}
+     * @return the paths of every offset in the radius cube
+     */
+    public static RayPaths of(int radius) {
+        if (radius < 0 || radius > MAX_RADIUS) {
+            throw new IllegalArgumentException("Radius must be between 0 and " + MAX_RADIUS + ": " + radius);
+        }
+        synchronized (CACHE) {
+            if (CACHE[radius] == null) {
+                CACHE[radius] = new RayPaths(radius);
+            }
+            return CACHE[radius];
+        }
+    }
+
+    private RayPaths(int radius) {
+        this.radius = radius;
+        this.size = (radius << 1) + 1;
+        final int offsets = size * size * size;
+        final int maxBlocks = radius + 1;
+        final int[] pathX = new int[maxBlocks], pathY = new int[maxBlocks], pathZ = new int[maxBlocks];
+        final byte[] stepX = new byte[offsets * maxBlocks], stepY = new byte[offsets * maxBlocks], stepZ = new byte[offsets * maxBlocks];
+        starts = new int[offsets + 1];
+        int steps = 0;
+        for (int index = 0; index < offsets; index++) {
+            final int dx = index % size - radius;
+            final int dz = (index / size) % size - radius;
+            final int dy = index / (size * size) - radius;
+            final int length = trace(0.5, 0.5, 0.5, dx + 0.5, dy + 0.5, dz + 0.5, dx, dy, dz, maxBlocks, pathX, pathY, pathZ);
+            starts[index] = steps;
+            for (int i = 0; i < length; i++) {
+                stepX[steps] = (byte) pathX[i];
+                stepY[steps] = (byte) pathY[i];
+                stepZ[steps] = (byte) pathZ[i];
+                steps++;
+            }
+        }
+        starts[offsets] = steps;
+        xs = Arrays.copyOf(stepX, steps);
+        ys = Arrays.copyOf(stepY, steps);
+        zs = Arrays.copyOf(stepZ, steps);
+    }
+
+    /**
+     * Walks the blocks crossed by a ray, one face crossing at a time.
+     * <p/>
+     * The walk starts with the block holding the start of the ray and stops after a number of blocks or
+     * once it has gone further than the whole distance to the end of the ray. The target block counts towards
+     * the number of blocks but is not written.
+     *
+     * @param fromX     the x coordinate of the start of the ray
+     * @param fromY     the y coordinate of the start of the ray
+     * @param fromZ     the z coordinate of the start of the ray
+     * @param toX       the x coordinate of the end of the ray
+     * @param toY       the y coordinate of the end of the ray
+     * @param toZ       the z coordinate of the end of the ray
+     * @param targetX   the target block x coordinate
+     * @param targetY   the target block y coordinate
+     * @param targetZ   the target block z coordinate
+     * @param maxBlocks the most blocks to walk
+     * @param pathX     receives the x coordinates of the blocks, at least maxBlocks long
+     * @param pathY     receives the y coordinates of the blocks, at least maxBlocks long
+     * @param pathZ     receives the z coordinates of the blocks, at least maxBlocks long
+     * @return the amount of blocks written
+     */
+    public static int trace(double fromX, double fromY, double fromZ, double toX, double toY, double toZ,
+                            int targetX, int targetY, int targetZ, int maxBlocks, int[] pathX, int[] pathY, int[] pathZ) {
+        double dx = toX - fromX, dy = toY - fromY, dz = toZ - fromZ;
+        final double distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
+
+        // if the distance is too close... the path is not blocked ;)
+        if (distance <= 0.9) {
+            return 0;
+        }
+        dx /= distance;
+        dy /= distance;
+        dz /= distance;
+
+        int x = floor(fromX), y = floor(fromY), z = floor(fromZ);
+        final int stepX = dx > 0 ? 1 : -1, stepY = dy > 0 ? 1 : -1, stepZ = dz > 0 ? 1 : -1;
+        final double deltaX = dx != 0 ? Math.abs(1 / dx) : Double.POSITIVE_INFINITY;
+        final double deltaY = dy != 0 ? Math.abs(1 / dy) : Double.POSITIVE_INFINITY;
+        final double deltaZ = dz != 0 ? Math.abs(1 / dz) : Double.POSITIVE_INFINITY;
+        double nextX = dx != 0 ? (dx > 0 ? x + 1 - fromX : fromX - x) * deltaX : Double.POSITIVE_INFINITY;
+        double nextY = dy != 0 ? (dy > 0 ? y + 1 - fromY : fromY - y) * deltaY : Double.POSITIVE_INFINITY;
+        double nextZ = dz != 0 ? (dz > 0 ? z + 1 - fromZ : fromZ - z) * deltaZ : Double.POSITIVE_INFINITY;
+
+        final int maxDistance = (int) distance;
+        double travelled = 0;
+        int length = 0;
+        for (int i = maxBlocks; i > 0 && travelled <= maxDistance; i--) {
+            // ignore target block
+            if (x != targetX || y != targetY || z != targetZ) {
+                pathX[length] = x;
+                pathY[length] = y;
+                pathZ[length] = z;
+                length++;
+            }
+
+            if (nextX < nextY && nextX < nextZ) {
+                x += stepX;
+                travelled = nextX;
+                nextX += deltaX;
+            } else if (nextY < nextZ) {
+                y += stepY;
+                travelled = nextY;
+                nextY += deltaY;
+            } else {
+                z += stepZ;
+                travelled = nextZ;
+                nextZ += deltaZ;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Gets the radius the paths were traced for
+     *
+     * @return the radius
+     */
+    public int getRadius() {
+        return radius;
+    }
+
+    /**
+     * Checks if an offset is inside the radius cube
+     *
+     * @param dx the x offset from the origin
+     * @param dy the y offset from the origin
+     * @param dz the z offset from the origin
+     * @return true if the offset has a path
+     */
+    public boolean contains(int dx, int dy, int dz) {
+        return dx >= -radius && dx <= radius && dy >= -radius && dy <= radius && dz >= -radius && dz <= radius;
+    }
+
+    /**
+     * Gets the path of an offset inside the radius cube
+     *
+     * @param dx the x offset from the origin
+     * @param dy the y offset from the origin
+     * @param dz the z offset from the origin
+     * @return the index of the path
+     */
+    public int path(int dx, int dy, int dz) {
+        return ((dy + radius) * size + (dz + radius)) * size + (dx + radius);
+    }
+
+    /**
+     * Gets the first step of a path
+     *
+     * @param path the index of the path
+     * @return the index of the first step
+     */
+    public int start(int path) {
+        return starts[path];
+    }
+
+    /**
+     * Gets the end of a path
+     *
+     * @param path the index of the path
+     * @return the index after the last step
+     */
+    public int end(int path) {
+        return starts[path + 1];
+    }
+
+    /**
+     * Gets the x offset of the block of a step
+     *
+     * @param step the index of the step
+     * @return the x offset from the origin
+     */
+    public int xAt(int step) {
+        return xs[step];
+    }
+
+    /**
+     * Gets the y offset of the block of a step
+     *
+     * @param step the index of the step
+     * @return the y offset from the origin
+     */
+    public int yAt(int step) {
+        return ys[step];
+    }
+
+    /**
+     * Gets the z offset of the block of a step
+     *
+     * @param step the index of the step
+     * @return the z offset from the origin
+     */
+    public int zAt(int step) {
+        return zs[step];
+    }
+
+    private static int floor(double value) {
+        final int floor = (int) value;
+        return value < floor ? floor - 1 : floor;
+    }
+}
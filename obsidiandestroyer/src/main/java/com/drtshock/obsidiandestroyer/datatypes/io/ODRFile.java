@@ -1,5 +1,7 @@
 package com.drtshock.obsidiandestroyer.datatypes.io;
 
+import com.drtshock.obsidiandestroyer.datatypes.BlockId;
+import com.drtshock.obsidiandestroyer.datatypes.DurabilityStore;
 import com.drtshock.obsidiandestroyer.datatypes.Key;
 import org.bukkit.Location;
 import org.bukkit.World;
@@ -10,6 +12,11 @@ import java.nio.channels.FileChannel;
 
 public class ODRFile {
 
+    public static final int RECORD_BYTES = 24;
+    public static final int MATERIAL_RECORD_BYTES = 28;
+    // Starts the records that carry the block material, can not be a valid x coordinate
+    private static final int MATERIAL_RECORDS = 0x4F445232;
+
     private FileOutputStream output;
     private FileInputStream input;
     private FileChannel channel;
@@ -20,7 +27,7 @@ public class ODRFile {
      * Creates a new ODRegion file
      */
     public ODRFile() {
-        buffer = ByteBuffer.allocateDirect(24);
+        buffer = ByteBuffer.allocateDirect(RECORD_BYTES);
     }
 
     /**
@@ -73,6 +80,18 @@ public class ODRFile {
         channel.write(buffer);
     }
 
+    /**
+     * Writes a block to file
+     *
+     * @param block      the identity of the block
+     * @param duraAmount material durability amount
+     * @param duraTime   material durability reset time
+     * @throws IOException thrown if something happens
+     */
+    public void write(BlockId block, int duraAmount, long duraTime) throws IOException {
+        write(block.getX(), block.getY(), block.getZ(), duraAmount, duraTime);
+    }
+
     /**
      * Writes an entity to file
      *
@@ -102,7 +121,109 @@ public class ODRFile {
         int value = buffer.getInt();
         long time = buffer.getLong();
         buffer.clear();
-        return new Key(world.getName(), x, y, z, value, time);
+        return new Key(BlockId.of(world, x, y, z), world.getName(), value, time);
+    }
+
+    /**
+     * Gets the next block in the file
+     *
+     * @param world the name of the world the file belongs to
+     * @return the entry (a block) or null if EOF has been reached / nothing was read
+     * @throws IOException thrown if something happens
+     */
+    public Key getNext(String world) throws IOException {
+        int read = channel.read(buffer);
+        if (read <= 0) {
+            return null;
+        }
+        buffer.position(0);
+        int x = buffer.getInt(), y = buffer.getInt(), z = buffer.getInt();
+        int value = buffer.getInt();
+        long time = buffer.getLong();
+        buffer.clear();
+        return new Key(world, x, y, z, value, time);
+    }
+
+    /**
+     * Reads every block left in the file with a single read
+     *
+     * @param durabilities the store to put the blocks in
+     * @throws IOException thrown if something happens
+     */
+    public void readAll(DurabilityStore durabilities) throws IOException {
+        long remaining = channel.size() - channel.position();
+        if (remaining <= 0) {
+            return;
+        }
+        ByteBuffer data = ByteBuffer.allocate((int) remaining);
+        while (data.hasRemaining() && channel.read(data) >= 0) {
+            // Keep reading until the buffer is full or the end of the file is reached
+        }
+        data.flip();
+        decode(data, durabilities);
+    }
+
+    /**
+     * Writes every block of a chunk with a single write
+     *
+     * @param durabilities the durabilities of the chunk
+     * @param chunkX       the chunk x coordinate
+     * @param chunkZ       the chunk z coordinate
+     * @throws IOException thrown if something happens
+     */
+    public void writeAll(DurabilityStore durabilities, int chunkX, int chunkZ) throws IOException {
+        ByteBuffer data = encode(durabilities, chunkX, chunkZ);
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
+    }
+
+    /**
+     * Decodes block records into a durability store. Records written before the material was stored
+     * are read with an unknown material.
+     *
+     * @param data         the records, from the position to the limit of the buffer
+     * @param durabilities the store to put the blocks in
+     */
+    public static void decode(ByteBuffer data, DurabilityStore durabilities) {
+        if (data.remaining() >= 4 && data.getInt(data.position()) == MATERIAL_RECORDS) {
+            data.getInt();
+            while (data.remaining() >= MATERIAL_RECORD_BYTES) {
+                int x = data.getInt(), y = data.getInt(), z = data.getInt();
+                int durability = data.getInt();
+                long time = data.getLong();
+                durabilities.put(DurabilityStore.pack(x, y, z), durability, time, data.getInt());
+            }
+            return;
+        }
+        while (data.remaining() >= RECORD_BYTES) {
+            int x = data.getInt(), y = data.getInt(), z = data.getInt();
+            durabilities.put(DurabilityStore.pack(x, y, z), data.getInt(), data.getLong());
+        }
+    }
+
+    /**
+     * Encodes the durabilities of a chunk into block records
+     *
+     * @param durabilities the durabilities of the chunk
+     * @param chunkX       the chunk x coordinate
+     * @param chunkZ       the chunk z coordinate
+     * @return the records, ready to be written
+     */
+    public static ByteBuffer encode(DurabilityStore durabilities, int chunkX, int chunkZ) {
+        ByteBuffer data = ByteBuffer.allocate(4 + durabilities.size() * MATERIAL_RECORD_BYTES);
+        data.putInt(MATERIAL_RECORDS);
+        for (int slot = durabilities.nextSlot(0); slot >= 0; slot = durabilities.nextSlot(slot + 1)) {
+            int representation = durabilities.keyAt(slot);
+            data.putInt((chunkX << 4) | DurabilityStore.unpackX(representation));
+            data.putInt(DurabilityStore.unpackY(representation));
+            data.putInt((chunkZ << 4) | DurabilityStore.unpackZ(representation));
+            data.putInt(durabilities.durabilityAt(slot));
+            data.putLong(durabilities.timeAt(slot));
+            data.putInt(durabilities.materialAt(slot));
+        }
+        data.flip();
+        return data;
     }
 
     /**
@@ -0,0 +1,246 @@
+package com.drtshock.obsidiandestroyer.datatypes.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.BitSet;
+
+/**
+ * Region container holding the durability sections of 32x32 chunks in one file.
+ * <p/>
+ * The file starts with a header of two sectors holding, for each chunk, the sector its section starts at
+ * and the length of the section in bytes. Sections are stored in 4096 byte sectors. A section is always
+ * written to free sectors before its header entry is pointed at it, so an interrupted write leaves the
+ * previous section intact.
+ * <p/>
+ * The region is not thread-safe.
+ */
+public class ODRRegionFile {
+
+    public static final int SECTOR_BYTES = 4096;
+    private static final int CHUNKS = 1024;
+    private static final int HEADER_SECTORS = 2;
+
+    private final File file;
+    private final RandomAccessFile access;
+    private final FileChannel channel;
+    private final int[] offsets = new int[CHUNKS];
+    private final int[] lengths = new int[CHUNKS];
+    private final BitSet usedSectors = new BitSet();
+    private int sectorCount;
+
+    /**
+     * Opens a region file, creating it if needed
+     *
+     * @param file the region file
+     * @throws IOException thrown if the file can not be opened
+     */
+    public ODRRegionFile(File file) throws IOException {
+        this.file = file;
+        this.access = new RandomAccessFile(file, "rw");
+        this.channel = access.getChannel();
+        usedSectors.set(0, HEADER_SECTORS);
+        sectorCount = HEADER_SECTORS;
+        if (channel.size() < HEADER_SECTORS * SECTOR_BYTES) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SECTORS * SECTOR_BYTES);
+            writeFully(header, 0);
+            return;
+        }
+        ByteBuffer header = ByteBuffer.allocate(CHUNKS * 8);
+        readFully(header, 0);
+        header.flip();
+        final int sectorsInFile = (int) ((channel.size() + SECTOR_BYTES - 1) / SECTOR_BYTES);
+        for (int index = 0; index < CHUNKS; index++) {
+            int offset = header.getInt();
+            int length = header.getInt();
+            if (length <= 0) {
+                continue;
+            }
+            int sectors = sectors(length);
+            if (offset < HEADER_SECTORS || offset + sectors > sectorsInFile || usedSectors.get(offset, offset + sectors).cardinality() > 0) {
+                // Broken entry, drop the section rather than reading garbage
+                continue;
+            }
+            offsets[index] = offset;
+            lengths[index] = length;
+            usedSectors.set(offset, offset + sectors);
+            sectorCount = Math.max(sectorCount, offset + sectors);
+        }
+    }
+
+    /**
+     * Gets the region coordinate of a chunk coordinate
+     *
+     * @param chunk the chunk x or z coordinate
+     * @return the region coordinate
+     */
+    public static int regionCoord(int chunk) {
+        return chunk >> 5;
+    }
+
+    /**
+     * Gets the name of the file holding a region
+     *
+     * @param regionX the region x coordinate
+     * @param regionZ the region z coordinate
+     * @return the name of the region file
+     */
+    public static String fileName(int regionX, int regionZ) {
+        return "r." + regionX + "." + regionZ + ".odr";
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Checks if the region holds a section for a chunk
+     *
+     * @param chunkX the chunk x coordinate
+     * @param chunkZ the chunk z coordinate
+     * @return true if the chunk has a section
+     */
+    public boolean hasChunk(int chunkX, int chunkZ) {
+        return lengths[index(chunkX, chunkZ)] > 0;
+    }
+
+    /**
+     * Checks if the region holds no section at all
+     *
+     * @return true if the region is empty
+     */
+    public boolean isEmpty() {
+        for (int length : lengths) {
+            if (length > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the section of a chunk
+     *
+     * @param chunkX the chunk x coordinate
+     * @param chunkZ the chunk z coordinate
+     * @return the section, ready to be read, or null if the chunk has none
+     * @throws IOException thrown if something happens
+     */
+    public ByteBuffer read(int chunkX, int chunkZ) throws IOException {
+        final int index = index(chunkX, chunkZ);
+        if (lengths[index] <= 0) {
+            return null;
+        }
+        ByteBuffer data = ByteBuffer.allocate(lengths[index]);
+        readFully(data, (long) offsets[index] * SECTOR_BYTES);
+        data.flip();
+        return data;
+    }
+
+    /**
+     * Writes the section of a chunk, replacing the previous one
+     *
+     * @param chunkX the chunk x coordinate
+     * @param chunkZ the chunk z coordinate
+     * @param data   the section to write, from its position to its limit
+     * @throws IOException thrown if something happens
+     */
+    public void write(int chunkX, int chunkZ, ByteBuffer data) throws IOException {
+        final int length = data.remaining();
+        if (length <= 0) {
+            delete(chunkX, chunkZ);
+            return;
+        }
+        final int index = index(chunkX, chunkZ);
+        final int oldOffset = offsets[index];
+        final int oldLength = lengths[index];
+        final int offset = allocate(sectors(length));
+        writeFully(data, (long) offset * SECTOR_BYTES);
+        setEntry(index, offset, length);
+        if (oldLength > 0) {
+            usedSectors.clear(oldOffset, oldOffset + sectors(oldLength));
+        }
+    }
+
+    /**
+     * Removes the section of a chunk
+     *
+     * @param chunkX the chunk x coordinate
+     * @param chunkZ the chunk z coordinate
+     * @throws IOException thrown if something happens
+     */
+    public void delete(int chunkX, int chunkZ) throws IOException {
+        final int index = index(chunkX, chunkZ);
+        if (lengths[index] <= 0) {
+            return;
+        }
+        usedSectors.clear(offsets[index], offsets[index] + sectors(lengths[index]));
+        setEntry(index, 0, 0);
+    }
+
+    /**
+     * Forces everything written to the region onto the disk
+     *
+     * @throws IOException thrown if something goes wrong
+     */
+    public void force() throws IOException {
+        channel.force(false);
+    }
+
+    /**
+     * Closes the region file
+     *
+     * @throws IOException thrown if something goes wrong
+     */
+    public void close() throws IOException {
+        access.close();
+    }
+
+    private int allocate(int sectors) {
+        int start = usedSectors.nextClearBit(HEADER_SECTORS);
+        while (start < sectorCount) {
+            int end = usedSectors.nextSetBit(start);
+            if (end < 0 || end - start >= sectors) {
+                break;
+            }
+            start = usedSectors.nextClearBit(end);
+        }
+        usedSectors.set(start, start + sectors);
+        sectorCount = Math.max(sectorCount, start + sectors);
+        return start;
+    }
+
+    private void setEntry(int index, int offset, int length) throws IOException {
+        offsets[index] = offset;
+        lengths[index] = length;
+        ByteBuffer entry = ByteBuffer.allocate(8);
+        entry.putInt(offset).putInt(length).flip();
+        writeFully(entry, (long) index * 8);
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of region file " + file.getName());
+            }
+            position += read;
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static int index(int chunkX, int chunkZ) {
+        return (chunkX & 31) | ((chunkZ & 31) << 5);
+    }
+
+    private static int sectors(int length) {
+        return (length + SECTOR_BYTES - 1) / SECTOR_BYTES;
+    }
+}
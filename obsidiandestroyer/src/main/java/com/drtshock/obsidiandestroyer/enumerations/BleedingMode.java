@@ -0,0 +1,6 @@
+package com.drtshock.obsidiandestroyer.enumerations;
+
+public enum BleedingMode {
+    RAYS,
+    OCCLUSION,;
+}
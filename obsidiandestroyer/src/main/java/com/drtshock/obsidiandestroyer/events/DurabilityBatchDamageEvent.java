@@ -0,0 +1,128 @@
+package com.drtshock.obsidiandestroyer.events;
+
+import com.drtshock.obsidiandestroyer.enumerations.DamageResult;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.entity.EntityType;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.HandlerList;
+
+/**
+ * Durability damage an explosion is about to do to its blocks, called once per explosion.
+ * <p/>
+ * Every entry is a block the explosion damages, with the damage proposed for it. Entries can be cancelled,
+ * have their damage changed or have their result set, which skips the damage the same way as setting the result
+ * of a {@link DurabilityDamageEvent}. Cancelling the event cancels every entry that has no result set.
+ */
+public class DurabilityBatchDamageEvent extends ObsidianDestroyerEvent implements Cancellable {
+    private static final HandlerList handlers = new HandlerList();
+    private boolean canceled = false;
+
+    private final World world;
+    private final int[] xs;
+    private final int[] ys;
+    private final int[] zs;
+    private final Material[] blockTypes;
+    private final byte[] blockData;
+    private final EntityType[] entityTypes;
+    private final int[] damage;
+    private final boolean[] cancelled;
+    private final DamageResult[] damageResults;
+
+    public DurabilityBatchDamageEvent(World world, int[] xs, int[] ys, int[] zs, Material[] blockTypes, byte[] blockData, EntityType[] entityTypes, int[] damage) {
+        this.world = world;
+        this.xs = xs;
+        this.ys = ys;
+        this.zs = zs;
+        this.blockTypes = blockTypes;
+        this.blockData = blockData;
+        this.entityTypes = entityTypes;
+        this.damage = damage;
+        this.cancelled = new boolean[xs.length];
+        this.damageResults = new DamageResult[xs.length];
+    }
+
+    public static HandlerList getHandlerList() {
+        return handlers;
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    public int size() {
+        return xs.length;
+    }
+
+    public int getX(int entry) {
+        return xs[entry];
+    }
+
+    public int getY(int entry) {
+        return ys[entry];
+    }
+
+    public int getZ(int entry) {
+        return zs[entry];
+    }
+
+    public Location getLocation(int entry) {
+        return new Location(world, xs[entry] + 0.5, ys[entry] + 0.5, zs[entry] + 0.5);
+    }
+
+    public Material getBlockType(int entry) {
+        return blockTypes[entry];
+    }
+
+    public byte getBlockData(int entry) {
+        return blockData[entry];
+    }
+
+    public EntityType getEntityType(int entry) {
+        return entityTypes[entry];
+    }
+
+    public int getDamage(int entry) {
+        return damage[entry];
+    }
+
+    public void setDamage(int entry, int amount) {
+        damage[entry] = Math.max(0, amount);
+    }
+
+    public boolean isCancelled(int entry) {
+        return canceled || cancelled[entry];
+    }
+
+    public void setCancelled(int entry, boolean value) {
+        cancelled[entry] = value;
+    }
+
+    public boolean isDisposed(int entry) {
+        return damageResults[entry] != null;
+    }
+
+    public DamageResult getDamageResult(int entry) {
+        return damageResults[entry];
+    }
+
+    public void setDamageResult(int entry, DamageResult damageResult) {
+        damageResults[entry] = damageResult;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return handlers;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return canceled;
+    }
+
+    @Override
+    public void setCancelled(boolean value) {
+        canceled = value;
+    }
+}
@@ -1,5 +1,6 @@
 package com.drtshock.obsidiandestroyer.listeners;
 
+import com.drtshock.obsidiandestroyer.events.DurabilityBatchDamageEvent;
 import com.drtshock.obsidiandestroyer.events.DurabilityDamageEvent;
 import com.drtshock.obsidiandestroyer.managers.ConfigManager;
 import org.bukkit.Effect;
@@ -18,4 +19,21 @@ public class ObsidianDestroyerListener implements Listener {
             }
         }
     }
+
+    @EventHandler(ignoreCancelled = true)
+    void onDurabilityBatchDamageEvent(DurabilityBatchDamageEvent event) {
+        if (!ConfigManager.getInstance().getEffectsEnabled() || event.getWorld() == null) {
+            return;
+        }
+        // display particles effects on damage
+        final double chance = ConfigManager.getInstance().getEffectsChance();
+        if (chance <= 0) {
+            return;
+        }
+        for (int i = 0; i < event.size(); i++) {
+            if (!event.isCancelled(i) && (chance >= 1 || Math.random() <= chance)) {
+                event.getWorld().playEffect(event.getLocation(i), Effect.MOBSPAWNER_FLAMES, 0);
+            }
+        }
+    }
 }
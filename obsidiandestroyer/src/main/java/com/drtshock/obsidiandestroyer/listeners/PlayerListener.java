@@ -30,7 +30,7 @@ public class PlayerListener implements Listener {
                 Block block = event.getClickedBlock();
                 if (itemInHand != null && ConfigManager.getInstance().getDurabilityCheckItem().equals(itemInHand)) {
                     MaterialManager mm = MaterialManager.getInstance();
-                    if (block != null && mm.getDurabilityEnabled(block.getType().name(), block.getData())) {
+                    if (block != null && mm.getDurabilityEnabled(block.getType(), block.getData())) {
                         if (player.getGameMode() == GameMode.CREATIVE) {
                             event.setCancelled(true);
                         }
@@ -39,8 +39,8 @@ public class PlayerListener implements Listener {
                         if (mult == 0) {
                             player.sendMessage(ConfigManager.getInstance().getDurabilityMessage().replace("{DURABILITY}", "∞"));
                         } else {
-                            int max = (int) Math.round(mm.getDurability(block.getType().name(), block.getData()) * Util.getMultiplier(block.getLocation()));
-                            player.sendMessage(ConfigManager.getInstance().getDurabilityMessage().replace("{DURABILITY}", !mm.isDestructible(block.getType().name(), block.getData()) ? "∞" : (max - amount) + "/" + max));
+                            int max = (int) Math.round(mm.getDurability(block.getType(), block.getData()) * Util.getMultiplier(block.getLocation()));
+                            player.sendMessage(ConfigManager.getInstance().getDurabilityMessage().replace("{DURABILITY}", !mm.isDestructible(block.getType(), block.getData()) ? "∞" : (max - amount) + "/" + max));
                         }
                     }
                 }
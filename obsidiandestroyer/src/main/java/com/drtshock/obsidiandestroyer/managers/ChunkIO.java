@@ -0,0 +1,348 @@
+package com.drtshock.obsidiandestroyer.managers;
+
+import com.drtshock.obsidiandestroyer.ObsidianDestroyer;
+import com.drtshock.obsidiandestroyer.datatypes.DurabilityStore;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.IllegalPluginAccessException;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+
+/**
+ * Runs chunk durability reads and writes on a dedicated thread.
+ * <p/>
+ * Every task runs on a single thread in submission order, so a save queued when a chunk unloads is
+ * always written before the chunk is read again. Saves that are still waiting for the thread are
+ * coalesced per chunk, and loads hand their result back to the server thread to be merged with the
+ * damage done while the chunk was loading. The durability journal is appended to and rotated on the
+ * same thread, so a rotation always comes after the chunk writes queued before it.
+ */
+class ChunkIO {
+
+    private final ChunkStorage storage;
+    private final DurabilityJournal journal;
+    private final ExecutorService executor;
+    private final Map<String, Snapshot> pendingSaves = new HashMap<String, Snapshot>();
+
+    ChunkIO(ChunkStorage storage, DurabilityJournal journal) {
+        this.storage = storage;
+        this.journal = journal;
+        executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "ObsidianDestroyer Chunk IO");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Starts reading the stored durabilities of a chunk
+     *
+     * @param wrapper the wrapper to load
+     */
+    void load(final ChunkWrapper wrapper) {
+        wrapper.beginLoad();
+        final String world = wrapper.getWorldName();
+        final int chunkX = wrapper.getChunkX();
+        final int chunkZ = wrapper.getChunkZ();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final DurabilityStore loaded = storage.read(world, chunkX, chunkZ);
+                if (!ObsidianDestroyer.getInstance().isEnabled()) {
+                    return;
+                }
+                try {
+                    Bukkit.getScheduler().runTask(ObsidianDestroyer.getInstance(), new Runnable() {
+                        @Override
+                        public void run() {
+                            wrapper.finishLoad(loaded);
+                        }
+                    });
+                } catch (IllegalPluginAccessException e) {
+                    // The plugin was disabled while reading, the wrapper is gone
+                }
+            }
+        });
+    }
+
+    /**
+     * Finishes loading a chunk right away, waiting for its stored durabilities to be read. The read is queued
+     * on the IO thread like any other, so every save queued before it is written first.
+     *
+     * @param wrapper the loading wrapper
+     * @return false if the stored durabilities could not be read
+     */
+    boolean awaitLoad(final ChunkWrapper wrapper) {
+        final String world = wrapper.getWorldName();
+        final int chunkX = wrapper.getChunkX();
+        final int chunkZ = wrapper.getChunkZ();
+        final DurabilityStore loaded;
+        try {
+            loaded = executor.submit(new Callable<DurabilityStore>() {
+                @Override
+                public DurabilityStore call() {
+                    return storage.read(world, chunkX, chunkZ);
+                }
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            ObsidianDestroyer.LOG.log(Level.WARNING, "Failed to read the durabilities of chunk " + chunkX + ", " + chunkZ + " in " + world, e.getCause());
+            return false;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+        // The read queued by load() finds the wrapper loaded and is dropped
+        wrapper.finishLoad(loaded);
+        return true;
+    }
+
+    /**
+     * Queues a chunk to be written, merging it with a save of the same chunk that has not been written yet
+     *
+     * @param snapshot the chunk information to write
+     */
+    void save(Snapshot snapshot) {
+        final String file = snapshot.chunkX + "." + snapshot.chunkZ + "." + snapshot.world;
+        synchronized (pendingSaves) {
+            Snapshot queued = pendingSaves.get(file);
+            if (queued != null) {
+                pendingSaves.put(file, queued.then(snapshot));
+                return;
+            }
+            pendingSaves.put(file, snapshot);
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                Snapshot next;
+                synchronized (pendingSaves) {
+                    next = pendingSaves.remove(file);
+                }
+                if (next != null) {
+                    next.write(storage);
+                }
+            }
+        });
+    }
+
+    /**
+     * Hands the journal changes recorded this tick to the IO thread
+     */
+    void flushJournal() {
+        final ByteBuffer changes = journal.takeBatch();
+        if (changes == null) {
+            return;
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                journal.append(changes);
+            }
+        });
+    }
+
+    /**
+     * Marks the journal, the changes recorded so far are dropped by the next checkpoint
+     */
+    void mark() {
+        flushJournal();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                storage.resetWriteStats();
+                journal.mark();
+            }
+        });
+    }
+
+    /**
+     * Drops the journal changes recorded before the last mark once every save queued so far has been written
+     *
+     * @param started the time the saves started to be queued, for reporting
+     */
+    void checkpoint(long started) {
+        checkpoint(started, null);
+    }
+
+    /**
+     * Drops the journal changes recorded before the last mark once every save queued so far has been written
+     *
+     * @param started the time the saves started to be queued, for reporting
+     * @param running the flag of the running save, cleared once the checkpoint is done, or null
+     */
+    void checkpoint(final long started, final AtomicBoolean running) {
+        flushJournal();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    journal.rotate(storage);
+                    ObsidianDestroyer.debug("Saved " + storage.getChunksWritten() + " chunks (" + storage.getBytesWritten() + " bytes) in " + (System.currentTimeMillis() - started) + " ms.");
+                } finally {
+                    if (running != null) {
+                        running.set(false);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Applies the changes left in the journal before any chunk queued after this is read
+     */
+    void replayJournal() {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                int chunks = journal.replay(storage);
+                if (chunks > 0) {
+                    ObsidianDestroyer.LOG.log(Level.INFO, "Recovered durabilities of {0} chunks from the journal.", chunks);
+                }
+            }
+        });
+    }
+
+    /**
+     * Drops the saves of the chunks of a reset that have not been written yet and queues the reset, after
+     * every write in progress
+     *
+     * @param reset the reset to run on the IO thread
+     */
+    void reset(DurabilityReset reset) {
+        synchronized (pendingSaves) {
+            Iterator<Snapshot> it = pendingSaves.values().iterator();
+            while (it.hasNext()) {
+                Snapshot snapshot = it.next();
+                if (reset.contains(snapshot.world, snapshot.chunkX, snapshot.chunkZ)) {
+                    it.remove();
+                }
+            }
+        }
+        executor.execute(reset);
+    }
+
+    /**
+     * Queues a scan of the stored durabilities, after every save queued so far
+     *
+     * @param scan the scan to run on the IO thread
+     */
+    void scan(DamageScan scan) {
+        executor.execute(scan);
+    }
+
+    /**
+     * Waits for every queued read and write to finish, stops the IO thread and closes the storage
+     */
+    void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                ObsidianDestroyer.LOG.log(Level.SEVERE, "Timed out waiting for chunk durabilities to be saved!");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        journal.close();
+        storage.close();
+    }
+
+    /**
+     * Merges damage done on top of stored durabilities. Removed blocks are dropped from the base first,
+     * then the damage is added to what is left.
+     *
+     * @param base     the stored durabilities, modified in place
+     * @param damage   the damage done on top of the stored durabilities
+     * @param removals the blocks removed on top of the stored durabilities, can be null
+     */
+    static void merge(DurabilityStore base, DurabilityStore damage, DurabilityStore removals) {
+        if (removals != null) {
+            for (int slot = removals.nextSlot(0); slot >= 0; slot = removals.nextSlot(slot + 1)) {
+                base.remove(removals.keyAt(slot));
+            }
+        }
+        for (int slot = damage.nextSlot(0); slot >= 0; slot = damage.nextSlot(slot + 1)) {
+            int representation = damage.keyAt(slot);
+            base.put(representation, base.getDurability(representation) + damage.durabilityAt(slot), Math.max(base.getTime(representation), damage.timeAt(slot)), damage.materialAt(slot));
+        }
+    }
+
+    /**
+     * Copy of the chunk information to be written. A snapshot either holds every durability of the chunk,
+     * or, if the chunk was unloaded before its stored durabilities were read, the damage and removals done
+     * on top of the file.
+     */
+    static final class Snapshot {
+
+        private final String world;
+        private final int chunkX, chunkZ;
+        private final DurabilityStore durabilities;
+        private final DurabilityStore removals;
+
+        Snapshot(String world, int chunkX, int chunkZ, DurabilityStore durabilities, DurabilityStore removals) {
+            this.world = world;
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            this.durabilities = durabilities;
+            this.removals = removals;
+        }
+
+        /**
+         * Checks if the snapshot holds every durability of the chunk
+         *
+         * @return true if the file can be overwritten without reading it
+         */
+        boolean isComplete() {
+            return removals == null;
+        }
+
+        /**
+         * Combines this snapshot with a later one of the same chunk
+         *
+         * @param next the later snapshot
+         * @return the combined snapshot
+         */
+        Snapshot then(Snapshot next) {
+            if (next.isComplete()) {
+                return next;
+            }
+            DurabilityStore combinedRemovals = null;
+            if (!isComplete()) {
+                combinedRemovals = removals;
+                for (int slot = next.removals.nextSlot(0); slot >= 0; slot = next.removals.nextSlot(slot + 1)) {
+                    combinedRemovals.put(next.removals.keyAt(slot), 0, 0L);
+                }
+            }
+            merge(durabilities, next.durabilities, next.removals);
+            return new Snapshot(world, chunkX, chunkZ, durabilities, combinedRemovals);
+        }
+
+        private void write(ChunkStorage storage) {
+            DurabilityStore complete = durabilities;
+            if (!isComplete()) {
+                complete = storage.read(world, chunkX, chunkZ);
+                if (complete == null) {
+                    complete = durabilities;
+                } else {
+                    merge(complete, durabilities, removals);
+                }
+            }
+            storage.write(world, chunkX, chunkZ, complete);
+        }
+    }
+}
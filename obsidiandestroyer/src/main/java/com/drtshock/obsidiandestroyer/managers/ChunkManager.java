@@ -3,16 +3,28 @@ package com.drtshock.obsidiandestroyer.managers;
 import at.pavlov.cannons.event.ProjectileImpactEvent;
 import at.pavlov.cannons.event.ProjectilePiercingEvent;
 import com.drtshock.obsidiandestroyer.ObsidianDestroyer;
+import com.drtshock.obsidiandestroyer.datatypes.BlockCapture;
+import com.drtshock.obsidiandestroyer.datatypes.BlockId;
+import com.drtshock.obsidiandestroyer.datatypes.ConfigSnapshot;
+import com.drtshock.obsidiandestroyer.datatypes.DamageSummary;
+import com.drtshock.obsidiandestroyer.datatypes.DamageSource;
+import com.drtshock.obsidiandestroyer.datatypes.DurabilityMaterial;
+import com.drtshock.obsidiandestroyer.datatypes.DurabilityStore;
 import com.drtshock.obsidiandestroyer.datatypes.EntityData;
+import com.drtshock.obsidiandestroyer.datatypes.ExplosionGrid;
+import com.drtshock.obsidiandestroyer.datatypes.ExplosionPlan;
+import com.drtshock.obsidiandestroyer.datatypes.Key;
 import com.drtshock.obsidiandestroyer.enumerations.DamageResult;
 import com.drtshock.obsidiandestroyer.enumerations.TimerState;
 import com.drtshock.obsidiandestroyer.events.DurabilityDamageEvent;
 import com.drtshock.obsidiandestroyer.events.xEntityExplodeEvent;
 import com.drtshock.obsidiandestroyer.managers.factions.FactionsIntegration;
+import com.drtshock.obsidiandestroyer.util.LongHashMap;
 import com.drtshock.obsidiandestroyer.util.Util;
 import org.bukkit.*;
 import org.bukkit.World.Environment;
 import org.bukkit.block.Block;
+import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Bat;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.EntityType;
@@ -24,16 +36,28 @@ import org.bukkit.metadata.FixedMetadataValue;
 
 import java.io.File;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 
 public class ChunkManager {
 
     private static ChunkManager instance;
     private final File durabilityDir;
-    private ConcurrentMap<String, ChunkWrapper> chunks = new ConcurrentHashMap<String, ChunkWrapper>();
-    private boolean doneSave = true;
+    private static final long JOURNAL_AUTOSAVE_BYTES = 8L * 1024 * 1024;
+
+    private final ChunkStorage storage;
+    private final DurabilityJournal journal;
+    private final ChunkIO io;
+    private final ExplosionExecutor explosions = new ExplosionExecutor(this);
+    private final List<ChunkWrapper> autosaveQueue = new ArrayList<ChunkWrapper>();
+    private int autosaveIndex = 0;
+    private long autosaveStarted = 0L;
+    private long lastAutosave = System.currentTimeMillis();
+    private int expiryTicks = 0;
+    private final Map<UUID, LongHashMap<ChunkWrapper>> worlds = new HashMap<UUID, LongHashMap<ChunkWrapper>>();
+    // Set while a save is queueing the chunks, or while a reset is removing the stored durabilities
+    private final AtomicBoolean saving = new AtomicBoolean(false);
+    private final AtomicBoolean resetting = new AtomicBoolean(false);
     private List<String> disabledWorlds;
 
     /**
@@ -46,6 +70,32 @@ public class ChunkManager {
         if (!durabilityDir.exists()) {
             durabilityDir.mkdirs();
         }
+        storage = new ChunkStorage(durabilityDir);
+        journal = new DurabilityJournal(durabilityDir);
+        io = new ChunkIO(storage, journal);
+
+        // Forget the claims of the last tick, commit the planned explosions, journal the changes of every tick, apply the durability timers that are due and save the changed chunks now and then
+        Bukkit.getScheduler().runTaskTimer(ObsidianDestroyer.getInstance(), new Runnable() {
+            @Override
+            public void run() {
+                final ConfigSnapshot settings = ConfigManager.getInstance().getSnapshot();
+                FactionsIntegration.getClaims().clear();
+                explosions.tick();
+                if (++expiryTicks >= Math.max(1, settings.expiryCheckInterval)) {
+                    expiryTicks = 0;
+                    reapExpired(settings);
+                }
+                io.flushJournal();
+                if (autosaveStarted > 0L) {
+                    continueAutosave(settings);
+                } else {
+                    final long interval = settings.autosaveInterval * 1000L;
+                    if (journal.size() > JOURNAL_AUTOSAVE_BYTES || (interval > 0 && System.currentTimeMillis() - lastAutosave > interval)) {
+                        startAutosave(settings);
+                    }
+                }
+            }
+        }, 1L, 1L);
 
         load();
     }
@@ -81,7 +131,9 @@ public class ChunkManager {
 
         // Debug time taken
         final long time = System.currentTimeMillis();
-        final int radius = ConfigManager.getInstance().getRadius();
+        // Settings of the explosion, until it is committed
+        final ConfigSnapshot settings = ConfigManager.getInstance().getSnapshot();
+        final int radius = settings.radius;
 
         // cancel if radius is < 0 or > 10
         if (radius < 0) {
@@ -95,7 +147,7 @@ public class ChunkManager {
         // Detonator
         final Entity detonator;
         final Bat bat;
-        if (event.getEntity() == null && !ConfigManager.getInstance().getIgnoreUnhandledExplosionTypes()) {
+        if (event.getEntity() == null && !settings.ignoreUnhandledExplosionTypes) {
             detonator = event.getLocation().getWorld().spawnEntity(event.getLocation(), EntityType.BAT);
             ObsidianDestroyer.vdebug("detonator is null, using a bat as a placeholder.");
             bat = (Bat) detonator;
@@ -119,7 +171,7 @@ public class ChunkManager {
                 case SMALL_FIREBALL:
                     break;
                 case BAT:
-                    if (ConfigManager.getInstance().getIgnoreUnhandledExplosionTypes()) {
+                    if (settings.ignoreUnhandledExplosionTypes) {
                         return;
                     }
                     break;
@@ -130,26 +182,43 @@ public class ChunkManager {
             return;
         }
 
-        // List of blocks that will be removed from the blocklist
-        List<Block> blocksIgnored = new ArrayList<Block>();
-        // List of blocks handled by this event
-        LinkedList<Block> blocksDestroyed = new LinkedList<Block>();
+        final MaterialManager materials = MaterialManager.getInstance();
+        final World world = detonatorLoc.getWorld();
+        final int originX = detonatorLoc.getBlockX();
+        final int originY = detonatorLoc.getBlockY();
+        final int originZ = detonatorLoc.getBlockZ();
 
-        LinkedList<Block> xblocksDestroyed = new LinkedList<Block>();
-        // Bleeding Damage blocked blocks
-        List<Location> blockedBlockLocations = new ArrayList<Location>();
+        // Box around the detonation, covering the radius and the blocks of the event
+        int minX = originX - radius, minY = originY - radius, minZ = originZ - radius;
+        int maxX = originX + radius, maxY = originY + radius, maxZ = originZ + radius;
+        for (Block block : event.blockList()) {
+            minX = Math.min(minX, block.getX());
+            minY = Math.min(minY, block.getY());
+            minZ = Math.min(minZ, block.getZ());
+            maxX = Math.max(maxX, block.getX());
+            maxY = Math.max(maxY, block.getY());
+            maxZ = Math.max(maxZ, block.getZ());
+        }
+        // Blocks around the detonation, read once. Covers the neighbours of the box for the fluid checks
+        // and the area checked for TNT cannons. Batched explosions are read later with the rest of their group
+        final boolean batched = settings.batchExplosions;
+        final int cannon_radius = 2;
+        final BlockCapture capture = batched ? null : new BlockCapture(world,
+                Math.min(minX - 1, originX - cannon_radius), Math.min(minY - 1, originY - cannon_radius), Math.min(minZ - 1, originZ - cannon_radius),
+                Math.max(maxX + 1, originX + cannon_radius), Math.max(maxY + 1, originY + cannon_radius), Math.max(maxZ + 1, originZ + cannon_radius));
 
         // Liquid overrides
-        if (ConfigManager.getInstance().getBypassAllFluidProtection()) {
+        if (settings.bypassAllFluidProtection) {
             // Protects TNT cannons from exploding themselves
-            if (ConfigManager.getInstance().getProtectTNTCannons()) {
+            if (settings.protectTNTCannons) {
+                final BlockCapture cannonArea = capture != null ? capture : new BlockCapture(world,
+                        originX - cannon_radius, originY - cannon_radius, originZ - cannon_radius, originX + cannon_radius, originY + cannon_radius, originZ + cannon_radius);
                 int redstoneCount = 0;
-                final int cannon_radius = 2;
                 for (int x = -cannon_radius; x <= cannon_radius; x++) {
                     for (int y = -cannon_radius; y <= cannon_radius; y++) {
                         for (int z = -cannon_radius; z <= cannon_radius; z++) {
-                            Location targetLoc = new Location(detonatorLoc.getWorld(), detonatorLoc.getX() + x, detonatorLoc.getY() + y, detonatorLoc.getZ() + z);
-                            if (targetLoc.getBlock().getType().equals(Material.REDSTONE_WIRE) || targetLoc.getBlock().getType().equals(Material.DIODE_BLOCK_ON) || targetLoc.getBlock().getType().equals(Material.DIODE_BLOCK_OFF)) {
+                            final Material type = cannonArea.getType(originX + x, originY + y, originZ + z);
+                            if (type == Material.REDSTONE_WIRE || type == Material.DIODE_BLOCK_ON || type == Material.DIODE_BLOCK_OFF) {
                                 redstoneCount++;
                             }
                         }
@@ -167,269 +236,325 @@ public class ChunkManager {
             }
         }
 
-        // Check explosion blocks and their distance from the detonation.
-        for (Block block : event.blockList()) {
-            // location corrections...
-            Location blockLocation = block.getLocation();
-            blockLocation.setY(blockLocation.getBlockY() + 0.5);
-            if (blockLocation.getBlockX() > 0) {
-                blockLocation.setX(blockLocation.getBlockX() + 0.5);
-            } else {
-                blockLocation.setX(blockLocation.getBlockX() + -0.5);
+        // Damage bleeding fix, withers are not blocked
+        final boolean preventBleeding = settings.disableDamageBleeding && !detonator.getType().equals(EntityType.WITHER);
+        // Bedrock override bypass
+        final boolean enabledBedrock = materials.contains(Material.BEDROCK, 0);
+
+        final ExplosionPlanner planner = new ExplosionPlanner(event, detonator, detonatorLoc, capture, minX, minY, minZ, maxX, maxY, maxZ,
+                time, preventBleeding, enabledBedrock, settings);
+        if (batched) {
+            // Planned with the overlapping explosions of this tick, the blocks of the event are broken when committed
+            explosions.batch(planner);
+            event.blockList().clear();
+            return;
+        }
+        if (settings.asyncExplosions && explosions.submit(planner)) {
+            // The blocks of the event are broken when the plan is committed
+            event.blockList().clear();
+            return;
+        }
+        // Explosions are applied in order, commit the pending ones first
+        explosions.flush();
+        commitExplosion(planner, planner.call());
+    }
+
+    /**
+     * Applies the plans of a job, on the server thread
+     *
+     * @param job   the explosions that were planned
+     * @param plans the plans of the explosions
+     */
+    void commitExplosions(final ExplosionJob job, final ExplosionPlan[] plans) {
+        if (plans.length == 1) {
+            commitExplosion(job.planners.get(0), plans[0]);
+        } else {
+            commitGroup(job.planners, plans);
+        }
+    }
+
+    /**
+     * Applies the plan of an explosion: damages the blocks, calls the explosion event and breaks the destroyed blocks.
+     * Unless single damage events are used, the damage is added up while the plan is replayed and applied after
+     * a single batch damage event.
+     *
+     * @param planner the explosion that was planned
+     * @param plan    the plan of the explosion
+     */
+    private void commitExplosion(final ExplosionPlanner planner, final ExplosionPlan plan) {
+        final EntityExplodeEvent event = planner.event;
+        final World world = planner.detonatorLoc.getWorld();
+        if (FactionsIntegration.isUsing()) {
+            // Resolve the claims of the chunks of the explosion at once
+            FactionsIntegration.getClaims().resolve(world, planner.minX, planner.minZ, planner.maxX, planner.maxZ);
+        }
+        final ConfigSnapshot settings = planner.settings;
+        final DamageAccumulator hits = settings.singleDamageEvents ? null : new DamageAccumulator(this, true, settings);
+        final ExplosionGrid grid = resolveExplosion(planner, plan, null, hits);
+        if (hits != null) {
+            hits.apply();
+        }
+
+        // Apply effects with factions
+        final boolean factionsApplied = FactionsIntegration.isUsing() && settings.handleOfflineFactions;
+
+        // Build the block lists from the explosion state
+        final List<Block> blocksDestroyed = new ArrayList<Block>();
+        // Bypass list for special handling's
+        final List<Block> bypassBlockList = new ArrayList<Block>();
+        // Bleeding Damage blocked blocks
+        final List<Location> blockedBlockLocations = new ArrayList<Location>();
+        for (int index = 0; index < grid.size(); index++) {
+            final int flags = grid.flagsAt(index);
+            if ((flags & ExplosionGrid.BLOCKED) != 0) {
+                blockedBlockLocations.add(blockCenter(world, grid.xAt(index), grid.yAt(index), grid.zAt(index)));
             }
-            if (blockLocation.getBlockZ() > 0) {
-                blockLocation.setZ(blockLocation.getBlockZ() + 0.5);
-            } else {
-                blockLocation.setZ(blockLocation.getBlockZ() + -0.5);
+            // The applied damage decides over the predicted one
+            final DamageResult result = hits != null ? hits.getResult(grid.xAt(index), grid.yAt(index), grid.zAt(index)) : null;
+            final boolean destroyed = result != null ? result == DamageResult.DESTROY || result == DamageResult.DISABLED
+                    : (flags & ExplosionGrid.DESTROYED) != 0 && (flags & ExplosionGrid.IGNORED) == 0;
+            if (destroyed) {
+                final Block block = world.getBlockAt(grid.xAt(index), grid.yAt(index), grid.zAt(index));
+                blocksDestroyed.add(block);
+                // Factions bypasses
+                if (factionsApplied && (flags & ExplosionGrid.BLOCKED) == 0 && FactionsIntegration.getClaims().isFactionOffline(block.getLocation())) {
+                    // Add block to bypass list to override
+                    bypassBlockList.add(block);
+                }
             }
-            // distance from detonator to the target block
-            final double dist = detonatorLoc.distance(blockLocation);
-
-            // check for liquid overrides and continue if none
-            if (detonatorLoc.getBlock().isLiquid() && ConfigManager.getInstance().getFluidsProtectIndustructables() && !MaterialManager.getInstance().getBypassFluidProtection(block.getType().name(), block.getData())) {
-                continue;
+        }
+        // Remove managed, ignored and blocked blocks from the event
+        final List<Block> remaining = new ArrayList<Block>(planner.eventBlocks.size());
+        for (Block block : planner.eventBlocks) {
+            if (!grid.has(block.getX(), block.getY(), block.getZ(), ExplosionGrid.DESTROYED | ExplosionGrid.IGNORED | ExplosionGrid.BLOCKED)) {
+                remaining.add(block);
+            }
+        }
+        if (planner.deferred) {
+            // The event is over, break the blocks it would have broken unless another plugin cancelled it
+            if (!event.isCancelled()) {
+                for (Block block : remaining) {
+                    breakExplodedBlock(planner, block, event.getYield());
+                }
             }
+        } else {
+            event.blockList().clear();
+            event.blockList().addAll(remaining);
+        }
 
-            // Damage bleeding fix
-            if (ConfigManager.getInstance().getDisableDamageBleeding() && (detonator == null || !detonator.getType().equals(EntityType.WITHER))) {
-                // Attempt to prevent bleeding of damage to materials behind blocks not destroyed
-                if (MaterialManager.getInstance().contains(block.getType().name(), block.getData())) {
-                    // distance checks: if max ignore; if not too close check sight; else apply damage
-                    if (dist > Util.getMaxDistance(block.getType().name(), block.getData(), radius) + 0.4) {
-                        blocksIgnored.add(block);
-                        continue;
-                    } else if (dist > 1.8) {
-                        // if greater than target distance apply hit check
-                        // Radial hitscan check for blocking blocks, returns the blocking path
-                        final List<Location> path = Util.getTargetsPathBlocked(blockLocation, detonatorLoc, false);
-
-                        //if (Util.isTargetsPathBlocked(blockLocation, detonatorLoc, false)) {
-                        if (path.size() > 0) {
-                            // Add to blocked locations and ignore damage
-                            blockedBlockLocations.add(blockLocation);
-                            blocksIgnored.add(block);
-                            ObsidianDestroyer.vdebug("[E] Blocked Bleeding Damage!! " + blockLocation.toString() + " -dist " + dist);
-                            continue;
-                        }
-                    }
+        finishExplosion(planner, blocksDestroyed, bypassBlockList, blockedBlockLocations);
+    }
 
-                    // Apply damage to block material
-                    DamageResult result = damageBlock(blockLocation, detonator);
-                    if (result == DamageResult.DESTROY) {
-                        blocksDestroyed.add(block);
-                    } else if (result == DamageResult.DAMAGE || result == DamageResult.CANCELLED) {
-                        blocksIgnored.add(block);
-                    }
-                    ObsidianDestroyer.vdebug("Event Block Damage!! " + blockLocation.toString() + " -dist " + dist);
-                } else {
-                    // handle non tracked materials blocked and ignore non solids
-                    final List<Location> path = Util.getTargetsPathBlocked(blockLocation, detonatorLoc, true);
-                    if (path.size() > 0) {
-                        // Add to blocked locations and ignore damage
-                        blockedBlockLocations.add(blockLocation);
-                        blocksIgnored.add(block);
-                        ObsidianDestroyer.vdebug("[E] Blocked Bleeding Damage!!! " + blockLocation.toString() + " -dist " + dist);
-                    } else {
-                        xblocksDestroyed.add(block);
-                    }
+    /**
+     * Applies the plans of a group of overlapping explosions as one explosion.
+     * <p/>
+     * The explosions are resolved in order, each against its own state. Blocks destroyed by an explosion are
+     * skipped by the next ones, and the damage of every explosion is added up per block and applied once.
+     * The destroyed blocks of the group are then broken with a single explosion event of the first detonator.
+     *
+     * @param planners the explosions of the group, in the order they happened
+     * @param plans    the plans of the explosions
+     */
+    private void commitGroup(final List<ExplosionPlanner> planners, final ExplosionPlan[] plans) {
+        final ExplosionPlanner first = planners.get(0);
+        final World world = first.detonatorLoc.getWorld();
+        int minX = first.minX, minY = first.minY, minZ = first.minZ;
+        int maxX = first.maxX, maxY = first.maxY, maxZ = first.maxZ;
+        for (ExplosionPlanner planner : planners) {
+            minX = Math.min(minX, planner.minX);
+            minY = Math.min(minY, planner.minY);
+            minZ = Math.min(minZ, planner.minZ);
+            maxX = Math.max(maxX, planner.maxX);
+            maxY = Math.max(maxY, planner.maxY);
+            maxZ = Math.max(maxZ, planner.maxZ);
+        }
+        if (FactionsIntegration.isUsing()) {
+            // Resolve the claims of the chunks of the group at once
+            FactionsIntegration.getClaims().resolve(world, minX, minZ, maxX, maxZ);
+        }
+        // State of the group: destroyed by an explosion, broken as a block of an event or blocked
+        final ExplosionGrid gone = new ExplosionGrid(minX, minY, minZ, maxX, maxY, maxZ);
+        // The group is committed with the settings of its first explosion
+        final ConfigSnapshot settings = first.settings;
+        final DamageAccumulator hits = new DamageAccumulator(this, !settings.singleDamageEvents, settings);
+        for (int i = 0; i < planners.size(); i++) {
+            final ExplosionPlanner planner = planners.get(i);
+            final ExplosionGrid grid = resolveExplosion(planner, plans[i], gone, hits);
+            for (int index = 0; index < grid.size(); index++) {
+                final int flags = grid.flagsAt(index);
+                if ((flags & ExplosionGrid.BLOCKED) != 0) {
+                    gone.set(grid.xAt(index), grid.yAt(index), grid.zAt(index), ExplosionGrid.BLOCKED);
                 }
-            } else if (MaterialManager.getInstance().contains(block.getType().name(), block.getData())) {
-                // Original handling
-                if (dist > Util.getMaxDistance(block.getType().name(), block.getData(), radius) + 0.4) {
-                    blocksIgnored.add(block);
-                } else {
-                    // Apply damage to block material
-                    DamageResult result = damageBlock(blockLocation, detonator);
-                    if (result == DamageResult.DESTROY) {
-                        // Destroy the block
-                        blocksDestroyed.add(block);
-                    } else if (result == DamageResult.DAMAGE || result == DamageResult.CANCELLED) {
-                        // Don't destroy
-                        blocksIgnored.add(block);
+                if ((flags & ExplosionGrid.DESTROYED) != 0 && (flags & ExplosionGrid.IGNORED) == 0) {
+                    gone.set(grid.xAt(index), grid.yAt(index), grid.zAt(index), ExplosionGrid.DESTROYED);
+                }
+            }
+            // Blocks left to the explosion are broken unless another plugin cancelled its event
+            if (!planner.event.isCancelled()) {
+                for (Block block : planner.eventBlocks) {
+                    if (!grid.has(block.getX(), block.getY(), block.getZ(), ExplosionGrid.DESTROYED | ExplosionGrid.IGNORED | ExplosionGrid.BLOCKED)) {
+                        gone.set(block.getX(), block.getY(), block.getZ(), ExplosionGrid.EVENT);
                     }
                 }
             }
         }
+        // Apply the damage of the whole group, once per block
+        hits.apply();
 
-        // Bedrock override bypass
-        final boolean enabledBedrock = MaterialManager.getInstance().contains(Material.BEDROCK.name(), 0);
-
-        // =================================================
-        // Material Explosion radius check for all materials
-        // Loop through all blocks within the applied radius
-        for (int x = -radius; x <= radius; x++) {
-            for (int y = radius; y >= -radius; y--) {
-                for (int z = -radius; z <= radius; z++) {
+        // Apply effects with factions
+        final boolean factionsApplied = FactionsIntegration.isUsing() && settings.handleOfflineFactions;
 
-                    // Target location around the detonator
-                    Location targetLoc = new Location(detonatorLoc.getWorld(), detonatorLoc.getX() + x, detonatorLoc.getY() + y, detonatorLoc.getZ() + z);
+        final List<Block> blocksDestroyed = new ArrayList<Block>();
+        final List<Block> bypassBlockList = new ArrayList<Block>();
+        final List<Location> blockedBlockLocations = new ArrayList<Location>();
+        for (int index = 0; index < gone.size(); index++) {
+            final int flags = gone.flagsAt(index);
+            if (flags == 0) {
+                continue;
+            }
+            final int x = gone.xAt(index), y = gone.yAt(index), z = gone.zAt(index);
+            if ((flags & ExplosionGrid.BLOCKED) != 0) {
+                blockedBlockLocations.add(blockCenter(world, x, y, z));
+            }
+            // The applied damage decides over the predicted one
+            final DamageResult result = hits.getResult(x, y, z);
+            final boolean destroyed = result != null ? result == DamageResult.DESTROY || result == DamageResult.DISABLED : (flags & ExplosionGrid.DESTROYED) != 0;
+            final Block block = world.getBlockAt(x, y, z);
+            if (destroyed) {
+                blocksDestroyed.add(block);
+                // Factions bypasses
+                if (factionsApplied && (flags & ExplosionGrid.BLOCKED) == 0 && FactionsIntegration.getClaims().isFactionOffline(block.getLocation())) {
+                    bypassBlockList.add(block);
+                }
+            } else if ((flags & ExplosionGrid.EVENT) != 0) {
+                breakExplodedBlock(first, block, first.event.getYield());
+            }
+        }
+        if (first.verbose) {
+            ObsidianDestroyer.vdebug("Committed " + planners.size() + " explosions together at [ " + first.detonatorLoc.toString() + " ]");
+        }
 
-                    // location corrections...
-                    targetLoc.setY(targetLoc.getBlockY() + 0.5);
-                    if (targetLoc.getBlockX() > 0) {
-                        targetLoc.setX(targetLoc.getBlockX() + 0.5);
-                    } else {
-                        targetLoc.setX(targetLoc.getBlockX() + -0.5);
-                    }
-                    if (targetLoc.getBlockZ() > 0) {
-                        targetLoc.setZ(targetLoc.getBlockZ() + 0.5);
-                    } else {
-                        targetLoc.setZ(targetLoc.getBlockZ() + -0.5);
-                    }
+        finishExplosion(first, blocksDestroyed, bypassBlockList, blockedBlockLocations);
+    }
 
-                    // ignore if air or ignored
-                    if ((blocksIgnored.contains(targetLoc.getBlock())) || targetLoc.getBlock().getType() == Material.AIR) {
-                        continue;
-                    }
-                    // Bedrock check
-                    if (targetLoc.getBlock().getType() == Material.BEDROCK && !enabledBedrock) {
-                        continue;
-                    }
+    /**
+     * Replays the plan of an explosion into the state of its blocks, damaging the blocks on the way
+     *
+     * @param planner the explosion that was planned
+     * @param plan    the plan of the explosion
+     * @param gone    the state of the group of the explosion, or null if it is committed alone
+     * @param hits    the damage of the group of the explosion, or null to damage the blocks right away
+     * @return the state of the blocks of the explosion
+     */
+    private ExplosionGrid resolveExplosion(final ExplosionPlanner planner, final ExplosionPlan plan, final ExplosionGrid gone, final DamageAccumulator hits) {
+        final World world = planner.detonatorLoc.getWorld();
+        final boolean verbose = planner.verbose;
+        // The damage of the detonator, resolved once for every block
+        final DamageSource source = DamageSource.of(planner.detonator);
 
-                    // Radius of effect of the handled explosion that is recreated
-                    final double radiuz = Math.min(radius, Util.getMaxDistance(targetLoc.getBlock().getType().name(), targetLoc.getBlock().getData(), radius)) + 0.6;
-                    // Distance of detonator to this blocks location
-                    final double distance = detonatorLoc.distance(targetLoc);
+        // State of every block around the detonation, covering the radius and the blocks of the event
+        final ExplosionGrid grid = new ExplosionGrid(planner.minX, planner.minY, planner.minZ, planner.maxX, planner.maxY, planner.maxZ);
+        for (Block block : planner.eventBlocks) {
+            grid.set(block.getX(), block.getY(), block.getZ(), ExplosionGrid.EVENT);
+        }
 
-                    if (blocksDestroyed.contains(targetLoc.getBlock())) {
-                        // if already tracked this block...
-                        continue;
-                    }
+        for (int i = 0; i < plan.size(); i++) {
+            final long position = plan.positionAt(i);
+            final int bx = BlockId.unpackX(position), by = BlockId.unpackY(position), bz = BlockId.unpackZ(position);
 
-                    // check for liquid detonator and fluid protection overrides
-                    if (detonatorLoc.getBlock().isLiquid() && ConfigManager.getInstance().getFluidsProtectIndustructables() && !MaterialManager.getInstance().getBypassFluidProtection(targetLoc.getBlock().getType().name(), targetLoc.getBlock().getData())) {
-                        blocksIgnored.add(targetLoc.getBlock());
-                        if (blocksDestroyed.contains(targetLoc.getBlock())) {
-                            blocksDestroyed.remove(targetLoc.getBlock());
-                        }
-                        continue;
-                    }
+            // ignore blocks already broken by an explosion of the group
+            if (gone != null && gone.has(bx, by, bz, ExplosionGrid.DESTROYED | ExplosionGrid.EVENT)) {
+                continue;
+            }
 
-                    // Liquid overrides
-                    if (ConfigManager.getInstance().getBypassAllFluidProtection()) {
-                        // Special handling for fluids is enabled
-                        if (distance < radiuz - 0.1 && (Util.isNearLiquid(targetLoc) || targetLoc.getBlock().isLiquid())) {
-                            // if within radius and is a near or a fluid
-                            if (distance > radiuz - 0.6 && Math.random() <= 0.4) {
-                                // semi random radius calculation for edges
-                                blocksIgnored.add(targetLoc.getBlock());
-                                continue;
-                            }
+            // ignore if ignored or already tracked
+            if (plan.hasFlag(i, ExplosionPlan.RADIUS) && grid.has(bx, by, bz, ExplosionGrid.IGNORED | ExplosionGrid.DESTROYED)) {
+                continue;
+            }
+            // ignore material if not being handled
+            if (plan.hasFlag(i, ExplosionPlan.REQUIRES_BLOCKED) && !grid.has(bx, by, bz, ExplosionGrid.BLOCKED)) {
+                continue;
+            }
 
-                            if (MaterialManager.getInstance().contains(targetLoc.getBlock().getType().name(), targetLoc.getBlock().getData())) {
-                                // if this material is being handled for durability
-                                double damper = MaterialManager.getInstance().getFluidDamperAmount(targetLoc.getBlock().getType().name(), targetLoc.getBlock().getData());
-                                if (!targetLoc.getBlock().isLiquid() && damper > 0 && damper >= Math.random()) {
-                                    // Ignore the block if the explosion has been absorbed
-                                    ObsidianDestroyer.vdebug("Nearby Fluid Absorbed Explosion Damage to Block! " + targetLoc.toString());
-                                    blocksIgnored.add(targetLoc.getBlock());
-                                    continue;
-                                }
-
-                                // Apply damage to block material
-                                DamageResult result = damageBlock(targetLoc, detonator);
-                                if (result == DamageResult.DESTROY) {
-                                    // Add block to list to destroy
-                                    blocksDestroyed.add(targetLoc.getBlock());
-                                    continue;
-                                } else if (result == DamageResult.DAMAGE || result == DamageResult.CANCELLED || result == DamageResult.NONE) {
-                                    // Add block to ignore list to not destroy
-                                    blocksIgnored.add(targetLoc.getBlock());
-                                    continue;
-                                }
-                            } else {
-                                // add block or fluid to list to destroy
-                                blocksDestroyed.add(targetLoc.getBlock());
-                                continue;
-                            }
-                        }
+            final double distance = plan.distanceAt(i);
+            switch (plan.actionAt(i)) {
+                case ExplosionPlan.IGNORE:
+                    grid.set(bx, by, bz, ExplosionGrid.IGNORED);
+                    break;
+                case ExplosionPlan.BLOCK:
+                    grid.set(bx, by, bz, ExplosionGrid.BLOCKED | ExplosionGrid.IGNORED);
+                    break;
+                case ExplosionPlan.UNHANDLED:
+                    grid.set(bx, by, bz, ExplosionGrid.UNHANDLED_DESTROYED);
+                    break;
+                case ExplosionPlan.DESTROY:
+                    grid.set(bx, by, bz, ExplosionGrid.DESTROYED);
+                    break;
+                case ExplosionPlan.EVENT_DAMAGE: {
+                    // Apply damage to block material
+                    final Location blockLocation = blockCenter(world, bx, by, bz);
+                    DamageResult result = hits != null ? hits.hit(blockLocation, source) : damageBlock(blockLocation, source, -1, true, planner.settings);
+                    if (result == DamageResult.DESTROY) {
+                        grid.set(bx, by, bz, ExplosionGrid.DESTROYED);
+                    } else if (result == DamageResult.DAMAGE || result == DamageResult.CANCELLED) {
+                        grid.set(bx, by, bz, ExplosionGrid.IGNORED);
                     }
-
-                    // Check if handling
-                    if (!MaterialManager.getInstance().contains(targetLoc.getBlock().getType().name(), targetLoc.getBlock().getData()) && !blockedBlockLocations.contains(targetLoc)) {
-                        // ignore material if not being handled
-                        continue;
+                    if (verbose) {
+                        ObsidianDestroyer.vdebug("Event Block Damage!! " + blockLocation.toString() + " -dist " + distance);
                     }
-
-                    // Radius
-                    if (distance <= radiuz) {
-                        // Block damage within the radius
-                        if (distance > radiuz - 0.4 && Math.random() <= 0.2) {
-                            // semi random edge radius calculation
-                            blocksIgnored.add(targetLoc.getBlock());
-                            continue;
-                        }
-
-                        // Damage bleeding fix
-                        if (ConfigManager.getInstance().getDisableDamageBleeding() && distance > 1.8 && (detonator == null || !detonator.getType().equals(EntityType.WITHER))) {
-                            // Radial hitscan check for blocking blocks, returns the blocking path
-                            final List<Location> path = Util.getTargetsPathBlocked(targetLoc, detonatorLoc, false);
-
-                            if (path.size() > 0) {
-                                // the blocks protected path size is 1 or more
-                                if (!(Util.matchBlocksToLocations(path, blocksDestroyed) && !Util.matchBlocksToLocations(path, xblocksDestroyed)) || Util.matchLocationsToLocations(path, blockedBlockLocations) || Util.matchBlocksToLocations(path, blocksIgnored)) {
-                                    // the block is protected via its path
-                                    blockedBlockLocations.add(targetLoc);
-                                    blocksIgnored.add(targetLoc.getBlock());
-                                    ObsidianDestroyer.vdebug("[L] Blocked Bleeding Path Damage!! Blocked: " + targetLoc.toString() + " -dist " + distance + " -size " + path.size());
-                                    continue;
-                                } else if (path.size() > 2 || distance >= 3) {
-                                    // the block is too far away and or its protected path is too long
-                                    blocksIgnored.add(targetLoc.getBlock());
-                                    ObsidianDestroyer.vdebug("[L] Blocked Bleeding Path Damage!! Over: " + targetLoc.toString() + " -dist " + distance + " -size " + path.size());
-                                    continue;
-                                }
-                            }
+                    break;
+                }
+                case ExplosionPlan.PATH_DAMAGE: {
+                    final long blocking = plan.blockerAt(i);
+                    final int blockX = BlockId.unpackX(blocking), blockY = BlockId.unpackY(blocking), blockZ = BlockId.unpackZ(blocking);
+                    final int flags = grid.get(blockX, blockY, blockZ);
+                    if (gone != null && gone.has(blockX, blockY, blockZ, ExplosionGrid.DESTROYED | ExplosionGrid.EVENT)) {
+                        // the blocking block is broken by an earlier explosion of the group
+                        damageInRadius(grid, world, bx, by, bz, source, distance, planner, hits);
+                    } else if ((flags & ExplosionGrid.DESTROYED) == 0 || (flags & (ExplosionGrid.UNHANDLED_DESTROYED | ExplosionGrid.BLOCKED | ExplosionGrid.IGNORED)) != 0) {
+                        // the block is protected via its path
+                        grid.set(bx, by, bz, ExplosionGrid.BLOCKED | ExplosionGrid.IGNORED);
+                        if (verbose) {
+                            ObsidianDestroyer.vdebug("[L] Blocked Bleeding Path Damage!! Blocked: " + bx + ", " + by + ", " + bz + " -dist " + distance);
                         }
-
-                        // Apply damage to block material
-                        DamageResult result = damageBlock(targetLoc, detonator);
-                        if (result == DamageResult.DESTROY) {
-                            // Add block to list to destroy
-                            blocksDestroyed.add(targetLoc.getBlock());
-                        } else if (result == DamageResult.DAMAGE || result == DamageResult.CANCELLED || result == DamageResult.NONE) {
-                            // Add block to ignore list to not destroy
-                            blocksIgnored.add(targetLoc.getBlock());
-                        } else if (result == DamageResult.DISABLED) {
-                            // This shouldn't really happen...
-                            blocksDestroyed.add(targetLoc.getBlock());
+                    } else if (distance >= 3) {
+                        // the block is too far away
+                        grid.set(bx, by, bz, ExplosionGrid.IGNORED);
+                        if (verbose) {
+                            ObsidianDestroyer.vdebug("[L] Blocked Bleeding Path Damage!! Over: " + bx + ", " + by + ", " + bz + " -dist " + distance);
                         }
-                        ObsidianDestroyer.vdebug("Block Damage!! " + targetLoc.toString() + " -dist " + distance);
-                    } else if (event.blockList().contains(targetLoc.getBlock())) {
-                        // Ignore blocks outside of radius
-                        blocksIgnored.add(targetLoc.getBlock());
+                    } else {
+                        // the blocking block is destroyed by this explosion
+                        damageInRadius(grid, world, bx, by, bz, source, distance, planner, hits);
                     }
+                    break;
                 }
+                case ExplosionPlan.DAMAGE:
+                    damageInRadius(grid, world, bx, by, bz, source, distance, planner, hits);
+                    break;
+                case ExplosionPlan.OUTSIDE:
+                    if (grid.has(bx, by, bz, ExplosionGrid.EVENT)) {
+                        // Ignore blocks outside of radius
+                        grid.set(bx, by, bz, ExplosionGrid.IGNORED);
+                    }
+                    break;
+                default:
+                    break;
             }
         }
+        return grid;
+    }
 
-        // Apply effects with factions
-        final boolean factionsApplied = FactionsIntegration.isUsing() && ConfigManager.getInstance().getHandleOfflineFactions();
-
-        // Bypass list for special handling's
-        final List<Block> bypassBlockList = new ArrayList<Block>();
-
-        // Remove managed blocks
-        for (Block block : blocksDestroyed) {
-            event.blockList().remove(block);
-
-            // Factions bypasses
-            if (factionsApplied && !blockedBlockLocations.contains(block.getLocation())) {
-                if (FactionsIntegration.get().isFactionOffline(block.getLocation())) {
-                    // Add block to bypass list to override
-                    bypassBlockList.add(block);
-                }
-            }
-        }
-        // Remove ignored blocks
-        for (Block block : blocksIgnored) {
-            event.blockList().remove(block);
-            blocksDestroyed.remove(block);
-        }
-        // Remove blocked blocks
-        for (Location location : blockedBlockLocations) {
-            event.blockList().remove(location.getBlock());
-        }
+    /**
+     * Calls the explosion event for the destroyed blocks and breaks them
+     */
+    private void finishExplosion(final ExplosionPlanner planner, List<Block> blocksDestroyed, List<Block> bypassBlockList, List<Location> blockedBlockLocations) {
+        final EntityExplodeEvent event = planner.event;
+        final Entity detonator = planner.detonator;
+        final Location detonatorLoc = planner.detonatorLoc;
+        final boolean verbose = planner.verbose;
+        final long time = planner.started;
+        final ConfigSnapshot settings = planner.settings;
 
         if (detonator != null) {
             // Set metadata for run once tracking
@@ -463,7 +588,7 @@ public class ChunkManager {
             if (contains(block.getLocation())) {
                 // drops block and reset the durability of the location
                 dropBlockAndResetDurability(block.getLocation());
-            } else if (MaterialManager.getInstance().contains(block.getType().name(), block.getData()) && MaterialManager.getInstance().getDurability(block.getType().name(), block.getData()) <= 1) {
+            } else if (MaterialManager.getInstance().contains(block.getType(), block.getData()) && MaterialManager.getInstance().getDurability(block.getType(), block.getData()) <= 1) {
                 // destroy block and reset the durability of the location
                 destroyBlockAndDropItem(block.getLocation());
             } else if (block.isLiquid() && (detonator != null && detonator.hasMetadata("ObbyLiquidEntity"))) {
@@ -483,16 +608,19 @@ public class ChunkManager {
         }
 
         // Damage bleeding fix
-        if (ConfigManager.getInstance().getDisableDamageBleeding()) {
+        if (settings.disableDamageBleeding) {
 
             // Iterate through the blocks that had an explosion blocked to check if the path was cleared by a current explosion
             for (Location location : explosionEvent.blockedLocationList()) {
-                if (Math.random() < ConfigManager.getInstance().getNextLayerDamageChance() && !Util.isTargetsPathBlocked(location, explosionEvent.getLocation(), false)) {
+                if (Math.random() < settings.nextLayerDamageChance && !Util.isTargetsPathBlocked(location, explosionEvent.getLocation(), false)) {
 
                     // Apply damage to block material
                     // Entity might be null but damageBlock handles that.
-                    DamageResult result = damageBlock(location, explosionEvent.getEntity());
-                    ObsidianDestroyer.vdebug("Blocking Damage passed!! " + location.toString() + "  DamageResult: " + result.name());
+                    final Entity entity = explosionEvent.getEntity();
+                    DamageResult result = damageBlock(location, entity != null ? DamageSource.of(entity) : DamageSource.fixed(1), -1, true, settings);
+                    if (verbose) {
+                        ObsidianDestroyer.vdebug("Blocking Damage passed!! " + location.toString() + "  DamageResult: " + result.name());
+                    }
                     if (result == DamageResult.DESTROY) {
                         // Destroy the block
                         destroyBlockAndDropItem(location);
@@ -505,126 +633,72 @@ public class ChunkManager {
         }
 
         // Debug time for explosion
-        if (ConfigManager.getInstance().getDebug()) {
+        if (settings.debug) {
             ObsidianDestroyer.debug("Taken " + (System.currentTimeMillis() - time) + " ms.  For explosion at [ " + detonatorLoc.toString() + " ]");
         }
     }
 
     /**
-     * Handles damage of a block location
-     *
-     * @param at     the location of the block
-     * @param amount amount to damage the block
-     * @return DamageResult result of damageBlock attempt
+     * Damages a block in the explosion radius and applies the result to the explosion state
      */
-    public DamageResult damageBlock(final Location at, int amount) {
-        if (at == null) {
-            return DamageResult.ERROR;
-        }
-        // get block
-        Block block = at.getBlock();
-        // Null and Air checks
-        if (block == null || block.getType() == Material.AIR) {
-            return DamageResult.NONE;
-        }
-
-        final String blockTypeName = block.getType().name();
-        final int blockData = block.getData();
-
-        // ==========================
-        // Create a new Durability Damage Event
-        DurabilityDamageEvent durabilityDamageEvent = new DurabilityDamageEvent(at, blockTypeName);
-        // Call event on blocks material durability damage
-        ObsidianDestroyer.getInstance().getServer().getPluginManager().callEvent(durabilityDamageEvent);
-
-        // ==========================
-        if (durabilityDamageEvent.isDisposed()) {
-            // Return a new damage result if set
-            return durabilityDamageEvent.getDamageResult();
-        }
-        if (durabilityDamageEvent.isCancelled()) {
-            // Return no damage if even is cancelled.
-            return DamageResult.CANCELLED;
-        }
-
-        // Check bedrock and env
-        if (block.getType() == Material.BEDROCK && ConfigManager.getInstance().getProtectBedrockBorders()) {
-            if (block.getY() <= ConfigManager.getInstance().getBorderToProtectNormal() && block.getWorld().getEnvironment() != Environment.THE_END) {
-                return DamageResult.NONE;
-            } else if (block.getY() >= ConfigManager.getInstance().getBorderToProtectNether() && block.getWorld().getEnvironment() == Environment.NETHER) {
-                return DamageResult.NONE;
-            } else if (block.getWorld().getEnvironment() == Environment.THE_END) {
-                return DamageResult.NONE;
-            }
+    private void damageInRadius(ExplosionGrid grid, World world, int x, int y, int z, DamageSource source, double distance, ExplosionPlanner planner, DamageAccumulator hits) {
+        final Location targetLoc = blockCenter(world, x, y, z);
+        // Apply damage to block material
+        applyResult(grid, x, y, z, hits != null ? hits.hit(targetLoc, source) : damageBlock(targetLoc, source, -1, true, planner.settings));
+        if (planner.verbose) {
+            ObsidianDestroyer.vdebug("Block Damage!! " + targetLoc.toString() + " -dist " + distance);
         }
+    }
 
-        // The handled materials listing
-        MaterialManager materials = MaterialManager.getInstance();
-
-        // Just in case the material is in the list and not enabled...
-        if (!materials.getDurabilityEnabled(blockTypeName, blockData)) {
-            return DamageResult.DISABLED;
+    /**
+     * Breaks a block left to an explosion that was committed after its event, the way the server would have
+     * broken it. Blocks changed since the explosion are left alone.
+     */
+    private static void breakExplodedBlock(ExplosionPlanner planner, Block block, float yield) {
+        final Material type = block.getType();
+        if (type == Material.AIR || type != planner.getCapturedType(block)) {
+            return;
         }
-
-        if (!materials.isDestructible(blockTypeName, blockData)) {
-            return DamageResult.NONE;
+        if (type == Material.TNT) {
+            block.setType(Material.AIR);
+            TNTPrimed tnt = (TNTPrimed) block.getWorld().spawnEntity(block.getLocation().add(0.5, 0, 0.5), EntityType.PRIMED_TNT);
+            tnt.setFuseTicks(Util.getRandomNumberFrom(10, 29));
+        } else if (Math.random() < yield) {
+            block.breakNaturally();
+        } else {
+            block.setType(Material.AIR);
         }
+    }
 
-        // Durability multiplier hook for Factions
-        double durabilityMultiplier = 1D;
-        if (FactionsIntegration.isUsing()) {
-            durabilityMultiplier = Util.getMultiplier(at);
-            if (durabilityMultiplier == 0) {
-                return DamageResult.NONE;
-            }
+    /**
+     * Applies the result of damaging a block in the explosion radius to the explosion state
+     */
+    private static void applyResult(ExplosionGrid grid, int x, int y, int z, DamageResult result) {
+        if (result == DamageResult.DESTROY || result == DamageResult.DISABLED) {
+            // Add block to list to destroy
+            grid.set(x, y, z, ExplosionGrid.DESTROYED);
+        } else if (result == DamageResult.DAMAGE || result == DamageResult.CANCELLED || result == DamageResult.NONE) {
+            // Add block to ignore list to not destroy
+            grid.set(x, y, z, ExplosionGrid.IGNORED);
         }
+    }
 
-        // Handle block if the materials durability is greater than one, else destroy the block
-        if ((materials.getDurability(blockTypeName, blockData) * durabilityMultiplier) >= 2) {
-            // durability is greater than one, get last state of the material location
-            TimerState state = checkDurabilityActive(block.getLocation());
-            // If timer is running or not active...
-            if (state == TimerState.RUN || state == TimerState.INACTIVE) {
-                // Check if current is over the max, else increment damage to durability
-                int currentDurability = getMaterialDurability(block);
-                if (Util.checkIfOverMax(currentDurability, blockTypeName, blockData, durabilityMultiplier)) {
-                    currentDurability = (int) Math.round(materials.getDurability(blockTypeName, blockData) * 0.50);
-                } else {
-                    currentDurability += amount;
-                }
-                // check if at max, else setup and track the material location
-                if (Util.checkIfMax(currentDurability, blockTypeName, blockData, durabilityMultiplier)) {
-                    // counter has reached max durability, remove and drop an item
-                    return DamageResult.DESTROY;
-                } else {
-                    // counter has not reached max durability damage yet
-                    if (!materials.getDurabilityResetTimerEnabled(blockTypeName, blockData)) {
-                        // adds a block to be track
-                        addBlock(block, currentDurability);
-                    } else {
-                        // adds a block to be tracked and starts a new durabilityTime with last state
-                        startNewTimer(block, currentDurability, state);
-                    }
-                }
-            } else {
-                // No timers or tracked location, add a new material location
-                if (!materials.getDurabilityResetTimerEnabled(blockTypeName, blockData)) {
-                    addBlock(block, amount);
-                } else {
-                    startNewTimer(block, amount, state);
-                }
-                // Check if damage is at max for durability
-                if (Util.checkIfMax(amount, blockTypeName, blockData, durabilityMultiplier)) {
-                    return DamageResult.DESTROY;
-                }
-            }
-        } else {
-            // durability is < 1, destroy the material location
-            return DamageResult.DESTROY;
-        }
+    /**
+     * Gets the location of the center of a block
+     */
+    private static Location blockCenter(World world, int x, int y, int z) {
+        return new Location(world, x + 0.5, y + 0.5, z + 0.5);
+    }
 
-        // Return damage
-        return DamageResult.DAMAGE;
+    /**
+     * Handles damage of a block location
+     *
+     * @param at     the location of the block
+     * @param amount amount to damage the block
+     * @return DamageResult result of damageBlock attempt
+     */
+    public DamageResult damageBlock(final Location at, int amount) {
+        return damageBlock(at, DamageSource.fixed(amount));
     }
 
     /**
@@ -635,7 +709,7 @@ public class ChunkManager {
      * @return DamageResult result of damageBlock attempt
      */
     public DamageResult damageBlock(final Location at, Entity entity) {
-        return damageBlock(at, entity, null);
+        return damageBlock(at, entity != null ? DamageSource.of(entity) : DamageSource.fixed(1));
     }
 
     /**
@@ -646,149 +720,201 @@ public class ChunkManager {
      * @return DamageResult result of damageBlock attempt
      */
     public DamageResult damageBlock(final Location at, EntityType entityType) {
-        return damageBlock(at, null, entityType);
+        return damageBlock(at, entityType != null ? DamageSource.of(entityType) : DamageSource.fixed(1));
     }
 
     /**
-     * Handles a block on an EntityExplodeEvent
+     * Handles damage of a block by a damage source. Every kind of damage goes through here, so a source can be
+     * created once and reused for many blocks.
      *
-     * @param at         the location of the block
-     * @param entity     the entity that triggered the event
-     * @param entityType the entity type that triggered the event
+     * @param at     the location of the block
+     * @param source the source of the damage
      * @return DamageResult result of damageBlock attempt
      */
-    private DamageResult damageBlock(final Location at, Entity entity, EntityType entityType) {
-        if (at == null || entity == null) {
-            if (entity == null && entityType == null) {
-                return damageBlock(at, 1);
-            }
-            if (entityType == null) {
-                return DamageResult.NONE;
-            }
-        }
+    public DamageResult damageBlock(final Location at, final DamageSource source) {
+        return damageBlock(at, source, -1, true);
+    }
+
+    /**
+     * Handles damage of a block by a damage source with a set amount of damage
+     *
+     * @param at        the location of the block
+     * @param source    the source of the damage
+     * @param amount    the damage to apply, or -1 to apply the damage of the source to the material
+     * @param callEvent false if the damage was already announced with a batch event
+     * @return DamageResult result of damageBlock attempt
+     */
+    DamageResult damageBlock(final Location at, final DamageSource source, int amount, boolean callEvent) {
+        return damageBlock(at, source, amount, callEvent, ConfigManager.getInstance().getSnapshot());
+    }
 
-        // get entity
-        EntityType eventTypeRep = entityType == null ? entity.getType() : entityType;
+    /**
+     * Handles damage of a block with the settings of the explosion or tick it belongs to
+     *
+     * @param at        the location of the block
+     * @param source    the damage of the source
+     * @param amount    the damage to add, or -1 for the damage of the source
+     * @param callEvent true to call a durability damage event for the block
+     * @param settings  the config settings to damage the block with
+     * @return DamageResult result of damageBlock attempt
+     */
+    DamageResult damageBlock(final Location at, final DamageSource source, int amount, boolean callEvent, final ConfigSnapshot settings) {
+        if (at == null || source == null) {
+            return DamageResult.ERROR;
+        }
         // get block
-        Block block = at.getBlock();
-        // Null and Air checks
-        if (block == null || block.getType() == Material.AIR) {
+        final Block block = at.getBlock();
+        final Material blockType = block.getType();
+        // Air check
+        if (blockType == Material.AIR) {
             return DamageResult.NONE;
         }
-
-        final String blockTypeName = block.getType().name();
         final int blockData = block.getData();
 
-        // ==========================
-        // Create a new Durability Damage Event
-        DurabilityDamageEvent durabilityDamageEvent = new DurabilityDamageEvent(at, blockTypeName, eventTypeRep);
-        // Call event on blocks material durability damage
-        ObsidianDestroyer.getInstance().getServer().getPluginManager().callEvent(durabilityDamageEvent);
-
-        // ==========================
-        if (durabilityDamageEvent.isDisposed()) {
-            // Return a new damage result if set
-            return durabilityDamageEvent.getDamageResult();
-        }
-        if (durabilityDamageEvent.isCancelled()) {
-            // Return no damage if even is cancelled.
-            return DamageResult.CANCELLED;
+        if (callEvent) {
+            // ==========================
+            // Create a new Durability Damage Event
+            DurabilityDamageEvent durabilityDamageEvent = source.getEntityType() != null
+                    ? new DurabilityDamageEvent(at, blockType.name(), source.getEntityType()) : new DurabilityDamageEvent(at, blockType.name());
+            // Call event on blocks material durability damage
+            ObsidianDestroyer.getInstance().getServer().getPluginManager().callEvent(durabilityDamageEvent);
+
+            // ==========================
+            if (durabilityDamageEvent.isDisposed()) {
+                // Return a new damage result if set
+                return durabilityDamageEvent.getDamageResult();
+            }
+            if (durabilityDamageEvent.isCancelled()) {
+                // Return no damage if even is cancelled.
+                return DamageResult.CANCELLED;
+            }
         }
 
         // Check bedrock and env
-        if (block.getType() == Material.BEDROCK && ConfigManager.getInstance().getProtectBedrockBorders()) {
-            if (block.getY() <= ConfigManager.getInstance().getBorderToProtectNormal() && block.getWorld().getEnvironment() != Environment.THE_END) {
+        if (blockType == Material.BEDROCK && settings.protectBedrockBorders) {
+            if (block.getY() <= settings.borderToProtectNormal && block.getWorld().getEnvironment() != Environment.THE_END) {
                 return DamageResult.NONE;
-            } else if (block.getY() >= ConfigManager.getInstance().getBorderToProtectNether() && block.getWorld().getEnvironment() == Environment.NETHER) {
+            } else if (block.getY() >= settings.borderToProtectNether && block.getWorld().getEnvironment() == Environment.NETHER) {
                 return DamageResult.NONE;
             }
         }
 
-        // The handled materials listing
-        MaterialManager materials = MaterialManager.getInstance();
+        // The handled material of the block
+        final DurabilityMaterial material = MaterialManager.getInstance().get(blockType, blockData);
 
         // Just in case the material is in the list and not enabled...
-        if (!materials.getDurabilityEnabled(blockTypeName, blockData)) {
+        if (material == null || !material.getEnabled()) {
             return DamageResult.DISABLED;
         }
-
-        if (!materials.isDestructible(blockTypeName, blockData)) {
-            return DamageResult.NONE;
-        }
-
-        ObsidianDestroyer.vdebug("eventTypeRep= " + eventTypeRep);
-
-        // Check explosion types
-        if (eventTypeRep.equals(EntityType.PRIMED_TNT) && !MaterialManager.getInstance().getTntEnabled(blockTypeName, blockData)) {
-            return DamageResult.NONE;
-        }
-        if (eventTypeRep.equals(EntityType.CREEPER) && !MaterialManager.getInstance().getCreepersEnabled(blockTypeName, blockData)) {
-            return DamageResult.NONE;
-        }
-        if (eventTypeRep.equals(EntityType.WITHER) || eventTypeRep.equals(EntityType.WITHER_SKULL) && !MaterialManager.getInstance().getWithersEnabled(blockTypeName, blockData)) {
-            return DamageResult.NONE;
-        }
-        if (eventTypeRep.equals(EntityType.MINECART_TNT) && !MaterialManager.getInstance().getTntMinecartsEnabled(blockTypeName, blockData)) {
-            return DamageResult.NONE;
-        }
-        if ((eventTypeRep.equals(EntityType.FIREBALL) || eventTypeRep.equals(EntityType.SMALL_FIREBALL) || eventTypeRep.equals(EntityType.GHAST)) && !MaterialManager.getInstance().getGhastsEnabled(blockTypeName, blockData)) {
-            return DamageResult.NONE;
+        final boolean damages = source.damages(material);
+        if (!damages && source.isCannon()) {
+            return DamageResult.DISABLED;
         }
-        if ((eventTypeRep.equals(EntityType.BAT)) && !MaterialManager.getInstance().getNullEnabled(blockTypeName, blockData)) {
+        if (!material.isDestructible() || !damages) {
             return DamageResult.NONE;
         }
 
         // Durability multiplier hook for Factions
         double durabilityMultiplier = 1D;
         if (FactionsIntegration.isUsing()) {
-            durabilityMultiplier = Util.getMultiplier(at);
+            durabilityMultiplier = Util.getMultiplier(at, settings);
             if (durabilityMultiplier == 0) {
                 return DamageResult.NONE;
             }
         }
+        return addDamage(block, material, amount >= 0 ? amount : source.getDamage(material), durabilityMultiplier, settings);
+    }
 
+    /**
+     * Adds damage to the durability of a block, reading and writing its tracked durability once
+     *
+     * @param block      the block to damage
+     * @param material   the durability material of the block
+     * @param damage     the damage to add
+     * @param multiplier the durability multiplier of the location
+     * @param settings   the config settings to damage the block with
+     * @return DamageResult result of the damage
+     */
+    private DamageResult addDamage(Block block, DurabilityMaterial material, int damage, double multiplier, ConfigSnapshot settings) {
         // Handle block if the materials durability is greater than one, else destroy the block
-        if ((materials.getDurability(blockTypeName, blockData) * durabilityMultiplier) >= 2) {
-            // durability is greater than one, get last state of the material location
-            TimerState state = checkDurabilityActive(block.getLocation());
-            // If timer is running or not active...
-            if (state == TimerState.RUN || state == TimerState.INACTIVE) {
-                // Check if current is over the max, else increment damage to durability
-                int currentDurability = getMaterialDurability(block);
-                if (Util.checkIfOverMax(currentDurability, blockTypeName, blockData, durabilityMultiplier)) {
-                    currentDurability = (int) Math.round(materials.getDurability(blockTypeName, blockData) * 0.50);
-                } else {
-                    currentDurability += materials.getDamageTypeAmount(entity, blockTypeName, blockData);
-                }
-                // check if at max, else setup and track the material location
-                if (Util.checkIfMax(currentDurability, blockTypeName, blockData, durabilityMultiplier)) {
-                    // counter has reached max durability, remove and drop an item
-                    return DamageResult.DESTROY;
-                } else {
-                    // counter has not reached max durability damage yet
-                    if (!materials.getDurabilityResetTimerEnabled(blockTypeName, blockData)) {
-                        // adds a block to be track
-                        addBlock(block, currentDurability);
-                    } else {
-                        // adds a block to be tracked and starts a new durabilityTime with last state
-                        startNewTimer(block, currentDurability, state);
-                    }
+        if (material.getDurability() * multiplier < 2) {
+            // durability is < 1, destroy the material location
+            return DamageResult.DESTROY;
+        }
+        final BlockId id = BlockId.of(block);
+        final ChunkWrapper chunk = getWrapper(id);
+        if (chunk == null) {
+            return DamageResult.ERROR;
+        }
+        // The damage already stored for the block has to be known to tell if this hit destroys it
+        if (chunk.isLoading() && !io.awaitLoad(chunk)) {
+            return DamageResult.ERROR;
+        }
+        final int packedMaterial = DurabilityStore.material(block.getTypeId(), block.getData());
+        return addDamage(chunk, id, packedMaterial, material, damage, multiplier, settings.regeneratesOverTime);
+    }
+
+    /**
+     * Adds damage to the tracked durability of a block of a loaded chunk
+     *
+     * @param chunk          the loaded chunk of the block
+     * @param id             the identity of the block
+     * @param packedMaterial the packed material of the block
+     * @param material       the durability material of the block
+     * @param damage         the damage to add
+     * @param multiplier     the durability multiplier of the location
+     * @param regenerates    true if durabilities regenerate over time once their timer ran out
+     * @return DamageResult result of the damage
+     */
+    static DamageResult addDamage(ChunkWrapper chunk, BlockId id, int packedMaterial, DurabilityMaterial material, int damage, double multiplier, boolean regenerates) {
+        final int durability = material.getDurability();
+        if (durability * multiplier < 2) {
+            return DamageResult.DESTROY;
+        }
+        final long max = Math.round(durability * multiplier);
+
+        // Get the last state of the material location
+        final boolean timed = material.getResetEnabled();
+        final long currentTime = System.currentTimeMillis();
+        int currentDurability = -1;
+        if (chunk.contains(id)) {
+            final long time = chunk.getDurabilityTime(id);
+            if (!timed || currentTime <= time) {
+                currentDurability = chunk.getDurability(id);
+            } else if (regenerates) {
+                // Regenerate the durability for the time passed since the timer ran out
+                final int amount = Math.max(1, Math.round((float) (currentTime - time) / material.getResetTime()));
+                currentDurability = chunk.getDurability(id) - amount;
+                if (currentDurability <= 0) {
+                    chunk.removeKey(id);
+                    currentDurability = -1;
                 }
             } else {
-                // No timers or tracked location, add a new material location
-                if (!materials.getDurabilityResetTimerEnabled(blockTypeName, blockData)) {
-                    addBlock(block, materials.getDamageTypeAmount(entity, blockTypeName, blockData));
-                } else {
-                    startNewTimer(block, materials.getDamageTypeAmount(entity, blockTypeName, blockData), state);
-                }
-                // Check if damage is at max for durability
-                if (Util.checkIfMax(materials.getDamageTypeAmount(entity, blockTypeName, blockData), blockTypeName, blockData, durabilityMultiplier)) {
-                    return DamageResult.DESTROY;
-                }
+                chunk.removeKey(id);
+            }
+        }
+
+        final long expires = timed ? currentTime + material.getResetTime() : 0L;
+        if (currentDurability >= 0) {
+            // Check if current is over the max, else increment damage to durability
+            if (currentDurability > Math.round((durability * multiplier) + (durability * 0.18))) {
+                currentDurability = (int) Math.round(durability * 0.50);
+            } else {
+                currentDurability += damage;
             }
+            // check if at max, else track the material location
+            if (currentDurability >= max) {
+                // counter has reached max durability, remove and drop an item
+                return DamageResult.DESTROY;
+            }
+            chunk.addBlock(currentDurability, expires, id, packedMaterial);
         } else {
-            // durability is < 1, destroy the material location
-            return DamageResult.DESTROY;
+            // No timers or tracked location, add a new material location
+            chunk.addBlock(damage, expires, id, packedMaterial);
+            // Check if damage is at max for durability
+            if (damage >= max) {
+                return DamageResult.DESTROY;
+            }
         }
 
         // Return damage
@@ -804,9 +930,10 @@ public class ChunkManager {
         ObsidianDestroyer.debug("ProjectilePiercingEvent: " + event.getProjectile().getItemName());
 
         event.getImpactLocation().getBlock().setMetadata("ObbyEntity", new FixedMetadataValue(ObsidianDestroyer.getInstance(), null));
+        final ConfigSnapshot settings = ConfigManager.getInstance().getSnapshot();
 
         // Display effects on impact location
-        if (ConfigManager.getInstance().getEffectsEnabled()) {
+        if (settings.effectsEnabled) {
             event.getImpactLocation().getWorld().playEffect(event.getImpactLocation(), Effect.MOBSPAWNER_FLAMES, 0);
         }
 
@@ -815,18 +942,18 @@ public class ChunkManager {
         // Bypass list for special handlings
         final List<Block> bypassBlockList = new ArrayList<Block>();
         final boolean useFactions = FactionsIntegration.isUsing();
-        final boolean applyFactions = useFactions && ConfigManager.getInstance().getHandleOfflineFactions();
+        final boolean applyFactions = useFactions && settings.handleOfflineFactions;
         // Iterator through the events blocks
         Iterator<Block> iter = event.getBlockList().iterator();
         while (iter.hasNext()) {
             Block block = iter.next();
             // Check if handled and not already checked
-            if (MaterialManager.getInstance().contains(block.getType().name(), block.getData()) && !blocklist.contains(block)) {
+            if (MaterialManager.getInstance().contains(block.getType(), block.getData()) && !blocklist.contains(block)) {
                 blocklist.add(block);
             }
             // Factions bypasses
             if (useFactions && applyFactions) {
-                if (FactionsIntegration.get().isFactionOffline(block.getLocation())) {
+                if (FactionsIntegration.getClaims().isFactionOffline(block.getLocation())) {
                     bypassBlockList.add(block);
                 }
             }
@@ -863,8 +990,8 @@ public class ChunkManager {
         iter = explosionEvent.blockList().iterator();
         while (iter.hasNext()) {
             Block block = iter.next();
-            if (MaterialManager.getInstance().contains(block.getType().name(), block.getData()) && !block.getType().equals(Material.AIR)) {
-                DamageResult result = damageBlock(block.getLocation(), false);
+            if (MaterialManager.getInstance().contains(block.getType(), block.getData()) && !block.getType().equals(Material.AIR)) {
+                DamageResult result = damageBlock(block.getLocation(), false, settings);
                 if (result != DamageResult.NONE && result != DamageResult.CANCELLED) {
                     blocksIgnored.add(block);
                 }
@@ -892,170 +1019,76 @@ public class ChunkManager {
         }
 
         Location location = event.getImpactLocation();
+        final ConfigSnapshot settings = ConfigManager.getInstance().getSnapshot();
         // Display effects on impact location
-        if (ConfigManager.getInstance().getEffectsEnabled()) {
+        if (settings.effectsEnabled) {
             event.getImpactLocation().getWorld().playEffect(location, Effect.MOBSPAWNER_FLAMES, 0);
         }
 
         LinkedList<Block> blocklist = new LinkedList<Block>();
         final int radius = Math.round(event.getProjectile().getExplosionPower() + 0.1f);
+        if (FactionsIntegration.isUsing()) {
+            // Resolve the claims of the chunks of the impact at once
+            FactionsIntegration.getClaims().resolve(location.getWorld(), location.getBlockX() - radius, location.getBlockZ() - radius,
+                    location.getBlockX() + radius, location.getBlockZ() + radius);
+        }
         for (int x = -radius; x <= radius; x++) {
             for (int y = radius; y >= -radius; y--) {
                 for (int z = -radius; z <= radius; z++) {
                     Location targetLoc = new Location(location.getWorld(), location.getX() + x, location.getY() + y, location.getZ() + z);
                     if (blocklist.contains(targetLoc.getBlock()) || targetLoc.getBlock().getType() == Material.AIR) {
-                        continue;
-                    }
-                    if (!MaterialManager.getInstance().contains(targetLoc.getBlock().getType().name(), targetLoc.getBlock().getData())) {
-                        continue;
-                    }
-                    if (location.distance(targetLoc) <= Math.min(radius, Util.getMaxDistance(targetLoc.getBlock().getType().name(), targetLoc.getBlock().getData(), radius))) {
-                        DamageResult result = damageBlock(targetLoc.getBlock().getLocation(), true);
-                        if (result != DamageResult.NONE && result != DamageResult.CANCELLED) {
-                            // Cancel the event
-                            if (!event.isCancelled()) {
-                                event.setCancelled(true);
-                            }
-                        }
-                    }
-                }
-            }
-        }
-    }
-
-    /**
-     * Handles a block on an ProjectilePiercingEvent
-     *
-     * @param at the location of the block
-     * @return DamageResult result of damageBlock attempt
-     */
-    public DamageResult damageBlock(final Location at) {
-        return damageBlock(at, true);
-    }
-
-    /**
-     * Handles a block on an ProjectilePiercingEvent
-     *
-     * @param at     the location of the block
-     * @param impact impact or piercing damage type
-     * @return DamageResult result of damageBlock attempt
-     */
-    public DamageResult damageBlock(final Location at, boolean impact) {
-        // Null and Air checks
-        if (at == null) {
-            return DamageResult.NONE;
-        }
-        Block block = at.getBlock();
-        if (block == null) {
-            return DamageResult.NONE;
-        }
-        if (block.getType() == Material.AIR) {
-            return DamageResult.NONE;
-        }
-
-        String blockTypeName = block.getType().name();
-        int blockData = block.getData();
-
-        // ==========================
-        // Create a new Durability Damage Event
-        DurabilityDamageEvent durabilityDamageEvent = new DurabilityDamageEvent(at, blockTypeName);
-        // Call event on blocks material durability damage
-        ObsidianDestroyer.getInstance().getServer().getPluginManager().callEvent(durabilityDamageEvent);
-
-        // ==========================
-        if (durabilityDamageEvent.isDisposed()) {
-            // Return a new damage result if set
-            return durabilityDamageEvent.getDamageResult();
-        }
-        if (durabilityDamageEvent.isCancelled()) {
-            // Return no damage if even is cancelled.
-            return DamageResult.CANCELLED;
-        }
-
-        // Check bedrock and env
-        if (block.getType() == Material.BEDROCK && ConfigManager.getInstance().getProtectBedrockBorders()) {
-            if (block.getY() <= ConfigManager.getInstance().getBorderToProtectNormal() && block.getWorld().getEnvironment() != Environment.THE_END) {
-                return DamageResult.NONE;
-            } else if (block.getY() >= ConfigManager.getInstance().getBorderToProtectNether() && block.getWorld().getEnvironment() == Environment.NETHER) {
-                return DamageResult.NONE;
-            }
-        }
-
-        MaterialManager materials = MaterialManager.getInstance();
-        // Just in case the material is in the list and not enabled...
-        if (!materials.getDurabilityEnabled(blockTypeName, block.getData())) {
-            return DamageResult.DISABLED;
-        } else if (!materials.getCannonsEnabled(blockTypeName, blockData)) {
-            return DamageResult.DISABLED;
-        }
-
-        if (!materials.isDestructible(blockTypeName, blockData)) {
-            return DamageResult.NONE;
-        }
-
-        // Durability multiplier hook for Factions
-        double durabilityMultiplier = 1D;
-        if (FactionsIntegration.isUsing()) {
-            durabilityMultiplier = Util.getMultiplier(at);
-            if (durabilityMultiplier == 0) {
-                return DamageResult.NONE;
+                        continue;
+                    }
+                    if (!MaterialManager.getInstance().contains(targetLoc.getBlock().getType(), targetLoc.getBlock().getData())) {
+                        continue;
+                    }
+                    if (location.distance(targetLoc) <= Math.min(radius, Util.getMaxDistance(targetLoc.getBlock().getType(), targetLoc.getBlock().getData(), radius))) {
+                        DamageResult result = damageBlock(targetLoc.getBlock().getLocation(), true, settings);
+                        if (result != DamageResult.NONE && result != DamageResult.CANCELLED) {
+                            // Cancel the event
+                            if (!event.isCancelled()) {
+                                event.setCancelled(true);
+                            }
+                        }
+                    }
+                }
             }
         }
+    }
 
-        // Handle block if the materials durability is greater than one, else destroy the block
-        if ((materials.getDurability(blockTypeName, blockData) * durabilityMultiplier) >= 2) {
-            // durability is greater than one, get last state of the material location
-            TimerState state = checkDurabilityActive(block.getLocation());
-
-            int damageAmt = impact ? materials.getDamageTypeCannonsImpactAmount(blockTypeName, blockData) : materials.getDamageTypeCannonsPierceAmount(blockTypeName, blockData);
+    /**
+     * Handles a block on an ProjectilePiercingEvent
+     *
+     * @param at the location of the block
+     * @return DamageResult result of damageBlock attempt
+     */
+    public DamageResult damageBlock(final Location at) {
+        return damageBlock(at, true);
+    }
 
-            ObsidianDestroyer.vdebug("Current TimerState= " + state);
+    /**
+     * Handles a block on an ProjectilePiercingEvent, destroying the block once its durability is used up
+     *
+     * @param at     the location of the block
+     * @param impact impact or piercing damage type
+     * @return DamageResult result of damageBlock attempt
+     */
+    public DamageResult damageBlock(final Location at, boolean impact) {
+        return damageBlock(at, impact, ConfigManager.getInstance().getSnapshot());
+    }
 
-            // If timer is running or not active...
-            if (state == TimerState.RUN || state == TimerState.INACTIVE) {
-                // Check if current is over the max, else increment damage to durability
-                int currentDurability = getMaterialDurability(block);
-                if (Util.checkIfOverMax(currentDurability, blockTypeName, blockData, durabilityMultiplier)) {
-                    currentDurability = (int) Math.round(materials.getDurability(blockTypeName, blockData) * durabilityMultiplier);
-                } else {
-                    currentDurability += damageAmt;
-                }
-                // check if at max, else setup and track the material location
-                if (Util.checkIfMax(currentDurability, blockTypeName, blockData, durabilityMultiplier)) {
-                    // counter has reached max durability, remove and drop an item
-                    dropBlockAndResetDurability(at);
-                    return DamageResult.DESTROY;
-                } else {
-                    // counter has not reached max durability damage yet
-                    if (!materials.getDurabilityResetTimerEnabled(blockTypeName, blockData)) {
-                        // adds a block to be tracked
-                        addBlock(block, currentDurability);
-                    } else {
-                        // adds a block to be tracked and starts a new durabilityTime with last state
-                        startNewTimer(block, currentDurability, state);
-                    }
-                }
+    private DamageResult damageBlock(final Location at, boolean impact, ConfigSnapshot settings) {
+        final DamageResult result = damageBlock(at, impact ? DamageSource.cannonImpact() : DamageSource.cannonPierce(), -1, true, settings);
+        if (result == DamageResult.DESTROY) {
+            if (contains(at)) {
+                // drops block and reset the durability of the location
+                dropBlockAndResetDurability(at);
             } else {
-                // No timers or tracked location, add a new material location
-                if (!materials.getDurabilityResetTimerEnabled(blockTypeName, blockData)) {
-                    addBlock(block, damageAmt);
-                } else {
-                    startNewTimer(block, damageAmt, state);
-                }
-                // Check if damage is at max for durability
-                if (Util.checkIfMax(damageAmt, blockTypeName, blockData, durabilityMultiplier)) {
-                    dropBlockAndResetDurability(at);
-                    return DamageResult.DESTROY;
-                }
+                // destroy the material location
+                destroyBlockAndDropItem(at);
             }
-        } else {
-            // durability is < 1, destroy the material location
-            destroyBlockAndDropItem(at);
-            return DamageResult.DESTROY;
         }
-
-        // Return damage
-        return DamageResult.DAMAGE;
+        return result;
     }
 
     /**
@@ -1084,7 +1117,7 @@ public class ChunkManager {
 
         final Block b = at.getBlock();
 
-        if (!MaterialManager.getInstance().contains(b.getType().name(), b.getData())) {
+        if (!MaterialManager.getInstance().contains(b.getType(), b.getData())) {
             return;
         }
 
@@ -1097,7 +1130,7 @@ public class ChunkManager {
         final Collection<ItemStack> bd = at.getBlock().getDrops();
 
         final double random = Math.random();
-        final double chance = MaterialManager.getInstance().getChanceToDropBlock(b.getType().name(), b.getData());
+        final double chance = MaterialManager.getInstance().getChanceToDropBlock(b.getType(), b.getData());
 
         // changes original block to Air block
         b.setType(Material.AIR);
@@ -1118,21 +1151,98 @@ public class ChunkManager {
     /**
      * Reset all durabilites
      *
-     * @return time taken in milliseconds
+     * @return the time the reset started in milliseconds
+     * @deprecated the reset runs in the background, use {@link #resetDurabilities(CommandSender)}
      */
+    @Deprecated
     public long resetAllDurabilities() {
         final long time = System.currentTimeMillis();
-        for (File odr : durabilityDir.listFiles()) {
-            if (odr.getName().endsWith(".odr")) {
-                if (!odr.delete()) {
-                    ObsidianDestroyer.LOG.log(Level.WARNING, "Failed to remove file {0}", odr.getName());
+        resetDurabilities(null);
+        return time;
+    }
+
+    /**
+     * Resets the durabilities of every world. The tracked durabilities are cleared at once, the stored ones
+     * are removed in the background.
+     *
+     * @param sender the sender to report the progress to, or null to log it
+     * @return false if a reset is already running
+     */
+    public boolean resetDurabilities(CommandSender sender) {
+        return startReset(new DurabilityReset(storage, resetting, sender, null));
+    }
+
+    /**
+     * Resets the durabilities of a world. The tracked durabilities are cleared at once, the stored ones
+     * are removed in the background.
+     *
+     * @param world  the world to reset
+     * @param sender the sender to report the progress to, or null to log it
+     * @return false if a reset is already running
+     */
+    public boolean resetDurabilities(World world, CommandSender sender) {
+        return startReset(new DurabilityReset(storage, resetting, sender, world.getName()));
+    }
+
+    /**
+     * Resets the durabilities of an area of chunks. The tracked durabilities are cleared at once, the stored
+     * ones are removed in the background.
+     *
+     * @param world     the world of the area
+     * @param minChunkX the lowest chunk x coordinate
+     * @param minChunkZ the lowest chunk z coordinate
+     * @param maxChunkX the highest chunk x coordinate
+     * @param maxChunkZ the highest chunk z coordinate
+     * @param sender    the sender to report the progress to, or null to log it
+     * @return false if a reset is already running
+     */
+    public boolean resetDurabilities(World world, int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ, CommandSender sender) {
+        return startReset(new DurabilityReset(storage, resetting, sender, world.getName(), minChunkX, minChunkZ, maxChunkX, maxChunkZ));
+    }
+
+    /**
+     * Checks if the stored durabilities of a reset are still being removed
+     *
+     * @return true while a reset is running
+     */
+    public boolean isResetRunning() {
+        return resetting.get();
+    }
+
+    private boolean startReset(DurabilityReset reset) {
+        if (!resetting.compareAndSet(false, true)) {
+            return false;
+        }
+        // Swap the durabilities of the loaded chunks of the reset for empty ones
+        int cleared = 0;
+        for (LongHashMap<ChunkWrapper> chunks : worlds.values()) {
+            for (int slot = chunks.nextSlot(0); slot >= 0; slot = chunks.nextSlot(slot + 1)) {
+                final ChunkWrapper wrapper = chunks.valueAt(slot);
+                if (reset.contains(wrapper.getWorldName(), wrapper.getChunkX(), wrapper.getChunkZ())) {
+                    wrapper.removeKeys();
+                    cleared++;
                 }
             }
         }
-        for (ChunkWrapper chunk : chunks.values()) {
-            chunk.removeKeys();
+        reset.setClearedChunks(cleared);
+        // Also covers the chunks that are not loaded, whose older changes may still be in the journal
+        reset.record(journal);
+        // The journal is dropped once the files are removed, write the changes of the other chunks first
+        io.mark();
+        for (LongHashMap<ChunkWrapper> chunks : worlds.values()) {
+            for (int slot = chunks.nextSlot(0); slot >= 0; slot = chunks.nextSlot(slot + 1)) {
+                final ChunkWrapper wrapper = chunks.valueAt(slot);
+                if (wrapper.isDirty() && !wrapper.isLoading() && !reset.contains(wrapper.getWorldName(), wrapper.getChunkX(), wrapper.getChunkZ())) {
+                    io.save(wrapper.snapshot());
+                }
+            }
         }
-        return time;
+        io.reset(reset);
+        io.checkpoint(reset.getStarted());
+        autosaveQueue.clear();
+        autosaveStarted = 0L;
+        lastAutosave = reset.getStarted();
+        return true;
     }
 
     /**
@@ -1146,11 +1256,8 @@ public class ChunkManager {
             return;
         }
 
-        if (state == TimerState.RUN) {
-            removeBlock(block);
-        }
-
-        addBlock(block, damage, MaterialManager.getInstance().getDurabilityResetTime(block.getType().name(), block.getData()));
+        // Adding the block again restarts its timer in place
+        addBlock(block, damage, MaterialManager.getInstance().getDurabilityResetTime(block.getType(), block.getData()));
     }
 
     /**
@@ -1164,37 +1271,32 @@ public class ChunkManager {
             return TimerState.DEAD;
         }
 
-        if (!contains(location)) {
+        final BlockId id = BlockId.of(location);
+        final ChunkWrapper chunk = getLoadedWrapper(id);
+        if (chunk == null || !chunk.contains(id)) {
             return TimerState.DEAD;
         }
-        if (!MaterialManager.getInstance().getDurabilityResetTimerEnabled(location.getBlock().getType().name(), location.getBlock().getData())) {
+        if (!MaterialManager.getInstance().getDurabilityResetTimerEnabled(location.getBlock().getType(), location.getBlock().getData())) {
             return TimerState.INACTIVE;
         }
         final long currentTime = System.currentTimeMillis();
-        final ChunkWrapper chunk = getWrapper(location.getChunk());
-        if (chunk == null) {
-            if (ConfigManager.getInstance().getVerbose() || ConfigManager.getInstance().getDebug()) {
-                ObsidianDestroyer.LOG.severe("The requested chunk appears to be null  D:");
-            }
-            return TimerState.DEAD;
-        }
-        final long time = chunk.getDurabilityTime(location);
+        final long time = chunk.getDurabilityTime(id);
         if (currentTime > time) {
-            if (ConfigManager.getInstance().getMaterialsRegenerateOverTime()) {
-                int currentDurability = chunk.getDurability(location);
-                final long regenTime = MaterialManager.getInstance().getDurabilityResetTime(location.getBlock().getType().name(), location.getBlock().getData());
+            if (ConfigManager.getInstance().getSnapshot().regeneratesOverTime) {
+                int currentDurability = chunk.getDurability(id);
+                final long regenTime = MaterialManager.getInstance().getDurabilityResetTime(location.getBlock().getType(), location.getBlock().getData());
                 final long result = currentTime - time;
                 final int amount = Math.max(1, Math.round((float) result / regenTime));
                 currentDurability -= amount;
                 if (currentDurability <= 0) {
-                    chunk.removeKey(location);
+                    chunk.removeKey(id);
                     return TimerState.END;
                 } else {
                     startNewTimer(location.getBlock(), currentDurability, TimerState.RUN);
                     return TimerState.RUN;
                 }
             } else {
-                removeLocation(location);
+                chunk.removeKey(id);
                 return TimerState.END;
             }
         }
@@ -1228,9 +1330,144 @@ public class ChunkManager {
 
         if (checkDurabilityActive(location) != TimerState.RUN && !contains(location)) {
             return 0;
+        }
+        final ChunkWrapper chunk = getWrapper(BlockId.of(location));
+        return chunk != null ? chunk.getDurability(BlockId.of(location)) : 0;
+    }
+
+    /**
+     * Gets the tracked durability damage of a block without updating its timer
+     *
+     * @param block the block to check
+     * @return the durability damage, 0 if it is not tracked or its timer has run out
+     */
+    int peekDurability(Block block) {
+        final BlockId id = BlockId.of(block);
+        final ChunkWrapper chunk = getLoadedWrapper(id);
+        if (chunk == null || !chunk.contains(id)) {
+            return 0;
+        }
+        if (MaterialManager.getInstance().getDurabilityResetTimerEnabled(block.getType(), block.getData()) && System.currentTimeMillis() > chunk.getDurabilityTime(id)) {
+            return 0;
+        }
+        return chunk.getDurability(id);
+    }
+
+    /**
+     * Gets the damaged blocks of a loaded chunk. Only the durabilities held in memory are read, the stored
+     * durabilities of a chunk that is not loaded are not.
+     *
+     * @param chunk the chunk to check
+     * @return the keys of the damaged blocks, empty if the chunk is not loaded
+     */
+    public List<Key> getDamagedBlocks(Chunk chunk) {
+        final List<Key> keys = new ArrayList<Key>();
+        if (chunk == null) {
+            return keys;
+        }
+        final ChunkWrapper wrapper = getLoadedWrapper(chunk.getWorld().getUID(), chunk.getX(), chunk.getZ());
+        if (wrapper != null) {
+            wrapper.collectKeys(Integer.MIN_VALUE, 0, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, keys);
+        }
+        return keys;
+    }
+
+    /**
+     * Gets the damaged blocks inside a box, in loaded chunks only. Only the durabilities held in memory for the
+     * chunks the box covers are read, no world blocks are looked up.
+     *
+     * @param world the world of the box
+     * @param minX  the lowest block x coordinate
+     * @param minY  the lowest block y coordinate
+     * @param minZ  the lowest block z coordinate
+     * @param maxX  the highest block x coordinate
+     * @param maxY  the highest block y coordinate
+     * @param maxZ  the highest block z coordinate
+     * @return the keys of the damaged blocks
+     */
+    public List<Key> getDamagedBlocks(World world, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        final List<Key> keys = new ArrayList<Key>();
+        final LongHashMap<ChunkWrapper> chunks = world != null ? worlds.get(world.getUID()) : null;
+        if (chunks == null || chunks.isEmpty()) {
+            return keys;
+        }
+        final int minChunkX = minX >> 4, minChunkZ = minZ >> 4, maxChunkX = maxX >> 4, maxChunkZ = maxZ >> 4;
+        final long covered = (long) (maxChunkX - minChunkX + 1) * (maxChunkZ - minChunkZ + 1);
+        if (covered <= chunks.size()) {
+            // Small box, look its chunks up
+            for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+                for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                    final ChunkWrapper wrapper = chunks.get(chunkKey(chunkX, chunkZ));
+                    if (wrapper != null) {
+                        wrapper.collectKeys(minX, minY, minZ, maxX, maxY, maxZ, keys);
+                    }
+                }
+            }
         } else {
-            return getWrapper(location.getChunk()) != null ? getWrapper(location.getChunk()).getDurability(location) : 0;
+            // The box covers more chunks than are tracked, check the tracked ones
+            for (int slot = chunks.nextSlot(0); slot >= 0; slot = chunks.nextSlot(slot + 1)) {
+                final ChunkWrapper wrapper = chunks.valueAt(slot);
+                if (wrapper.getChunkX() >= minChunkX && wrapper.getChunkX() <= maxChunkX && wrapper.getChunkZ() >= minChunkZ && wrapper.getChunkZ() <= maxChunkZ) {
+                    wrapper.collectKeys(minX, minY, minZ, maxX, maxY, maxZ, keys);
+                }
+            }
         }
+        return keys;
+    }
+
+    /**
+     * Counts the damaged blocks and the damage done to them in every loaded chunk of a world. The chunks that
+     * are not loaded are left out, see {@link #getDamageSummary(World, DamageSummary.Callback)} to count them too.
+     *
+     * @param world the world to summarize
+     * @return the damage per loaded chunk and the totals of the loaded chunks
+     */
+    public DamageSummary getDamageSummary(World world) {
+        final LongHashMap<ChunkWrapper> chunks = world != null ? worlds.get(world.getUID()) : null;
+        final DamageSummary summary = new DamageSummary(world != null ? world.getName() : null, chunks != null ? chunks.size() : 0);
+        if (chunks != null) {
+            for (int slot = chunks.nextSlot(0); slot >= 0; slot = chunks.nextSlot(slot + 1)) {
+                chunks.valueAt(slot).summarize(summary);
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Counts the damaged blocks and the damage done to them in every chunk of a world, loaded or not. The loaded
+     * chunks are counted right away, the stored durabilities of the others are read on the chunk IO thread.
+     *
+     * @param world    the world to summarize
+     * @param callback the callback to hand the summary to on the server thread, once every chunk was counted
+     */
+    public void getDamageSummary(World world, DamageSummary.Callback callback) {
+        final LongHashMap<ChunkWrapper> chunks = worlds.get(world.getUID());
+        final DamageSummary summary = new DamageSummary(world.getName(), chunks != null ? chunks.size() : 0);
+        final LongHashMap<Boolean> counted = new LongHashMap<Boolean>();
+        if (chunks != null) {
+            for (int slot = chunks.nextSlot(0); slot >= 0; slot = chunks.nextSlot(slot + 1)) {
+                final ChunkWrapper wrapper = chunks.valueAt(slot);
+                // A loading chunk only holds the damage done on top of its file, count the file instead
+                if (!wrapper.isLoading()) {
+                    wrapper.summarize(summary);
+                    counted.put(chunks.keyAt(slot), Boolean.TRUE);
+                }
+            }
+        }
+        io.scan(new DamageScan(storage, summary, counted, callback));
+    }
+
+    /**
+     * Iterates the damaged blocks of every loaded chunk of a world, one chunk at a time, for exports that
+     * should not copy the whole world. The chunks that are not loaded are left out. Meant to be used on the
+     * server thread.
+     *
+     * @param world the world to iterate
+     * @return the iterator over the keys of the damaged blocks
+     */
+    public Iterator<Key> iterateDamagedBlocks(World world) {
+        final LongHashMap<ChunkWrapper> chunks = world != null ? worlds.get(world.getUID()) : null;
+        return new DamagedBlockIterator(chunks != null ? chunks.values(new ChunkWrapper[chunks.size()]) : new ChunkWrapper[0]);
     }
 
     /**
@@ -1245,7 +1482,8 @@ public class ChunkManager {
      */
     public void load() {
         loadDisabledWorlds();
-        chunks.clear();
+        worlds.clear();
+        io.replayJournal();
         for (World world : ObsidianDestroyer.getInstance().getServer().getWorlds()) {
             for (Chunk chunk : world.getLoadedChunks()) {
                 loadChunk(chunk);
@@ -1254,22 +1492,139 @@ public class ChunkManager {
     }
 
     /**
-     * Saves the chunk manager
+     * Saves the chunk manager. The chunks are written by the chunk IO thread, the save is in progress until
+     * they are all written.
+     *
+     * @return false if a save is already in progress
      */
     public boolean save() {
-        if (!doneSave) {
+        if (!saving.compareAndSet(false, true)) {
+            return false;
+        }
+        queueSave();
+        return true;
+    }
+
+    private void queueSave() {
+        final long started = System.currentTimeMillis();
+        io.mark();
+        for (LongHashMap<ChunkWrapper> chunks : worlds.values()) {
+            for (int slot = chunks.nextSlot(0); slot >= 0; slot = chunks.nextSlot(slot + 1)) {
+                if (chunks.valueAt(slot).isDirty()) {
+                    io.save(chunks.valueAt(slot).snapshot());
+                }
+            }
+        }
+        io.checkpoint(started, saving);
+        autosaveQueue.clear();
+        autosaveStarted = 0L;
+        lastAutosave = started;
+        worlds.clear();
+    }
+
+    /**
+     * Saves every changed chunk right away, keeping the chunks loaded. The save is in progress until the chunks
+     * are written by the chunk IO thread.
+     *
+     * @return false if a save is already in progress
+     */
+    public boolean saveChanged() {
+        if (!saving.compareAndSet(false, true)) {
             return false;
         }
-        doneSave = false;
-        for (String key : chunks.keySet()) {
-            ChunkWrapper w = chunks.get(key);
-            w.save(false, true);
+        final long started = System.currentTimeMillis();
+        io.mark();
+        for (LongHashMap<ChunkWrapper> chunks : worlds.values()) {
+            for (int slot = chunks.nextSlot(0); slot >= 0; slot = chunks.nextSlot(slot + 1)) {
+                final ChunkWrapper wrapper = chunks.valueAt(slot);
+                if (wrapper.isDirty() && !wrapper.isLoading()) {
+                    io.save(wrapper.snapshot());
+                }
+            }
         }
-        chunks.clear();
-        doneSave = true;
+        io.checkpoint(started, saving);
+        autosaveQueue.clear();
+        autosaveStarted = 0L;
+        lastAutosave = started;
         return true;
     }
 
+    /**
+     * Starts saving the changed chunks, spread over the next ticks
+     *
+     * @param settings the config settings of the tick
+     */
+    private void startAutosave(ConfigSnapshot settings) {
+        for (LongHashMap<ChunkWrapper> chunks : worlds.values()) {
+            for (int slot = chunks.nextSlot(0); slot >= 0; slot = chunks.nextSlot(slot + 1)) {
+                if (chunks.valueAt(slot).isDirty()) {
+                    autosaveQueue.add(chunks.valueAt(slot));
+                }
+            }
+        }
+        autosaveIndex = 0;
+        autosaveStarted = System.currentTimeMillis();
+        // The journal keeps the changes made from here on until the next autosave
+        io.mark();
+        continueAutosave(settings);
+    }
+
+    /**
+     * Queues the next changed chunks of the running autosave, within the per tick budget
+     *
+     * @param settings the config settings of the tick
+     */
+    private void continueAutosave(ConfigSnapshot settings) {
+        int budget = Math.max(1, settings.autosaveChunksPerTick);
+        while (budget > 0 && autosaveIndex < autosaveQueue.size()) {
+            final ChunkWrapper wrapper = autosaveQueue.get(autosaveIndex++);
+            // Unloaded chunks were saved when unloading, loading chunks have not journaled their changes yet
+            if (wrapper.isDirty() && !wrapper.isLoading() && getLoadedWrapper(wrapper.getWorldId(), wrapper.getChunkX(), wrapper.getChunkZ()) == wrapper) {
+                io.save(wrapper.snapshot());
+                budget--;
+            }
+        }
+        if (autosaveIndex >= autosaveQueue.size()) {
+            io.checkpoint(autosaveStarted);
+            autosaveQueue.clear();
+            autosaveStarted = 0L;
+            lastAutosave = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Applies the durability timers that are due in the loaded chunks
+     *
+     * @param settings the config settings of the tick
+     */
+    private void reapExpired(ConfigSnapshot settings) {
+        final long now = System.currentTimeMillis();
+        final boolean visible = settings.visibleRegeneration;
+        int healed = 0;
+        for (LongHashMap<ChunkWrapper> chunks : worlds.values()) {
+            for (int slot = chunks.nextSlot(0); slot >= 0; slot = chunks.nextSlot(slot + 1)) {
+                final ChunkWrapper wrapper = chunks.valueAt(slot);
+                if (!wrapper.isLoading() && wrapper.getNextExpiry() < now) {
+                    healed += wrapper.reap(now, visible);
+                }
+            }
+        }
+        if (healed > 0) {
+            ObsidianDestroyer.vdebug("Reset the durability timers of " + healed + " blocks.");
+        }
+    }
+
+    /**
+     * Saves the chunk manager and waits for every chunk to be written
+     */
+    public void shutdown() {
+        explosions.shutdown();
+        // Save even if a save is in progress, the chunks are unloaded with the plugin
+        saving.set(true);
+        queueSave();
+        io.shutdown();
+    }
+
     /**
      * Loads a chunk into the chunk manager
      *
@@ -1280,10 +1635,9 @@ public class ChunkManager {
             return;
         }
 
-        final String str = chunkToString(chunk);
-        final ChunkWrapper wrapper = new ChunkWrapper(chunk, durabilityDir);
-        wrapper.load();
-        chunks.put(str, wrapper);
+        final ChunkWrapper wrapper = new ChunkWrapper(chunk, storage, journal);
+        io.load(wrapper);
+        getChunks(chunk.getWorld().getUID()).put(chunkKey(chunk.getX(), chunk.getZ()), wrapper);
     }
 
     /**
@@ -1296,14 +1650,18 @@ public class ChunkManager {
             return;
         }
 
-        final String key = chunkToString(chunk);
-        final ChunkWrapper wrapper = chunks.get(key);
-        if (wrapper != null) {
-            wrapper.save(false, false);
-            chunks.remove(key);
+        final LongHashMap<ChunkWrapper> chunks = worlds.get(chunk.getWorld().getUID());
+        if (chunks == null) {
+            return;
+        }
+        final ChunkWrapper wrapper = chunks.remove(chunkKey(chunk.getX(), chunk.getZ()));
+        // Unchanged chunks match their file, a loading chunk is dirty if it holds changes to merge with its file
+        if (wrapper != null && wrapper.isDirty()) {
+            io.save(wrapper.snapshot());
         }
     }
 
+    @Deprecated
     public String chunkToString(Chunk chunk) {
         if (chunk == null) {
             return "";
@@ -1312,6 +1670,49 @@ public class ChunkManager {
         return chunk.getX() + "." + chunk.getZ() + "." + chunk.getWorld().getName();
     }
 
+    /**
+     * Packs chunk coordinates into the key used by the per world chunk maps
+     *
+     * @param chunkX the chunk x coordinate
+     * @param chunkZ the chunk z coordinate
+     * @return the packed chunk key
+     */
+    public static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Gets the chunk map of a world, creating it if needed
+     *
+     * @param world the world UUID
+     * @return the chunk map of the world
+     */
+    private LongHashMap<ChunkWrapper> getChunks(UUID world) {
+        LongHashMap<ChunkWrapper> chunks = worlds.get(world);
+        if (chunks == null) {
+            chunks = new LongHashMap<ChunkWrapper>();
+            worlds.put(world, chunks);
+        }
+        return chunks;
+    }
+
+    /**
+     * Gets a chunk wrapper if it is loaded in the chunk manager
+     *
+     * @param world  the world UUID
+     * @param chunkX the chunk x coordinate
+     * @param chunkZ the chunk z coordinate
+     * @return the loaded ChunkWrapper or null
+     */
+    public ChunkWrapper getLoadedWrapper(UUID world, int chunkX, int chunkZ) {
+        final LongHashMap<ChunkWrapper> chunks = worlds.get(world);
+        return chunks != null ? chunks.get(chunkKey(chunkX, chunkZ)) : null;
+    }
+
+    private ChunkWrapper getLoadedWrapper(BlockId block) {
+        return getLoadedWrapper(block.world, block.getChunkX(), block.getChunkZ());
+    }
+
     /**
      * Adds a block to the chunk
      *
@@ -1323,12 +1724,7 @@ public class ChunkManager {
             return;
         }
 
-        final String c = chunkToString(block.getChunk());
-        if (!chunks.containsKey(c)) {
-            loadChunk(block.getChunk());
-        }
-        final ChunkWrapper chunk = chunks.get(c);
-        chunk.addBlock(damage, block);
+        addBlock(BlockId.of(block), damage, 0L, DurabilityStore.material(block.getTypeId(), block.getData()));
     }
 
     /**
@@ -1343,13 +1739,38 @@ public class ChunkManager {
             return;
         }
 
-        final String c = chunkToString(block.getChunk());
-        if (!chunks.containsKey(c)) {
-            loadChunk(block.getChunk());
+        addBlock(BlockId.of(block), damage, System.currentTimeMillis() + time, DurabilityStore.material(block.getTypeId(), block.getData()));
+    }
+
+    /**
+     * Adds a block to the chunk
+     *
+     * @param block  the identity of the block to be added
+     * @param damage the damage value of the block
+     * @param time   the absolute time value of the block, 0 for none
+     */
+    public void addBlock(BlockId block, int damage, long time) {
+        addBlock(block, damage, time, DurabilityStore.UNKNOWN_MATERIAL);
+    }
+
+    /**
+     * Adds a block to the chunk
+     *
+     * @param block    the identity of the block to be added
+     * @param damage   the damage value of the block
+     * @param time     the absolute time value of the block, 0 for none
+     * @param material the packed material of the block
+     * @see DurabilityStore#material(int, int)
+     */
+    public void addBlock(BlockId block, int damage, long time, int material) {
+        if (block == null) {
+            return;
+        }
+
+        final ChunkWrapper chunk = getWrapper(block);
+        if (chunk != null) {
+            chunk.addBlock(damage, time, block, material);
         }
-        final ChunkWrapper chunk = chunks.get(c);
-        time += System.currentTimeMillis();
-        chunk.addBlockTimer(damage, time, block);
     }
 
     /**
@@ -1362,7 +1783,7 @@ public class ChunkManager {
             return;
         }
 
-        removeLocation(block.getLocation());
+        removeBlock(BlockId.of(block));
     }
 
     /**
@@ -1375,10 +1796,22 @@ public class ChunkManager {
             return;
         }
 
-        String c = chunkToString(location.getChunk());
-        if (chunks.containsKey(c)) {
-            ChunkWrapper chunk = chunks.get(c);
-            chunk.removeKey(location);
+        removeBlock(BlockId.of(location));
+    }
+
+    /**
+     * Remove a block from the chunk
+     *
+     * @param block the identity of the block to be removed
+     */
+    public void removeBlock(BlockId block) {
+        if (block == null) {
+            return;
+        }
+
+        final ChunkWrapper chunk = getLoadedWrapper(block);
+        if (chunk != null) {
+            chunk.removeKey(block);
         }
     }
 
@@ -1389,7 +1822,7 @@ public class ChunkManager {
      * @return true if block found within chunk
      */
     public boolean contains(Block block) {
-        return block != null && contains(block.getLocation());
+        return block != null && contains(BlockId.of(block));
     }
 
     /**
@@ -1399,13 +1832,40 @@ public class ChunkManager {
      * @return true if location found within chunk
      */
     public boolean contains(Location location) {
-        if (location == null) {
+        return location != null && contains(BlockId.of(location));
+    }
+
+    /**
+     * Does the chunk contain this block
+     *
+     * @param block the identity of the block to check the chunk for
+     * @return true if the block is found within chunk
+     */
+    public boolean contains(BlockId block) {
+        if (block == null) {
+            return false;
+        }
+        final ChunkWrapper chunk = getLoadedWrapper(block);
+
+        return chunk != null && chunk.contains(block);
+    }
+
+    /**
+     * Does the chunk contain the block at these coordinates
+     *
+     * @param world the world of the block
+     * @param x     the block x coordinate
+     * @param y     the block y coordinate
+     * @param z     the block z coordinate
+     * @return true if the block is found within chunk
+     */
+    public boolean contains(World world, int x, int y, int z) {
+        if (world == null) {
             return false;
         }
-        String c = chunkToString(location.getChunk());
-        ChunkWrapper chunk = chunks.get(c);
+        final ChunkWrapper chunk = getLoadedWrapper(world.getUID(), x >> 4, z >> 4);
 
-        return chunk != null && chunk.contains(location);
+        return chunk != null && chunk.contains(DurabilityStore.pack(x, y, z));
     }
 
     /**
@@ -1418,20 +1878,52 @@ public class ChunkManager {
         if (chunk == null) {
             return null;
         }
-        String c = chunkToString(chunk);
-        if (!chunks.containsKey(c)) {
-            loadChunk(chunk);
+        return getWrapper(chunk.getWorld(), chunk.getX() << 4, chunk.getZ() << 4);
+    }
+
+    /**
+     * Gets the chunk wrapper of the chunk holding a block
+     *
+     * @param block the identity of the block to get the wrapper for
+     * @return the ChunkWrapper that holds the block, or null if its world is not loaded
+     */
+    public ChunkWrapper getWrapper(BlockId block) {
+        final ChunkWrapper chunk = getLoadedWrapper(block);
+        if (chunk != null) {
+            return chunk;
+        }
+        return getWrapper(block.getWorld(), block.getX(), block.getZ());
+    }
+
+    /**
+     * Gets the chunk wrapper of the chunk holding the block coordinates, loading it if needed
+     *
+     * @param world  the world of the block
+     * @param blockX the block x coordinate
+     * @param blockZ the block z coordinate
+     * @return the ChunkWrapper that holds the coordinates, or null if the world is null
+     */
+    public ChunkWrapper getWrapper(World world, int blockX, int blockZ) {
+        if (world == null) {
+            return null;
+        }
+        final int chunkX = blockX >> 4;
+        final int chunkZ = blockZ >> 4;
+        ChunkWrapper chunk = getLoadedWrapper(world.getUID(), chunkX, chunkZ);
+        if (chunk == null) {
+            loadChunk(world.getChunkAt(chunkX, chunkZ));
+            chunk = getLoadedWrapper(world.getUID(), chunkX, chunkZ);
         }
-        return chunks.get(c);
+        return chunk;
     }
 
     /**
-     * Determines if the save has been completed
+     * Determines if the save has been completed, including the writes on the chunk IO thread
      *
      * @return true if completed, false otherwise
      */
     public boolean isSaveDone() {
-        return this.doneSave;
+        return !saving.get();
     }
 
     /**
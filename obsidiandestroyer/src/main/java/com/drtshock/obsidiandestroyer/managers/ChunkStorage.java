@@ -0,0 +1,416 @@
+package com.drtshock.obsidiandestroyer.managers;
+
+import com.drtshock.obsidiandestroyer.ObsidianDestroyer;
+import com.drtshock.obsidiandestroyer.datatypes.DamageSummary;
+import com.drtshock.obsidiandestroyer.datatypes.DurabilityStore;
+import com.drtshock.obsidiandestroyer.datatypes.io.ODRFile;
+import com.drtshock.obsidiandestroyer.datatypes.io.ODRRegionFile;
+import com.drtshock.obsidiandestroyer.util.LongHashMap;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+
+/**
+ * Stores chunk durabilities in region files, one directory per world.
+ * <p/>
+ * Chunks saved in the old one file per chunk format are moved into their region the first time they are read
+ * or written. Region files are kept open while in use, and every method is synchronized so the chunk IO
+ * thread and the server thread never touch a region at the same time.
+ */
+class ChunkStorage {
+
+    private static final int MAX_OPEN_REGIONS = 32;
+
+    private final File durabilityDir;
+    private final Map<File, ODRRegionFile> regions = new LinkedHashMap<File, ODRRegionFile>(16, 0.75f, true);
+    private int chunksWritten = 0;
+    private long bytesWritten = 0;
+
+    ChunkStorage(File durabilityDir) {
+        this.durabilityDir = durabilityDir;
+    }
+
+    /**
+     * Reads the durabilities of a chunk
+     *
+     * @param world  the name of the world of the chunk
+     * @param chunkX the chunk x coordinate
+     * @param chunkZ the chunk z coordinate
+     * @return the stored durabilities, or null if there are none
+     */
+    synchronized DurabilityStore read(String world, int chunkX, int chunkZ) {
+        try {
+            migrate(world, chunkX, chunkZ);
+            File file = getRegionFile(world, chunkX, chunkZ);
+            if (!file.exists()) {
+                return null;
+            }
+            ByteBuffer data = getRegion(file).read(chunkX, chunkZ);
+            if (data == null) {
+                return null;
+            }
+            DurabilityStore durabilities = new DurabilityStore(data.remaining() / ODRFile.RECORD_BYTES);
+            ODRFile.decode(data, durabilities);
+            return durabilities;
+        } catch (IOException e) {
+            ObsidianDestroyer.LOG.log(Level.SEVERE, "Failed loading chunk durabilities! {0} {1} {2}", new Object[]{world, chunkX, chunkZ});
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Writes the durabilities of a chunk, removing its section if there is nothing to store
+     *
+     * @param world        the name of the world of the chunk
+     * @param chunkX       the chunk x coordinate
+     * @param chunkZ       the chunk z coordinate
+     * @param durabilities the durabilities to write
+     */
+    synchronized void write(String world, int chunkX, int chunkZ, DurabilityStore durabilities) {
+        File legacy = getLegacyFile(world, chunkX, chunkZ);
+        if (legacy.exists() && !legacy.delete()) {
+            ObsidianDestroyer.LOG.log(Level.WARNING, "Failed to remove file {0}", legacy.getName());
+        }
+        File file = getRegionFile(world, chunkX, chunkZ);
+        try {
+            if (durabilities.size() <= 0) {
+                if (file.exists()) {
+                    ODRRegionFile region = getRegion(file);
+                    region.delete(chunkX, chunkZ);
+                    if (region.isEmpty()) {
+                        closeRegion(file);
+                        file.delete();
+                    }
+                }
+                return;
+            }
+            ByteBuffer data = ODRFile.encode(durabilities, chunkX, chunkZ);
+            bytesWritten += data.remaining();
+            chunksWritten++;
+            getRegion(file).write(chunkX, chunkZ, data);
+        } catch (IOException e) {
+            ObsidianDestroyer.LOG.log(Level.SEVERE, "Failed saving chunk durabilities! {0} {1} {2}", new Object[]{world, chunkX, chunkZ});
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Gets the amount of chunks written since the last {@link #resetWriteStats()}
+     *
+     * @return the amount of chunks written
+     */
+    synchronized int getChunksWritten() {
+        return chunksWritten;
+    }
+
+    /**
+     * Gets the amount of bytes written since the last {@link #resetWriteStats()}
+     *
+     * @return the amount of bytes written
+     */
+    synchronized long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    synchronized void resetWriteStats() {
+        chunksWritten = 0;
+        bytesWritten = 0;
+    }
+
+    /**
+     * Lists the files holding stored durabilities
+     *
+     * @param world the name of the world to list, or null for every world
+     * @return the region files and the files of the old one file per chunk format
+     */
+    synchronized List<File> listFiles(String world) {
+        final List<File> result = new ArrayList<File>();
+        final File[] files = durabilityDir.listFiles();
+        if (files == null) {
+            return result;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                if (world != null && !file.getName().equals(world)) {
+                    continue;
+                }
+                final File[] regionFiles = file.listFiles();
+                if (regionFiles == null) {
+                    continue;
+                }
+                for (File region : regionFiles) {
+                    if (region.getName().endsWith(".odr")) {
+                        result.add(region);
+                    }
+                }
+            } else if (file.getName().endsWith(".odr") && (world == null || world.equals(getLegacyWorld(file)))) {
+                result.add(file);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Lists the files holding the stored durabilities of an area of chunks
+     *
+     * @param world     the name of the world of the area
+     * @param minChunkX the lowest chunk x coordinate
+     * @param minChunkZ the lowest chunk z coordinate
+     * @param maxChunkX the highest chunk x coordinate
+     * @param maxChunkZ the highest chunk z coordinate
+     * @return the region files overlapping the area and the files of the old format inside it
+     */
+    synchronized List<File> listFiles(String world, int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+        final List<File> result = new ArrayList<File>();
+        final int minRegionX = ODRRegionFile.regionCoord(minChunkX), minRegionZ = ODRRegionFile.regionCoord(minChunkZ);
+        final int maxRegionX = ODRRegionFile.regionCoord(maxChunkX), maxRegionZ = ODRRegionFile.regionCoord(maxChunkZ);
+        // List the world once instead of looking up every region of the area, region files are named r.regionX.regionZ.odr
+        final File[] regionFiles = new File(durabilityDir, world).listFiles();
+        if (regionFiles != null) {
+            for (File region : regionFiles) {
+                final String[] parts = region.getName().split("\\.");
+                if (parts.length != 4 || !parts[0].equals("r") || !parts[3].equals("odr")) {
+                    continue;
+                }
+                try {
+                    final int regionX = Integer.parseInt(parts[1]), regionZ = Integer.parseInt(parts[2]);
+                    if (regionX >= minRegionX && regionX <= maxRegionX && regionZ >= minRegionZ && regionZ <= maxRegionZ) {
+                        result.add(region);
+                    }
+                } catch (NumberFormatException e) {
+                    // Not a region file
+                }
+            }
+        }
+        final File[] files = durabilityDir.listFiles();
+        if (files == null) {
+            return result;
+        }
+        for (File file : files) {
+            if (!file.isDirectory() && file.getName().endsWith(".odr") && world.equals(getLegacyWorld(file))) {
+                final String[] parts = file.getName().split("\\.", 3);
+                try {
+                    final int chunkX = Integer.parseInt(parts[0]), chunkZ = Integer.parseInt(parts[1]);
+                    if (chunkX >= minChunkX && chunkX <= maxChunkX && chunkZ >= minChunkZ && chunkZ <= maxChunkZ) {
+                        result.add(file);
+                    }
+                } catch (NumberFormatException e) {
+                    // Not a chunk file
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes a file of stored durabilities
+     *
+     * @param file the file to remove
+     * @return true if the file was removed
+     */
+    synchronized boolean delete(File file) {
+        closeRegion(file);
+        if (file.exists() && !file.delete()) {
+            ObsidianDestroyer.LOG.log(Level.WARNING, "Failed to remove file {0}", file.getName());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Removes the stored durabilities of an area of chunks from a file, removing the file once it is empty
+     *
+     * @param file      a file listed for the area
+     * @param minChunkX the lowest chunk x coordinate
+     * @param minChunkZ the lowest chunk z coordinate
+     * @param maxChunkX the highest chunk x coordinate
+     * @param maxChunkZ the highest chunk z coordinate
+     * @return the amount of chunks removed
+     */
+    synchronized int delete(File file, int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+        if (durabilityDir.equals(file.getParentFile())) {
+            // Files of the old format only hold a single chunk of the area
+            return delete(file) ? 1 : 0;
+        }
+        // Region files are named r.regionX.regionZ.odr, only visit the chunks of the area inside the region
+        final String[] parts = file.getName().split("\\.");
+        int removed = 0;
+        try {
+            final int regionX = Integer.parseInt(parts[1]), regionZ = Integer.parseInt(parts[2]);
+            final ODRRegionFile region = getRegion(file);
+            for (int chunkX = Math.max(minChunkX, regionX << 5); chunkX <= Math.min(maxChunkX, (regionX << 5) + 31); chunkX++) {
+                for (int chunkZ = Math.max(minChunkZ, regionZ << 5); chunkZ <= Math.min(maxChunkZ, (regionZ << 5) + 31); chunkZ++) {
+                    if (region.hasChunk(chunkX, chunkZ)) {
+                        region.delete(chunkX, chunkZ);
+                        removed++;
+                    }
+                }
+            }
+            if (region.isEmpty()) {
+                delete(file);
+            }
+        } catch (NumberFormatException e) {
+            ObsidianDestroyer.LOG.log(Level.WARNING, "Unknown region file {0}", file.getName());
+        } catch (IOException e) {
+            ObsidianDestroyer.LOG.log(Level.SEVERE, "Failed removing chunk durabilities from {0}", file.getName());
+            e.printStackTrace();
+        }
+        return removed;
+    }
+
+    /**
+     * Adds the damage stored in a file to a summary. Chunks that were already counted are skipped, and the
+     * chunks read are added to them, so a chunk moved out of a file of the old format is only counted once.
+     *
+     * @param file    a file listed for the world of the summary
+     * @param summary the summary to add to
+     * @param counted the keys of the chunks already counted
+     * @param now     the current time, blocks whose timer ran out before it are skipped
+     */
+    synchronized void summarize(File file, DamageSummary summary, LongHashMap<Boolean> counted, long now) {
+        if (durabilityDir.equals(file.getParentFile())) {
+            // Files of the old format are named chunkX.chunkZ.world.odr, reading them moves them into their region
+            final String[] parts = file.getName().split("\\.", 3);
+            try {
+                final int chunkX = Integer.parseInt(parts[0]), chunkZ = Integer.parseInt(parts[1]);
+                if (counted.put(ChunkManager.chunkKey(chunkX, chunkZ), Boolean.TRUE) == null) {
+                    final DurabilityStore durabilities = read(summary.getWorld(), chunkX, chunkZ);
+                    if (durabilities != null) {
+                        ChunkWrapper.summarize(durabilities, chunkX, chunkZ, now, summary);
+                    }
+                }
+            } catch (NumberFormatException e) {
+                // Not a chunk file
+            }
+            return;
+        }
+        // Region files are named r.regionX.regionZ.odr
+        final String[] parts = file.getName().split("\\.");
+        int chunkX = 0, chunkZ = 0;
+        try {
+            final int regionX = Integer.parseInt(parts[1]), regionZ = Integer.parseInt(parts[2]);
+            final ODRRegionFile region = getRegion(file);
+            for (chunkX = regionX << 5; chunkX <= (regionX << 5) + 31; chunkX++) {
+                for (chunkZ = regionZ << 5; chunkZ <= (regionZ << 5) + 31; chunkZ++) {
+                    if (!region.hasChunk(chunkX, chunkZ) || counted.put(ChunkManager.chunkKey(chunkX, chunkZ), Boolean.TRUE) != null) {
+                        continue;
+                    }
+                    final ByteBuffer data = region.read(chunkX, chunkZ);
+                    if (data == null) {
+                        continue;
+                    }
+                    final DurabilityStore durabilities = new DurabilityStore(data.remaining() / ODRFile.RECORD_BYTES);
+                    ODRFile.decode(data, durabilities);
+                    ChunkWrapper.summarize(durabilities, chunkX, chunkZ, now, summary);
+                }
+            }
+        } catch (NumberFormatException e) {
+            ObsidianDestroyer.LOG.log(Level.WARNING, "Unknown region file {0}", file.getName());
+        } catch (IOException e) {
+            ObsidianDestroyer.LOG.log(Level.SEVERE, "Failed loading chunk durabilities! {0} {1} {2}", new Object[]{summary.getWorld(), chunkX, chunkZ});
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Forces every open region file onto the disk
+     */
+    synchronized void flush() {
+        for (ODRRegionFile region : regions.values()) {
+            try {
+                region.force();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Closes every open region file
+     */
+    synchronized void close() {
+        Iterator<ODRRegionFile> it = regions.values().iterator();
+        while (it.hasNext()) {
+            closeQuietly(it.next());
+            it.remove();
+        }
+    }
+
+    /**
+     * Moves a chunk stored in the old one file per chunk format into its region
+     */
+    private void migrate(String world, int chunkX, int chunkZ) throws IOException {
+        File legacy = getLegacyFile(world, chunkX, chunkZ);
+        if (!legacy.exists()) {
+            return;
+        }
+        File file = getRegionFile(world, chunkX, chunkZ);
+        if (!file.exists() || !getRegion(file).hasChunk(chunkX, chunkZ)) {
+            DurabilityStore durabilities = new DurabilityStore((int) (legacy.length() / ODRFile.RECORD_BYTES));
+            ODRFile odr = new ODRFile();
+            odr.prepare(legacy, false);
+            try {
+                odr.readAll(durabilities);
+            } finally {
+                odr.close();
+            }
+            // Also removes the old file
+            write(world, chunkX, chunkZ, durabilities);
+        } else if (!legacy.delete()) {
+            ObsidianDestroyer.LOG.log(Level.WARNING, "Failed to remove file {0}", legacy.getName());
+        }
+    }
+
+    private File getRegionFile(String world, int chunkX, int chunkZ) {
+        return new File(new File(durabilityDir, world), ODRRegionFile.fileName(ODRRegionFile.regionCoord(chunkX), ODRRegionFile.regionCoord(chunkZ)));
+    }
+
+    // Files of the old format are named chunkX.chunkZ.world.odr
+    private static String getLegacyWorld(File file) {
+        final String[] parts = file.getName().split("\\.", 3);
+        return parts.length == 3 ? parts[2].substring(0, parts[2].length() - ".odr".length()) : null;
+    }
+
+    private File getLegacyFile(String world, int chunkX, int chunkZ) {
+        return new File(durabilityDir, chunkX + "." + chunkZ + "." + world + ".odr");
+    }
+
+    private ODRRegionFile getRegion(File file) throws IOException {
+        ODRRegionFile region = regions.get(file);
+        if (region == null) {
+            file.getParentFile().mkdirs();
+            region = new ODRRegionFile(file);
+            regions.put(file, region);
+            if (regions.size() > MAX_OPEN_REGIONS) {
+                Iterator<ODRRegionFile> it = regions.values().iterator();
+                closeQuietly(it.next());
+                it.remove();
+            }
+        }
+        return region;
+    }
+
+    private void closeRegion(File file) {
+        ODRRegionFile region = regions.remove(file);
+        if (region != null) {
+            closeQuietly(region);
+        }
+    }
+
+    private static void closeQuietly(ODRRegionFile region) {
+        try {
+            region.force();
+            region.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -1,40 +1,51 @@
 package com.drtshock.obsidiandestroyer.managers;
 
-import com.drtshock.obsidiandestroyer.ObsidianDestroyer;
+import com.drtshock.obsidiandestroyer.datatypes.BlockId;
+import com.drtshock.obsidiandestroyer.datatypes.ConfigSnapshot;
+import com.drtshock.obsidiandestroyer.datatypes.DamageSummary;
+import com.drtshock.obsidiandestroyer.datatypes.DurabilityStore;
+import com.drtshock.obsidiandestroyer.datatypes.ExpiryQueue;
 import com.drtshock.obsidiandestroyer.datatypes.Key;
-import com.drtshock.obsidiandestroyer.datatypes.io.ODRFile;
 import org.bukkit.Bukkit;
 import org.bukkit.Chunk;
+import org.bukkit.Effect;
 import org.bukkit.Location;
+import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.block.Block;
 
-import java.io.File;
-import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
-import java.util.logging.Level;
+import java.util.UUID;
 
 public class ChunkWrapper {
 
     private final int chunkX, chunkZ;
     private final String world;
-    private final File durabilitiesDir;
-    private ConcurrentMap<Integer, Key> durabilities = new ConcurrentHashMap<Integer, Key>();
+    private final UUID worldId;
+    private final ChunkStorage storage;
+    private final DurabilityJournal journal;
+    private DurabilityStore durabilities = new DurabilityStore();
+    // Blocks removed while the stored durabilities are still being read, null when loaded
+    private DurabilityStore pendingRemovals;
+    private boolean discardLoad = false;
+    private boolean dirty = false;
+    // Durability timers of the tracked blocks, reaped once they are due
+    private final ExpiryQueue expiries = new ExpiryQueue();
 
     /**
      * Wraps a chunk with a ChunkWrapper
      *
-     * @param chunk           the chunk to wrap
-     * @param durabilitiesDir the directory to store this wrapper in
+     * @param chunk   the chunk to wrap
+     * @param storage the storage this wrapper is saved in
+     * @param journal the journal changes to this wrapper are recorded in
      */
-    ChunkWrapper(Chunk chunk, File durabilitiesDir) {
+    ChunkWrapper(Chunk chunk, ChunkStorage storage, DurabilityJournal journal) {
         this.chunkX = chunk.getX();
         this.chunkZ = chunk.getZ();
         this.world = chunk.getWorld().getName();
-        this.durabilitiesDir = durabilitiesDir;
+        this.worldId = chunk.getWorld().getUID();
+        this.storage = storage;
+        this.journal = journal;
     }
 
     /**
@@ -46,47 +57,91 @@ public class ChunkWrapper {
         return world;
     }
 
+    /**
+     * Gets the world UUID
+     *
+     * @return the world UUID
+     */
+    public UUID getWorldId() {
+        return worldId;
+    }
+
+    /**
+     * Gets the Key of a block
+     *
+     * @param block the identity of the block
+     * @return the key of the block, or null if the block is not tracked
+     */
+    public Key getKey(BlockId block) {
+        final int representation = block.getLocalKey();
+        if (!durabilities.contains(representation)) {
+            return null;
+        }
+        return new Key(block, world, durabilities.getDurability(representation), durabilities.getTime(representation));
+    }
+
     /**
      * Gets the Key of the location
      *
      * @param location the location to get the key from
-     * @return the key from the location
+     * @return the key from the location, or null if the location is not tracked
      */
     public Key getKey(Location location) {
-        final int prime = 31;
-        int rep = 1;
-        rep = prime * rep + location.hashCode();
-        return durabilities.get(rep);
+        final int representation = DurabilityStore.pack(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+        if (!durabilities.contains(representation)) {
+            return null;
+        }
+        return new Key(world, location.getBlockX(), location.getBlockY(), location.getBlockZ(), durabilities.getDurability(representation), durabilities.getTime(representation));
     }
 
     /**
-     * Gets the durability of a hash representation
+     * Gets the durability of a packed local representation
      *
-     * @param representation the hash representation to check
-     * @return the durability of the hash representation
+     * @param representation the packed local representation to check
+     * @return the durability of the representation
      */
     public int getDurability(int representation) {
-        return durabilities.get(representation).durabilityAmount;
+        return durabilities.getDurability(representation);
     }
 
     /**
-     * Gets the durability time of a hash representation
+     * Gets the durability time of a packed local representation
      *
-     * @param representation the hash representation to check
-     * @return the durability time of the hash representation
+     * @param representation the packed local representation to check
+     * @return the durability time of the representation
      */
     public long getDurabilityTime(int representation) {
-        return durabilities.get(representation).durabilityTime;
+        return durabilities.getTime(representation);
     }
 
     /**
-     * Gets the durability time of the location
+     * Gets the durability of a block
+     *
+     * @param block the identity of the block
+     * @return the durability of the block
+     */
+    public int getDurability(BlockId block) {
+        return durabilities.getDurability(block.getLocalKey());
+    }
+
+    /**
+     * Gets the durability time of a block
+     *
+     * @param block the identity of the block
+     * @return the durability time of the block
+     */
+    public long getDurabilityTime(BlockId block) {
+        return durabilities.getTime(block.getLocalKey());
+    }
+
+    /**
+     * Gets the durability of the location
      *
      * @param location the location to check
      * @return the durability of the location
      */
     public int getDurability(Location location) {
-        return getKey(location).durabilityAmount;
+        return durabilities.getDurability(DurabilityStore.pack(location.getBlockX(), location.getBlockY(), location.getBlockZ()));
     }
 
     /**
@@ -96,7 +151,7 @@ public class ChunkWrapper {
      * @return the durability time of the location
      */
     public long getDurabilityTime(Location location) {
-        return getKey(location).durabilityTime;
+        return durabilities.getTime(DurabilityStore.pack(location.getBlockX(), location.getBlockY(), location.getBlockZ()));
     }
 
     /**
@@ -106,8 +161,7 @@ public class ChunkWrapper {
      * @param block      the block to add
      */
     public void addBlock(int durability, Block block) {
-        Key key = new Key(block.getLocation(), durability);
-        durabilities.put(key.hashCode(), key);
+        put(DurabilityStore.pack(block.getX(), block.getY(), block.getZ()), durability, 0L, DurabilityStore.material(block.getTypeId(), block.getData()));
     }
 
     /**
@@ -118,8 +172,46 @@ public class ChunkWrapper {
      * @param block      the block to be added
      */
     public void addBlockTimer(int durability, long time, Block block) {
-        Key key = new Key(block.getLocation(), durability, time);
-        durabilities.put(key.hashCode(), key);
+        put(DurabilityStore.pack(block.getX(), block.getY(), block.getZ()), durability, time, DurabilityStore.material(block.getTypeId(), block.getData()));
+    }
+
+    /**
+     * Adds a block with a timer to the chunk
+     *
+     * @param durability the damage done to the block
+     * @param time       the time value of the block, 0 for none
+     * @param block      the identity of the block to be added
+     */
+    public void addBlock(int durability, long time, BlockId block) {
+        put(block.getLocalKey(), durability, time, DurabilityStore.UNKNOWN_MATERIAL);
+    }
+
+    /**
+     * Adds a block with a timer to the chunk
+     *
+     * @param durability the damage done to the block
+     * @param time       the time value of the block, 0 for none
+     * @param block      the identity of the block to be added
+     * @param material   the packed material of the block
+     * @see DurabilityStore#material(int, int)
+     */
+    public void addBlock(int durability, long time, BlockId block, int material) {
+        put(block.getLocalKey(), durability, time, material);
+    }
+
+    private void put(int representation, int durability, long time, int material) {
+        durabilities.put(representation, durability, time, material);
+        dirty = true;
+        if (time > 0L) {
+            expiries.add(time, representation, time);
+            if (expiries.size() > (durabilities.size() << 1) + 64) {
+                // Mostly restarted timers, drop the stale entries
+                rebuildExpiries();
+            }
+        }
+        if (pendingRemovals == null) {
+            journal.put(world, chunkX, chunkZ, representation, durability, time, durabilities.getMaterial(representation));
+        }
     }
 
     /**
@@ -128,7 +220,7 @@ public class ChunkWrapper {
      * @param block the block to remove
      */
     public void removeKey(Block block) {
-        removeKey(block.getLocation());
+        removeKey(DurabilityStore.pack(block.getX(), block.getY(), block.getZ()));
     }
 
     /**
@@ -137,17 +229,32 @@ public class ChunkWrapper {
      * @param location the location to remove
      */
     public void removeKey(Location location) {
-        Key key = new Key(location, 0, 0);
-        durabilities.remove(key.hashCode());
+        removeKey(DurabilityStore.pack(location.getBlockX(), location.getBlockY(), location.getBlockZ()));
     }
 
     /**
      * Removes a key from the chunk
      *
-     * @param representation the hash representation to remove
+     * @param block the identity of the block to remove
+     */
+    public void removeKey(BlockId block) {
+        removeKey(block.getLocalKey());
+    }
+
+    /**
+     * Removes a key from the chunk
+     *
+     * @param representation the packed local representation to remove
      */
     public void removeKey(int representation) {
-        durabilities.remove(representation);
+        boolean removed = durabilities.remove(representation);
+        if (pendingRemovals != null) {
+            pendingRemovals.put(representation, 0, 0L);
+            dirty = true;
+        } else if (removed) {
+            journal.remove(world, chunkX, chunkZ, representation);
+            dirty = true;
+        }
     }
 
     /**
@@ -155,6 +262,14 @@ public class ChunkWrapper {
      */
     public void removeKeys() {
         durabilities.clear();
+        expiries.clear();
+        journal.clear(world, chunkX, chunkZ);
+        dirty = true;
+        if (pendingRemovals != null) {
+            // Stored durabilities that are still being read are dropped as well
+            discardLoad = true;
+            pendingRemovals.clear();
+        }
     }
 
     /**
@@ -164,55 +279,232 @@ public class ChunkWrapper {
      * @return true if the location is found within the chunk
      */
     public boolean contains(Location location) {
-        final int prime = 31;
-        int rep = 1;
-        rep = prime * rep + location.hashCode();
-        return contains(rep);
+        return contains(DurabilityStore.pack(location.getBlockX(), location.getBlockY(), location.getBlockZ()));
+    }
+
+    /**
+     * Does the chunk contains this block
+     *
+     * @param block the identity of the block to check the chunk for
+     * @return true if the block is found within the chunk
+     */
+    public boolean contains(BlockId block) {
+        return durabilities.contains(block.getLocalKey());
     }
 
     /**
      * Does the chunk contains this location key
      *
-     * @param representation the hash representation to check the chunk for
-     * @return true if the hash representation is found within the chunk
+     * @param representation the packed local representation to check the chunk for
+     * @return true if the representation is found within the chunk
      */
     public boolean contains(int representation) {
-        return durabilities.containsKey(representation);
+        return durabilities.contains(representation);
     }
 
     /**
-     * Saves the chunk information
+     * Gets the amount of tracked blocks in the chunk
      *
-     * @param load  set to true to load data after saving
-     * @param clear set to true to clear self after saving
+     * @return the amount of tracked blocks
      */
-    public void save(boolean load, boolean clear) {
-        File durabilityFile = new File(durabilitiesDir, chunkX + "." + chunkZ + "." + world + ".odr");
-        // Used for sane file creation
-        boolean noDuraFile = false;
-        if (this.durabilities.size() > 0) {
-            durabilities.remove(expiredDurabilities());
+    public int size() {
+        return durabilities.size();
+    }
+
+    /**
+     * Adds the keys of the damaged blocks inside a box to a list, reading only the tracked durabilities.
+     * Blocks whose durability timer has run out are skipped.
+     *
+     * @param minX the lowest block x coordinate
+     * @param minY the lowest block y coordinate
+     * @param minZ the lowest block z coordinate
+     * @param maxX the highest block x coordinate
+     * @param maxY the highest block y coordinate
+     * @param maxZ the highest block z coordinate
+     * @param keys the list to add the keys to
+     * @return the amount of keys added
+     */
+    public int collectKeys(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, List<Key> keys) {
+        final int baseX = chunkX << 4, baseZ = chunkZ << 4;
+        final long now = System.currentTimeMillis();
+        int added = 0;
+        for (int slot = durabilities.nextSlot(0); slot >= 0; slot = durabilities.nextSlot(slot + 1)) {
+            if (durabilities.durabilityAt(slot) <= 0 || isExpired(durabilities, slot, now)) {
+                continue;
+            }
+            final int representation = durabilities.keyAt(slot);
+            final int x = baseX | DurabilityStore.unpackX(representation);
+            final int y = DurabilityStore.unpackY(representation);
+            final int z = baseZ | DurabilityStore.unpackZ(representation);
+            if (x < minX || x > maxX || y < minY || y > maxY || z < minZ || z > maxZ) {
+                continue;
+            }
+            keys.add(new Key(world, x, y, z, durabilities.durabilityAt(slot), durabilities.timeAt(slot)));
+            added++;
         }
-        if (this.durabilities.size() <= 0) {
-            if (durabilityFile.exists()) {
-                durabilityFile.delete();
+        return added;
+    }
+
+    /**
+     * Adds the damage of the chunk to a summary, if it holds damaged blocks
+     *
+     * @param summary the summary of the world of the chunk
+     */
+    public void summarize(DamageSummary summary) {
+        summarize(durabilities, chunkX, chunkZ, System.currentTimeMillis(), summary);
+    }
+
+    /**
+     * Adds the damage of the durabilities of a chunk to a summary, if they hold damaged blocks. Blocks whose
+     * durability timer ran out before the given time are skipped.
+     *
+     * @param durabilities the durabilities of the chunk
+     * @param chunkX       the chunk x coordinate
+     * @param chunkZ       the chunk z coordinate
+     * @param now          the current time
+     * @param summary      the summary of the world of the chunk
+     */
+    static void summarize(DurabilityStore durabilities, int chunkX, int chunkZ, long now, DamageSummary summary) {
+        int blocks = 0, maxDamage = 0;
+        long damage = 0L;
+        for (int slot = durabilities.nextSlot(0); slot >= 0; slot = durabilities.nextSlot(slot + 1)) {
+            final int durability = durabilities.durabilityAt(slot);
+            if (durability > 0 && !isExpired(durabilities, slot, now)) {
+                blocks++;
+                damage += durability;
+                maxDamage = Math.max(maxDamage, durability);
             }
-            noDuraFile = true;
         }
-        if (!noDuraFile) {
-            ODRFile region = new ODRFile();
-            try {
-                region.prepare(durabilityFile, true);
-                for (Key key : durabilities.values()) {
-                    region.write(key.x, key.y, key.z, key.durabilityAmount, key.durabilityTime);
+        if (blocks > 0) {
+            summary.addChunk(chunkX, chunkZ, blocks, damage, maxDamage);
+        }
+    }
+
+    // A block whose timer is due is healed on the next expiry check, it no longer counts as damaged
+    private static boolean isExpired(DurabilityStore durabilities, int slot, long now) {
+        final long time = durabilities.timeAt(slot);
+        return time > 0L && time < now;
+    }
+
+    /**
+     * Gets the chunk x coordinate
+     *
+     * @return the chunk x coordinate
+     */
+    public int getChunkX() {
+        return chunkX;
+    }
+
+    /**
+     * Gets the chunk z coordinate
+     *
+     * @return the chunk z coordinate
+     */
+    public int getChunkZ() {
+        return chunkZ;
+    }
+
+    /**
+     * Checks if the stored durabilities of this chunk are still being read
+     *
+     * @return true while the chunk is loading
+     */
+    public boolean isLoading() {
+        return pendingRemovals != null;
+    }
+
+    /**
+     * Checks if the chunk was changed since it was last saved
+     *
+     * @return true if the chunk has unsaved changes
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Gets the time the next durability timer of the chunk is due
+     *
+     * @return the due time, or Long.MAX_VALUE if no timer is running
+     */
+    public long getNextExpiry() {
+        return expiries.peekTime();
+    }
+
+    /**
+     * Marks the chunk as loading. Damage applied until {@link #finishLoad(DurabilityStore)} is merged
+     * on top of the stored durabilities.
+     */
+    void beginLoad() {
+        pendingRemovals = new DurabilityStore();
+        discardLoad = false;
+    }
+
+    /**
+     * Merges the durabilities read from disk with the damage applied while loading
+     *
+     * @param loaded the durabilities read from disk, null if there were none
+     */
+    void finishLoad(DurabilityStore loaded) {
+        if (pendingRemovals == null) {
+            return;
+        }
+        if (loaded != null && !discardLoad) {
+            regenerateExpired(loaded);
+            ChunkIO.merge(loaded, durabilities, pendingRemovals);
+            // Changes made while loading were not journaled, record their merged result
+            for (int slot = pendingRemovals.nextSlot(0); slot >= 0; slot = pendingRemovals.nextSlot(slot + 1)) {
+                if (!loaded.contains(pendingRemovals.keyAt(slot))) {
+                    journal.remove(world, chunkX, chunkZ, pendingRemovals.keyAt(slot));
                 }
-                region.close();
-            } catch (IOException e) {
-                e.printStackTrace();
             }
+            for (int slot = durabilities.nextSlot(0); slot >= 0; slot = durabilities.nextSlot(slot + 1)) {
+                int representation = durabilities.keyAt(slot);
+                journal.put(world, chunkX, chunkZ, representation, loaded.getDurability(representation), loaded.getTime(representation), loaded.getMaterial(representation));
+            }
+            durabilities = loaded;
+            rebuildExpiries();
+        } else {
+            for (int slot = pendingRemovals.nextSlot(0); slot >= 0; slot = pendingRemovals.nextSlot(slot + 1)) {
+                journal.remove(world, chunkX, chunkZ, pendingRemovals.keyAt(slot));
+            }
+            for (int slot = durabilities.nextSlot(0); slot >= 0; slot = durabilities.nextSlot(slot + 1)) {
+                journal.put(world, chunkX, chunkZ, durabilities.keyAt(slot), durabilities.durabilityAt(slot), durabilities.timeAt(slot), durabilities.materialAt(slot));
+            }
+        }
+        pendingRemovals = null;
+        discardLoad = false;
+    }
+
+    /**
+     * Takes a copy of the chunk information to be written by the chunk IO thread
+     *
+     * @return the snapshot to save
+     */
+    ChunkIO.Snapshot snapshot() {
+        if (pendingRemovals != null && !discardLoad) {
+            dirty = false;
+            // Only the damage done since the load started is known, merge it with the file when writing
+            return new ChunkIO.Snapshot(world, chunkX, chunkZ, durabilities.copy(), pendingRemovals.copy());
         }
+        reap(System.currentTimeMillis(), false);
+        dirty = false;
+        return new ChunkIO.Snapshot(world, chunkX, chunkZ, durabilities.copy(), null);
+    }
+
+    /**
+     * Saves the chunk information
+     *
+     * @param load  set to true to load data after saving
+     * @param clear set to true to clear self after saving
+     */
+    public void save(boolean load, boolean clear) {
+        reap(System.currentTimeMillis(), false);
+        storage.write(world, chunkX, chunkZ, durabilities);
+        dirty = false;
         if (clear) {
             this.durabilities.clear();
+            this.expiries.clear();
         }
         if (load) {
             load();
@@ -220,80 +512,150 @@ public class ChunkWrapper {
     }
 
     /**
-     * Gets a list of durability keys that are not worth saving
+     * Applies the durability timers that are due. Blocks that have fully reset are removed so their memory
+     * is reclaimed even if the chunk never unloads.
      *
-     * @return list of expired durability keys
+     * @param currentTime the current time
+     * @param visible     true to heal partly regenerated blocks right away and show an effect where blocks heal
+     * @return the amount of blocks healed or reset
      */
-    private List<Integer> expiredDurabilities() {
-        List<Integer> expiredDurabilities = new ArrayList<Integer>();
-        for (Key key : durabilities.values()) {
-            if (MaterialManager.getInstance().getDurabilityResetTimerEnabled(key.toLocation().getBlock().getType().name(), key.toLocation().getBlock().getData())) {
-                long currentTime = System.currentTimeMillis();
-                if (currentTime > key.durabilityTime) {
-                    if (ConfigManager.getInstance().getMaterialsRegenerateOverTime()) {
-                        long regenTime = MaterialManager.getInstance().getDurabilityResetTime(key.toLocation().getBlock().getType().name(), key.toLocation().getBlock().getData());
-                        int amount = Math.max(1, Math.round((float) (currentTime - key.durabilityTime) / regenTime));
-                        int durability = key.durabilityAmount - amount;
-                        if (durability <= 0) {
-                            expiredDurabilities.add(key.hashCode());
-                        }
-                    } else {
-                        expiredDurabilities.add(key.hashCode());
-                    }
+    int reap(long currentTime, boolean visible) {
+        final MaterialManager materials = MaterialManager.getInstance();
+        final ConfigSnapshot settings = ConfigManager.getInstance().getSnapshot();
+        final boolean regenerates = settings.regeneratesOverTime;
+        int healed = 0;
+        while (expiries.peekTime() < currentTime) {
+            final int representation = expiries.peekKey();
+            final long token = expiries.peekToken();
+            expiries.poll();
+            if (!durabilities.contains(representation) || durabilities.getTime(representation) != token) {
+                // The block was removed or its timer restarted
+                continue;
+            }
+            int material = durabilities.getMaterial(representation);
+            if (material == DurabilityStore.UNKNOWN_MATERIAL) {
+                // Stored before materials were recorded, look the block up while the chunk is loaded
+                final Block block = getBlock(representation);
+                if (block == null) {
+                    // Check again on the next expiry check, when the chunk may be loaded
+                    expiries.add(currentTime + Math.max(1, settings.expiryCheckInterval) * 50L, representation, token);
+                    continue;
+                }
+                if (block.getType() == Material.AIR) {
+                    removeKey(representation);
+                    continue;
+                }
+                material = DurabilityStore.material(block.getTypeId(), block.getData());
+                durabilities.put(representation, durabilities.getDurability(representation), token, material);
+                dirty = true;
+            }
+            final Material type = Material.getMaterial(DurabilityStore.materialType(material));
+            final int data = DurabilityStore.materialData(material);
+            if (type == null || !materials.getDurabilityResetTimerEnabled(type, data)) {
+                continue;
+            }
+            final int current = durabilities.getDurability(representation);
+            int durability = 0;
+            long regenTime = 0L;
+            if (regenerates) {
+                regenTime = materials.getDurabilityResetTime(type, data);
+                int amount = Math.max(1, Math.round((float) (currentTime - token) / regenTime));
+                durability = current - amount;
+            }
+            if (durability <= 0) {
+                removeKey(representation);
+            } else if (visible) {
+                put(representation, durability, currentTime + regenTime, material);
+            } else {
+                // Healed lazily when the block is next checked, come back once it would be fully healed
+                expiries.add(Math.max(currentTime, token + current * regenTime - regenTime / 2), representation, token);
+                continue;
+            }
+            healed++;
+            if (visible && settings.effectsEnabled) {
+                final Block block = getBlock(representation);
+                if (block != null) {
+                    block.getWorld().playEffect(block.getLocation().add(0.5, 0.5, 0.5), Effect.VILLAGER_PLANT_GROW, 0);
                 }
             }
         }
-        return expiredDurabilities;
+        return healed;
     }
 
     /**
-     * Loads a specific directory
+     * Gets a block of the chunk, if the chunk is loaded in its world
+     *
+     * @param representation the packed local representation of the block
+     * @return the block, or null if the chunk is not loaded
      */
-    public void load() {
-        File file = new File(durabilitiesDir, chunkX + "." + chunkZ + "." + world + ".odr");
-        if (!file.exists()) {
-            return;
-        }
-        String[] fileParts = file.getName().split("\\.");
-        if (fileParts.length < 3) {
-            ObsidianDestroyer.LOG.log(Level.SEVERE, "Failed loading chunk durabilites! {0} {1}", new Object[]{chunkX, chunkZ});
-            return;
-        }
-        String w = fileParts[2]; // To see if world == file name world
-        World bWorld = Bukkit.getWorld(w);
-        if (bWorld == null) {
-            ObsidianDestroyer.LOG.log(Level.SEVERE, "World is null!");
-            return;
+    private Block getBlock(int representation) {
+        final World bWorld = Bukkit.getWorld(worldId);
+        if (bWorld == null || !bWorld.isChunkLoaded(chunkX, chunkZ)) {
+            return null;
         }
-        if (!w.equals(world)) {
-            ObsidianDestroyer.LOG.log(Level.SEVERE, "Wrong world..");
-            return;
+        return bWorld.getBlockAt((chunkX << 4) | DurabilityStore.unpackX(representation), DurabilityStore.unpackY(representation), (chunkZ << 4) | DurabilityStore.unpackZ(representation));
+    }
+
+    /**
+     * Queues the timer of every tracked block again, dropping stale entries
+     */
+    private void rebuildExpiries() {
+        expiries.clear();
+        for (int slot = durabilities.nextSlot(0); slot >= 0; slot = durabilities.nextSlot(slot + 1)) {
+            if (durabilities.timeAt(slot) > 0L) {
+                expiries.add(durabilities.timeAt(slot), durabilities.keyAt(slot), durabilities.timeAt(slot));
+            }
         }
-        ODRFile region = new ODRFile();
-        try {
-            region.prepare(file, false);
-            Key info = null;
-            while ((info = region.getNext(bWorld)) != null) {
-                long currentTime = System.currentTimeMillis();
-                if (currentTime > info.durabilityTime && MaterialManager.getInstance().getDurabilityResetTimerEnabled(info.toLocation().getBlock().getType().name(), info.toLocation().getBlock().getData())) {
-                    if (ConfigManager.getInstance().getMaterialsRegenerateOverTime()) {
-                        long regenTime = MaterialManager.getInstance().getDurabilityResetTime(info.toLocation().getBlock().getType().name(), info.toLocation().getBlock().getData());
-                        long result = currentTime - info.durabilityTime;
-                        int amount = Math.max(1, Math.round((float) result / regenTime));
-                        int durability = info.durabilityAmount - amount;
-                        if (durability <= 0) {
-                            continue;
-                        }
-                        info = new Key(info.toLocation(), durability, currentTime + regenTime);
-                    } else {
-                        continue;
+    }
+
+    /**
+     * Applies the regeneration of stored durabilities whose timer has run out, using the material stored
+     * with each block rather than looking the blocks up in the world. Blocks of an unknown material are
+     * left to the timers of the loaded chunk.
+     *
+     * @param store the durabilities read from disk
+     */
+    private static void regenerateExpired(DurabilityStore store) {
+        final MaterialManager materials = MaterialManager.getInstance();
+        final boolean regenerates = ConfigManager.getInstance().getSnapshot().regeneratesOverTime;
+        final long currentTime = System.currentTimeMillis();
+        int slot = store.nextSlot(0);
+        while (slot >= 0) {
+            final int material = store.materialAt(slot);
+            final Material type = material != DurabilityStore.UNKNOWN_MATERIAL ? Material.getMaterial(DurabilityStore.materialType(material)) : null;
+            if (type != null && currentTime > store.timeAt(slot) && materials.getDurabilityResetTimerEnabled(type, DurabilityStore.materialData(material))) {
+                int durability = 0;
+                if (regenerates) {
+                    long regenTime = materials.getDurabilityResetTime(type, DurabilityStore.materialData(material));
+                    int amount = Math.max(1, Math.round((float) (currentTime - store.timeAt(slot)) / regenTime));
+                    durability = store.durabilityAt(slot) - amount;
+                    if (durability > 0) {
+                        store.put(store.keyAt(slot), durability, currentTime + regenTime);
                     }
                 }
-                durabilities.put(info.hashCode(), info);
+                if (durability <= 0) {
+                    // removal shifts a later entry into this slot, so check it again
+                    store.remove(store.keyAt(slot));
+                    slot = store.nextSlot(slot);
+                    continue;
+                }
             }
-            region.close();
-        } catch (IOException e) {
-            e.printStackTrace();
+            slot = store.nextSlot(slot + 1);
+        }
+    }
+
+    /**
+     * Loads the stored durabilities of the chunk
+     */
+    public void load() {
+        DurabilityStore loaded = storage.read(world, chunkX, chunkZ);
+        if (loaded == null) {
+            return;
+        }
+        regenerateExpired(loaded);
+        for (int slot = loaded.nextSlot(0); slot >= 0; slot = loaded.nextSlot(slot + 1)) {
+            durabilities.put(loaded.keyAt(slot), loaded.durabilityAt(slot), loaded.timeAt(slot), loaded.materialAt(slot));
         }
+        rebuildExpiries();
     }
 }
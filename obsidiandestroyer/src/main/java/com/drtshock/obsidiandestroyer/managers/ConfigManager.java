@@ -1,9 +1,10 @@
 package com.drtshock.obsidiandestroyer.managers;
 
 import com.drtshock.obsidiandestroyer.ObsidianDestroyer;
+import com.drtshock.obsidiandestroyer.datatypes.ConfigSnapshot;
 import com.drtshock.obsidiandestroyer.datatypes.DurabilityMaterial;
+import com.drtshock.obsidiandestroyer.enumerations.BleedingMode;
 import com.drtshock.obsidiandestroyer.util.Util;
-import org.bukkit.ChatColor;
 import org.bukkit.Material;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.YamlConfiguration;
@@ -21,6 +22,7 @@ public class ConfigManager {
     private YamlConfiguration tm;
     private YamlConfiguration config;
     private YamlConfiguration materials;
+    private volatile ConfigSnapshot settings;
     private boolean loaded;
 
     /**
@@ -62,6 +64,9 @@ public class ConfigManager {
         } else {
             config = tc;
             materials = tm;
+            if (config != null) {
+                settings = new ConfigSnapshot(config);
+            }
         }
     }
 
@@ -117,6 +122,7 @@ public class ConfigManager {
             ObsidianDestroyer.debug("Loading materials File.");
         }
         materials = YamlConfiguration.loadConfiguration(materialsFile);
+        settings = new ConfigSnapshot(config);
         loaded = true;
     }
 
@@ -172,13 +178,22 @@ public class ConfigManager {
         return loaded;
     }
 
+    /**
+     * Gets the settings of the loaded config. The snapshot never changes, a reload publishes a new one.
+     *
+     * @return the config settings
+     */
+    public ConfigSnapshot getSnapshot() {
+        return settings;
+    }
+
     /**
      * Gets verbose mode enabled
      *
      * @return verbose mode enabled
      */
     public boolean getVerbose() {
-        return config.getBoolean("Verbose", config.getBoolean("verbose", false));
+        return settings != null && settings.verbose;
     }
 
     /**
@@ -187,7 +202,7 @@ public class ConfigManager {
      * @return debug mode enabled
      */
     public boolean getDebug() {
-        return config == null || config.getBoolean("Debug", config.getBoolean("Debug", config.getBoolean("debug", false)));
+        return settings == null || settings.debug;
     }
 
     /**
@@ -196,7 +211,7 @@ public class ConfigManager {
      * @return list of world names
      */
     public List<String> getDisabledWorlds() {
-        return config.getStringList("DisabledOnWorlds");
+        return settings.disabledWorlds;
     }
 
     /**
@@ -246,74 +261,99 @@ public class ConfigManager {
     }
 
     public int getRadius() {
-        return config.getInt("Explosions.Radius", 3);
+        return settings.radius;
     }
 
     public boolean getMaterialsRegenerateOverTime() {
-        return config.getBoolean("DurabilityGlobal.RegeneratesOverTime", false);
+        return settings.regeneratesOverTime;
+    }
+
+    public boolean getVisibleRegeneration() {
+        return settings.visibleRegeneration;
+    }
+
+    public int getExpiryCheckInterval() {
+        return settings.expiryCheckInterval;
+    }
+
+    public boolean getAsyncExplosions() {
+        return settings.asyncExplosions;
+    }
+
+    public int getAsyncExplosionThreads() {
+        return settings.asyncExplosionThreads;
+    }
+
+    public int getAsyncExplosionLatencyBudget() {
+        return settings.asyncExplosionLatencyBudget;
+    }
+
+    public int getAsyncExplosionMaxPending() {
+        return settings.asyncExplosionMaxPending;
+    }
+
+    public boolean getBatchExplosions() {
+        return settings.batchExplosions;
+    }
+
+    public int getExplosionBatchMaxSize() {
+        return settings.explosionBatchMaxSize;
+    }
+
+    public boolean getSingleDamageEvents() {
+        return settings.singleDamageEvents;
     }
 
     public boolean getFluidsProtectIndustructables() {
-        return config.getBoolean("Explosions.FluidsProtectIndustructables", true);
+        return settings.fluidsProtectIndustructables;
     }
 
     public boolean getBypassAllFluidProtection() {
-        return config.getBoolean("Explosions.BypassAllFluidProtection", false);
+        return settings.bypassAllFluidProtection;
     }
 
     public boolean getProtectTNTCannons() {
-        return config.getBoolean("Explosions.TNTCannonsProtected", true);
+        return settings.protectTNTCannons;
     }
 
     public boolean getEffectsEnabled() {
-        return config.getBoolean("DurabilityGlobal.Effects.Enabled", true);
+        return settings.effectsEnabled;
     }
 
     public double getEffectsChance() {
-        double value = config.getDouble("DurabilityGlobal.Effects.Chance", 0.12);
-        if (value > 0.6) {
-            value = 0.6;
-        }
-        if (value <= 0) {
-            value = 0.01;
-        }
-        return value;
+        return settings.effectsChance;
     }
 
     public boolean getIgnoreUnhandledExplosionTypes() {
-        return config.getBoolean("Explosions.IgnoreUnhandledTypes", false);
+        return settings.ignoreUnhandledExplosionTypes;
     }
 
     public Material getDurabilityCheckItem() {
-        Material material = Material.matchMaterial(config.getString("DurabilityGlobal.CheckItem", "POTATO_ITEM"));
-        if (material == null) {
-            material = Material.POTATO_ITEM;
-        }
-        return material;
+        return settings.durabilityCheckItem;
     }
 
     public String getDurabilityMessage() {
-        return ChatColor.translateAlternateColorCodes('&', config.getString("DurabilityGlobal.CheckMessage", ChatColor.DARK_PURPLE + "Durability of this block is: " + ChatColor.WHITE + "{DURABILITY}"));
+        return settings.durabilityMessage;
     }
 
     public boolean getHandleFactions() {
-        return config.getBoolean("Factions.Enabled", false);
+        return settings.handleFactions;
     }
 
     public boolean getHandleFactionsExplosions() {
-        return config.getBoolean("Factions.HandleExplosions", true);
+        return settings.handleFactionsExplosions;
     }
 
     public boolean getUseFactionsPowerLevel() {
-        return config.getBoolean("Factions.UseFactionPowerLevel", false);
+        return settings.useFactionsPowerLevel;
     }
 
     public boolean getHandleOfflineFactions() {
-        return config.getBoolean("Factions.HandleOffline", false);
+        return settings.handleOfflineFactions;
     }
 
     public boolean getProtectOfflineFactions() {
-        return config.getBoolean("Factions.ProtectOffline", false);
+        return settings.protectOfflineFactions;
     }
 
     public boolean getUsingFactions() {
@@ -321,34 +361,46 @@ public class ConfigManager {
     }
 
     public boolean getHandleOnlineFactions() {
-        return config.getBoolean("Factions.HandleOnline", false);
+        return settings.handleOnlineFactions;
     }
 
     public double getOfflineFactionsDurabilityMultiplier() {
-        return config.getDouble("Factions.OfflineDurabilityMultiplier", 1.0);
+        return settings.offlineFactionsDurabilityMultiplier;
     }
 
     public double getOnlineFactionsDurabilityMultiplier() {
-        return config.getDouble("Factions.OnlineDurabilityMultiplier", 1.0);
+        return settings.onlineFactionsDurabilityMultiplier;
     }
 
     public boolean getProtectBedrockBorders() {
-        return config.getBoolean("WorldsEdge.ProtectBedrockBorders", true);
+        return settings.protectBedrockBorders;
     }
 
     public int getBorderToProtectNormal() {
-        return config.getInt("WorldsEdge.BorderToProtect.World", 5);
+        return settings.borderToProtectNormal;
     }
 
     public int getBorderToProtectNether() {
-        return config.getInt("WorldsEdge.BorderToProtect.Nether", 123);
+        return settings.borderToProtectNether;
     }
 
     public boolean getDisableDamageBleeding() {
-        return config.getBoolean("Explosions.DisableDamageBleeding", true);
+        return settings.disableDamageBleeding;
+    }
+
+    public BleedingMode getBleedingMode() {
+        return settings.bleedingMode;
     }
 
     public double getNextLayerDamageChance() {
-        return config.getDouble("Explosions.NextLevelDamageChance", 0.5);
+        return settings.nextLayerDamageChance;
+    }
+
+    public int getAutosaveInterval() {
+        return settings.autosaveInterval;
+    }
+
+    public int getAutosaveChunksPerTick() {
+        return settings.autosaveChunksPerTick;
     }
 }
@@ -0,0 +1,190 @@
+package com.drtshock.obsidiandestroyer.managers;
+
+import com.drtshock.obsidiandestroyer.ObsidianDestroyer;
+import com.drtshock.obsidiandestroyer.datatypes.BlockId;
+import com.drtshock.obsidiandestroyer.datatypes.ConfigSnapshot;
+import com.drtshock.obsidiandestroyer.datatypes.DamageSource;
+import com.drtshock.obsidiandestroyer.datatypes.DurabilityMaterial;
+import com.drtshock.obsidiandestroyer.enumerations.DamageResult;
+import com.drtshock.obsidiandestroyer.events.DurabilityBatchDamageEvent;
+import com.drtshock.obsidiandestroyer.events.DurabilityDamageEvent;
+import com.drtshock.obsidiandestroyer.util.LongHashMap;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.entity.EntityType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Damage done to blocks by a group of explosions, applied once per block.
+ * <p/>
+ * While the explosions of a group are resolved, the damage of every explosion hitting a block is added up
+ * and whether the block would be destroyed is predicted from its tracked durability. Once the whole group is
+ * resolved the total damage of each block is applied in a single step, which gives the real result.
+ * <p/>
+ * Unless single damage events are used, the damage is announced with one {@link DurabilityBatchDamageEvent}
+ * holding the blocks that would take damage, instead of one {@link DurabilityDamageEvent} per block.
+ */
+class DamageAccumulator {
+
+    private final ChunkManager manager;
+    private final boolean batchEvent;
+    private final ConfigSnapshot settings;
+    private final LongHashMap<Hit> hits = new LongHashMap<Hit>();
+    private final List<Hit> order = new ArrayList<Hit>();
+
+    DamageAccumulator(ChunkManager manager, boolean batchEvent, ConfigSnapshot settings) {
+        this.manager = manager;
+        this.batchEvent = batchEvent;
+        this.settings = settings;
+    }
+
+    /**
+     * Adds the damage of an explosion to a block
+     *
+     * @param at     the location of the block
+     * @param source the damage of the exploding entity
+     * @return the predicted result of the damage done to the block so far
+     */
+    DamageResult hit(Location at, DamageSource source) {
+        final long position = BlockId.pack(at.getBlockX(), at.getBlockY(), at.getBlockZ());
+        Hit hit = hits.get(position);
+        if (hit == null) {
+            final Block block = at.getBlock();
+            final Material type = block.getType();
+            final byte data = block.getData();
+            hit = new Hit(at, type, data, MaterialManager.getInstance().get(type, data), manager.peekDurability(block));
+            hits.put(position, hit);
+            order.add(hit);
+        }
+        return hit.add(source);
+    }
+
+    /**
+     * Applies the damage added to every block, in the order the blocks were first hit
+     */
+    void apply() {
+        if (!batchEvent) {
+            for (Hit hit : order) {
+                if (hit.damaging != null) {
+                    hit.result = manager.damageBlock(hit.location, hit.damaging, hit.amount, true, settings);
+                } else {
+                    hit.result = manager.damageBlock(hit.location, hit.first, -1, true, settings);
+                }
+            }
+            return;
+        }
+
+        final DurabilityBatchDamageEvent event = callBatchEvent();
+        int entry = 0;
+        for (Hit hit : order) {
+            if (hit.damaging == null) {
+                // Rejected by the materials, nothing to announce
+                hit.result = manager.damageBlock(hit.location, hit.first, -1, false, settings);
+                continue;
+            }
+            final int i = entry++;
+            if (event.isDisposed(i)) {
+                hit.result = event.getDamageResult(i);
+            } else if (event.isCancelled(i)) {
+                hit.result = DamageResult.CANCELLED;
+            } else {
+                hit.result = manager.damageBlock(hit.location, hit.damaging, event.getDamage(i), false, settings);
+            }
+        }
+    }
+
+    /**
+     * Gets the result of the damage applied to a block
+     *
+     * @param x the block x coordinate
+     * @param y the block y coordinate
+     * @param z the block z coordinate
+     * @return the result, or null if the block was not hit
+     */
+    DamageResult getResult(int x, int y, int z) {
+        final Hit hit = hits.get(BlockId.pack(x, y, z));
+        return hit != null ? hit.result : null;
+    }
+
+    private DurabilityBatchDamageEvent callBatchEvent() {
+        int size = 0;
+        for (Hit hit : order) {
+            if (hit.damaging != null) {
+                size++;
+            }
+        }
+        final int[] xs = new int[size], ys = new int[size], zs = new int[size], damage = new int[size];
+        final Material[] types = new Material[size];
+        final byte[] data = new byte[size];
+        final EntityType[] entityTypes = new EntityType[size];
+        int entry = 0;
+        for (Hit hit : order) {
+            if (hit.damaging == null) {
+                continue;
+            }
+            xs[entry] = hit.location.getBlockX();
+            ys[entry] = hit.location.getBlockY();
+            zs[entry] = hit.location.getBlockZ();
+            types[entry] = hit.type;
+            data[entry] = hit.data;
+            entityTypes[entry] = hit.damaging.getEntityType();
+            damage[entry] = hit.amount;
+            entry++;
+        }
+        final DurabilityBatchDamageEvent event = new DurabilityBatchDamageEvent(order.isEmpty() ? null : order.get(0).location.getWorld(),
+                xs, ys, zs, types, data, entityTypes, damage);
+        if (size > 0) {
+            ObsidianDestroyer.getInstance().getServer().getPluginManager().callEvent(event);
+        }
+        return event;
+    }
+
+    private static class Hit {
+
+        private final Location location;
+        private final Material type;
+        private final byte data;
+        private final DurabilityMaterial material;
+        private final int stored;
+        private DamageSource first;
+        // First source that damages the material, the total damage is applied with it
+        private DamageSource damaging;
+        private int amount;
+        private DamageResult result;
+
+        private Hit(Location location, Material type, byte data, DurabilityMaterial material, int stored) {
+            this.location = location;
+            this.type = type;
+            this.data = data;
+            this.material = material;
+            this.stored = stored;
+        }
+
+        private DamageResult add(DamageSource source) {
+            if (first == null) {
+                first = source;
+            }
+            if (type == Material.AIR) {
+                return DamageResult.NONE;
+            }
+            if (material == null || !material.getEnabled()) {
+                return DamageResult.DISABLED;
+            }
+            if (!material.isDestructible() || !source.damages(material)) {
+                return DamageResult.NONE;
+            }
+            if (damaging == null) {
+                damaging = source;
+            }
+            amount += source.getDamage(material);
+            final int durability = material.getDurability();
+            if (durability < 2 || stored + amount >= durability) {
+                return DamageResult.DESTROY;
+            }
+            return DamageResult.DAMAGE;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.drtshock.obsidiandestroyer.managers;
+
+import com.drtshock.obsidiandestroyer.ObsidianDestroyer;
+import com.drtshock.obsidiandestroyer.datatypes.DamageSummary;
+import com.drtshock.obsidiandestroyer.util.LongHashMap;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.IllegalPluginAccessException;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Counts the damage stored for the chunks of a world that are not loaded, on the chunk IO thread.
+ * <p/>
+ * The loaded chunks are counted on the server thread when the scan is queued, their stored durabilities are
+ * older than the ones in memory and are skipped. Every save queued before the scan is written first, so the
+ * files hold the damage of every chunk unloaded up to then. The summary is handed back on the server thread.
+ */
+class DamageScan implements Runnable {
+
+    private final ChunkStorage storage;
+    private final DamageSummary summary;
+    private final LongHashMap<Boolean> counted;
+    private final DamageSummary.Callback callback;
+
+    /**
+     * Creates a scan of the stored chunks of a world
+     *
+     * @param storage  the storage to read the durabilities from
+     * @param summary  the summary of the world, holding the loaded chunks
+     * @param counted  the keys of the chunks already in the summary
+     * @param callback the callback to hand the summary to
+     */
+    DamageScan(ChunkStorage storage, DamageSummary summary, LongHashMap<Boolean> counted, DamageSummary.Callback callback) {
+        this.storage = storage;
+        this.summary = summary;
+        this.counted = counted;
+        this.callback = callback;
+    }
+
+    @Override
+    public void run() {
+        final long now = System.currentTimeMillis();
+        final List<File> files = storage.listFiles(summary.getWorld());
+        for (File file : files) {
+            storage.summarize(file, summary, counted, now);
+        }
+        if (!ObsidianDestroyer.getInstance().isEnabled()) {
+            return;
+        }
+        try {
+            Bukkit.getScheduler().runTask(ObsidianDestroyer.getInstance(), new Runnable() {
+                @Override
+                public void run() {
+                    callback.onSummary(summary);
+                }
+            });
+        } catch (IllegalPluginAccessException e) {
+            // The plugin was disabled while scanning
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.drtshock.obsidiandestroyer.managers;
+
+import com.drtshock.obsidiandestroyer.datatypes.Key;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates the damaged blocks of some chunks one chunk at a time.
+ * <p/>
+ * Only the keys of the chunk being iterated are held in memory, so a whole world can be exported without
+ * copying it first. The blocks of a chunk are read when the iteration reaches it, changes made to chunks
+ * that were already iterated are not seen. The iterator is meant to be used on the server thread.
+ */
+class DamagedBlockIterator implements Iterator<Key> {
+
+    private final ChunkWrapper[] chunks;
+    private final List<Key> buffer = new ArrayList<Key>();
+    private int chunk = 0;
+    private int index = 0;
+
+    DamagedBlockIterator(ChunkWrapper[] chunks) {
+        this.chunks = chunks;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (index >= buffer.size()) {
+            if (chunk >= chunks.length) {
+                return false;
+            }
+            buffer.clear();
+            index = 0;
+            final ChunkWrapper wrapper = chunks[chunk];
+            // Drop the wrapper so it can be collected if it unloads during the iteration
+            chunks[chunk++] = null;
+            if (wrapper != null) {
+                wrapper.collectKeys(Integer.MIN_VALUE, 0, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, buffer);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Key next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return buffer.get(index++);
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Damaged blocks are removed through the ChunkManager");
+    }
+}
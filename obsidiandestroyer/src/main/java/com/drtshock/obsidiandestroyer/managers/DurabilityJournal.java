@@ -0,0 +1,378 @@
+package com.drtshock.obsidiandestroyer.managers;
+
+import com.drtshock.obsidiandestroyer.ObsidianDestroyer;
+import com.drtshock.obsidiandestroyer.datatypes.DurabilityStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+
+/**
+ * Append-only journal of the durability changes made since the chunk files were last brought up to date.
+ * <p/>
+ * Changes are recorded on the server thread into a batch that is handed to the chunk IO thread once per tick,
+ * where it is appended and forced to disk. A save marks the journal before it starts writing the changed chunks,
+ * and once they are written the journal is replaced by one holding only the changes made after the mark.
+ * On startup whatever is left in the journal is replayed into the chunk files.
+ */
+class DurabilityJournal {
+
+    private static final int MAGIC = 0x4F444A32; // ODJ2
+    private static final int HEADER_BYTES = 4;
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final byte CLEAR = 3;
+    private static final byte RESET = 4;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final File file;
+    private final File tempFile;
+    // Written by the server thread only
+    private ByteBuffer batch = ByteBuffer.allocate(4096);
+    // Used by the chunk IO thread only
+    private FileChannel channel;
+    private long mark = HEADER_BYTES;
+    private volatile long size;
+
+    DurabilityJournal(File durabilityDir) {
+        this.file = new File(durabilityDir, "journal.odj");
+        this.tempFile = new File(durabilityDir, "journal.odj.tmp");
+    }
+
+    /**
+     * Records the durability of a block
+     *
+     * @param world          the name of the world of the block
+     * @param chunkX         the chunk x coordinate
+     * @param chunkZ         the chunk z coordinate
+     * @param representation the packed local representation of the block
+     * @param durability     the durability damage of the block
+     * @param time           the durability time of the block
+     * @param material       the packed material of the block
+     */
+    void put(String world, int chunkX, int chunkZ, int representation, int durability, long time, int material) {
+        record(PUT, world, chunkX, chunkZ, representation, durability, time, material);
+    }
+
+    /**
+     * Records the removal of a block
+     *
+     * @param world          the name of the world of the block
+     * @param chunkX         the chunk x coordinate
+     * @param chunkZ         the chunk z coordinate
+     * @param representation the packed local representation of the block
+     */
+    void remove(String world, int chunkX, int chunkZ, int representation) {
+        record(REMOVE, world, chunkX, chunkZ, representation, 0, 0L, 0);
+    }
+
+    /**
+     * Records the removal of every block of a chunk
+     *
+     * @param world  the name of the world of the chunk
+     * @param chunkX the chunk x coordinate
+     * @param chunkZ the chunk z coordinate
+     */
+    void clear(String world, int chunkX, int chunkZ) {
+        record(CLEAR, world, chunkX, chunkZ, 0, 0, 0L, 0);
+    }
+
+    /**
+     * Records the removal of every block of an area of chunks, whether the chunks are loaded or not. If the
+     * journal is replayed, the stored durabilities of the area are removed before the changes recorded after it
+     * are applied.
+     *
+     * @param world     the name of the world of the area, or null for every world
+     * @param minChunkX the lowest chunk x coordinate
+     * @param minChunkZ the lowest chunk z coordinate
+     * @param maxChunkX the highest chunk x coordinate
+     * @param maxChunkZ the highest chunk z coordinate
+     */
+    void reset(String world, int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+        // The highest coordinates take the place of the representation and durability of the record
+        record(RESET, world != null ? world : "", minChunkX, minChunkZ, maxChunkX, maxChunkZ, 0L, 0);
+    }
+
+    /**
+     * Takes the changes recorded since the last call
+     *
+     * @return the recorded changes, or null if there are none
+     */
+    ByteBuffer takeBatch() {
+        if (batch.position() == 0) {
+            return null;
+        }
+        ByteBuffer taken = batch;
+        taken.flip();
+        batch = ByteBuffer.allocate(4096);
+        return taken;
+    }
+
+    /**
+     * Gets the size of the journal on disk
+     *
+     * @return the size in bytes
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * Appends a batch of changes to the journal and forces it to disk
+     *
+     * @param changes the batch to append
+     */
+    void append(ByteBuffer changes) {
+        try {
+            if (channel == null) {
+                open();
+            }
+            channel.position(channel.size());
+            while (changes.hasRemaining()) {
+                channel.write(changes);
+            }
+            channel.force(false);
+            size = channel.size();
+        } catch (IOException e) {
+            ObsidianDestroyer.LOG.log(Level.SEVERE, "Failed writing the durability journal!");
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Marks the end of the changes that the next {@link #rotate(ChunkStorage)} may drop
+     */
+    void mark() {
+        mark = Math.max(HEADER_BYTES, file.exists() ? file.length() : HEADER_BYTES);
+    }
+
+    /**
+     * Applies the changes left in the journal to the chunk files and starts a new journal
+     *
+     * @param storage the chunk storage to apply the changes to
+     * @return the amount of chunks changed
+     */
+    int replay(ChunkStorage storage) {
+        close();
+        if (!file.exists() || file.length() <= HEADER_BYTES) {
+            mark();
+            rotate(storage);
+            return 0;
+        }
+        Map<String, ChunkChanges> chunks = new LinkedHashMap<String, ChunkChanges>();
+        List<DurabilityReset> resets = new ArrayList<DurabilityReset>();
+        try {
+            ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+            if (data.getInt() != MAGIC) {
+                ObsidianDestroyer.LOG.log(Level.SEVERE, "Unknown durability journal format, ignoring it.");
+                data.limit(data.position());
+            }
+            while (data.remaining() >= 3) {
+                byte type = data.get();
+                int nameLength = data.getShort() & 0xFFFF;
+                if (data.remaining() < nameLength + 28) {
+                    // Torn record at the end of the journal
+                    break;
+                }
+                byte[] name = new byte[nameLength];
+                data.get(name);
+                String world = new String(name, UTF_8);
+                int chunkX = data.getInt(), chunkZ = data.getInt();
+                int representation = data.getInt(), durability = data.getInt();
+                long time = data.getLong();
+                int material = data.getInt();
+                if (type == RESET) {
+                    DurabilityReset reset = reset(storage, world, chunkX, chunkZ, representation, durability);
+                    // The changes recorded before the reset are dropped along with the stored durabilities
+                    Iterator<ChunkChanges> it = chunks.values().iterator();
+                    while (it.hasNext()) {
+                        ChunkChanges changes = it.next();
+                        if (reset.contains(changes.world, changes.chunkX, changes.chunkZ)) {
+                            it.remove();
+                        }
+                    }
+                    resets.add(reset);
+                    continue;
+                }
+                String key = chunkX + "." + chunkZ + "." + world;
+                ChunkChanges changes = chunks.get(key);
+                if (changes == null) {
+                    changes = new ChunkChanges(world, chunkX, chunkZ);
+                    chunks.put(key, changes);
+                }
+                changes.apply(type, representation, durability, time, material);
+            }
+        } catch (IOException e) {
+            ObsidianDestroyer.LOG.log(Level.SEVERE, "Failed reading the durability journal!");
+            e.printStackTrace();
+            return 0;
+        }
+        // Finish the resets the server stopped in, the changes left were all recorded after them
+        for (DurabilityReset reset : resets) {
+            reset.run();
+        }
+        for (ChunkChanges changes : chunks.values()) {
+            changes.write(storage);
+        }
+        mark();
+        rotate(storage);
+        return chunks.size();
+    }
+
+    /**
+     * Replaces the journal with one holding only the changes made after the last mark, once the chunk files
+     * holding the changes before it are safely on disk
+     *
+     * @param storage the chunk storage holding the changes made before the mark
+     */
+    void rotate(ChunkStorage storage) {
+        storage.flush();
+        close();
+        try {
+            byte[] kept = new byte[0];
+            if (file.exists() && file.length() > mark) {
+                byte[] journal = Files.readAllBytes(file.toPath());
+                kept = Arrays.copyOfRange(journal, (int) Math.min(mark, journal.length), journal.length);
+            }
+            ByteBuffer data = ByteBuffer.allocate(HEADER_BYTES + kept.length);
+            data.putInt(MAGIC).put(kept).flip();
+            RandomAccessFile access = new RandomAccessFile(tempFile, "rw");
+            try {
+                access.setLength(0);
+                while (data.hasRemaining()) {
+                    access.getChannel().write(data);
+                }
+                access.getChannel().force(true);
+            } finally {
+                access.close();
+            }
+            try {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            size = HEADER_BYTES + kept.length;
+            mark = HEADER_BYTES;
+        } catch (IOException e) {
+            ObsidianDestroyer.LOG.log(Level.SEVERE, "Failed starting a new durability journal!");
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Closes the journal file
+     */
+    void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        channel = null;
+    }
+
+    private void open() throws IOException {
+        channel = new RandomAccessFile(file, "rw").getChannel();
+        if (channel.size() < HEADER_BYTES) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).flip();
+            channel.truncate(0);
+            channel.write(header, 0);
+        }
+    }
+
+    private static DurabilityReset reset(ChunkStorage storage, String world, int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+        final AtomicBoolean running = new AtomicBoolean(true);
+        if (minChunkX == Integer.MIN_VALUE && minChunkZ == Integer.MIN_VALUE && maxChunkX == Integer.MAX_VALUE && maxChunkZ == Integer.MAX_VALUE) {
+            return new DurabilityReset(storage, running, null, world.isEmpty() ? null : world);
+        }
+        return new DurabilityReset(storage, running, null, world, minChunkX, minChunkZ, maxChunkX, maxChunkZ);
+    }
+
+    private void record(byte type, String world, int chunkX, int chunkZ, int representation, int durability, long time, int material) {
+        byte[] name = world.getBytes(UTF_8);
+        int length = 3 + name.length + 28;
+        if (batch.remaining() < length) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(batch.capacity() << 1, batch.position() + length));
+            batch.flip();
+            grown.put(batch);
+            batch = grown;
+        }
+        batch.put(type);
+        batch.putShort((short) name.length);
+        batch.put(name);
+        batch.putInt(chunkX).putInt(chunkZ);
+        batch.putInt(representation).putInt(durability);
+        batch.putLong(time);
+        batch.putInt(material);
+    }
+
+    /**
+     * The journaled changes of a single chunk
+     */
+    private static final class ChunkChanges {
+
+        private final String world;
+        private final int chunkX, chunkZ;
+        private final DurabilityStore puts = new DurabilityStore();
+        private final DurabilityStore removals = new DurabilityStore();
+        private boolean cleared = false;
+
+        private ChunkChanges(String world, int chunkX, int chunkZ) {
+            this.world = world;
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+        }
+
+        private void apply(byte type, int representation, int durability, long time, int material) {
+            switch (type) {
+                case PUT:
+                    puts.put(representation, durability, time, material);
+                    removals.remove(representation);
+                    break;
+                case REMOVE:
+                    puts.remove(representation);
+                    removals.put(representation, 0, 0L);
+                    break;
+                case CLEAR:
+                    puts.clear();
+                    removals.clear();
+                    cleared = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void write(ChunkStorage storage) {
+            DurabilityStore durabilities = cleared ? null : storage.read(world, chunkX, chunkZ);
+            if (durabilities == null) {
+                durabilities = new DurabilityStore();
+            }
+            for (int slot = removals.nextSlot(0); slot >= 0; slot = removals.nextSlot(slot + 1)) {
+                durabilities.remove(removals.keyAt(slot));
+            }
+            for (int slot = puts.nextSlot(0); slot >= 0; slot = puts.nextSlot(slot + 1)) {
+                durabilities.put(puts.keyAt(slot), puts.durabilityAt(slot), puts.timeAt(slot), puts.materialAt(slot));
+            }
+            storage.write(world, chunkX, chunkZ, durabilities);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.drtshock.obsidiandestroyer.managers;
+
+import com.drtshock.obsidiandestroyer.ObsidianDestroyer;
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.plugin.IllegalPluginAccessException;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Removes the stored durabilities of a reset on the chunk IO thread.
+ * <p/>
+ * The durabilities held in memory are cleared on the server thread when the reset starts, so the reset takes
+ * effect at once, and the files are removed afterwards without holding up the server. A reset covers every
+ * world, a single world or an area of chunks of a world. Progress is reported to the sender that started the
+ * reset about once a second.
+ */
+class DurabilityReset implements Runnable {
+
+    private static final long REPORT_INTERVAL = 1000L;
+
+    private final ChunkStorage storage;
+    private final AtomicBoolean running;
+    private final CommandSender sender;
+    private final String world;
+    private final boolean bounded;
+    private final int minChunkX, minChunkZ, maxChunkX, maxChunkZ;
+    private final long started = System.currentTimeMillis();
+    private int clearedChunks = 0;
+
+    /**
+     * Creates a reset of every chunk of a world
+     *
+     * @param storage the storage to remove the durabilities from
+     * @param running the flag of the running reset, cleared once the reset is done
+     * @param sender  the sender to report to, or null to log the reports
+     * @param world   the name of the world, or null for every world
+     */
+    DurabilityReset(ChunkStorage storage, AtomicBoolean running, CommandSender sender, String world) {
+        this.storage = storage;
+        this.running = running;
+        this.sender = sender;
+        this.world = world;
+        this.bounded = false;
+        this.minChunkX = this.minChunkZ = this.maxChunkX = this.maxChunkZ = 0;
+    }
+
+    /**
+     * Creates a reset of an area of chunks
+     *
+     * @param storage   the storage to remove the durabilities from
+     * @param running   the flag of the running reset, cleared once the reset is done
+     * @param sender    the sender to report to, or null to log the reports
+     * @param world     the name of the world of the area
+     * @param minChunkX the lowest chunk x coordinate
+     * @param minChunkZ the lowest chunk z coordinate
+     * @param maxChunkX the highest chunk x coordinate
+     * @param maxChunkZ the highest chunk z coordinate
+     */
+    DurabilityReset(ChunkStorage storage, AtomicBoolean running, CommandSender sender, String world, int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+        this.storage = storage;
+        this.running = running;
+        this.sender = sender;
+        this.world = world;
+        this.bounded = true;
+        this.minChunkX = minChunkX;
+        this.minChunkZ = minChunkZ;
+        this.maxChunkX = maxChunkX;
+        this.maxChunkZ = maxChunkZ;
+    }
+
+    /**
+     * Checks if a chunk is reset
+     *
+     * @param world  the name of the world of the chunk
+     * @param chunkX the chunk x coordinate
+     * @param chunkZ the chunk z coordinate
+     * @return true if the chunk is in the scope of the reset
+     */
+    boolean contains(String world, int chunkX, int chunkZ) {
+        if (this.world != null && !this.world.equals(world)) {
+            return false;
+        }
+        return !bounded || (chunkX >= minChunkX && chunkX <= maxChunkX && chunkZ >= minChunkZ && chunkZ <= maxChunkZ);
+    }
+
+    /**
+     * Records the reset in the journal, so a reset the server stops in is finished on startup instead of the
+     * older changes of its chunks being replayed
+     *
+     * @param journal the journal to record the reset in
+     */
+    void record(DurabilityJournal journal) {
+        if (bounded) {
+            journal.reset(world, minChunkX, minChunkZ, maxChunkX, maxChunkZ);
+        } else {
+            journal.reset(world, Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        }
+    }
+
+    long getStarted() {
+        return started;
+    }
+
+    /**
+     * Sets the amount of loaded chunks cleared when the reset started, for reporting
+     *
+     * @param clearedChunks the amount of chunks cleared in memory
+     */
+    void setClearedChunks(int clearedChunks) {
+        this.clearedChunks = clearedChunks;
+    }
+
+    @Override
+    public void run() {
+        try {
+            final List<File> files = bounded ? storage.listFiles(world, minChunkX, minChunkZ, maxChunkX, maxChunkZ) : storage.listFiles(world);
+            long lastReport = System.currentTimeMillis();
+            int removed = 0;
+            for (int i = 0; i < files.size(); i++) {
+                if (bounded) {
+                    removed += storage.delete(files.get(i), minChunkX, minChunkZ, maxChunkX, maxChunkZ);
+                } else if (storage.delete(files.get(i))) {
+                    removed++;
+                }
+                if (System.currentTimeMillis() - lastReport >= REPORT_INTERVAL) {
+                    lastReport = System.currentTimeMillis();
+                    report(ChatColor.GRAY + "Resetting durabilities of " + describe() + ": " + (i + 1) + "/" + files.size() + " files done.");
+                }
+            }
+            report(ChatColor.GREEN + "Reset the durabilities of " + describe() + " in " + (System.currentTimeMillis() - started) + " ms. ("
+                    + clearedChunks + " loaded chunks cleared, " + removed + (bounded ? " stored chunks" : " files") + " removed)");
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private String describe() {
+        if (world == null) {
+            return "every world";
+        }
+        if (!bounded) {
+            return world;
+        }
+        return "chunks " + minChunkX + ", " + minChunkZ + " to " + maxChunkX + ", " + maxChunkZ + " of " + world;
+    }
+
+    /**
+     * Sends a report to the sender on the server thread
+     *
+     * @param message the message to send
+     */
+    private void report(final String message) {
+        if (sender == null) {
+            ObsidianDestroyer.LOG.info(ChatColor.stripColor(message));
+            return;
+        }
+        if (!ObsidianDestroyer.getInstance().isEnabled()) {
+            return;
+        }
+        try {
+            Bukkit.getScheduler().runTask(ObsidianDestroyer.getInstance(), new Runnable() {
+                @Override
+                public void run() {
+                    sender.sendMessage(message);
+                }
+            });
+        } catch (IllegalPluginAccessException e) {
+            // The plugin was disabled while resetting
+        }
+    }
+}
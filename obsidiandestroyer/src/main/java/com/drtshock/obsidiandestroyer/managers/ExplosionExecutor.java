@@ -0,0 +1,232 @@
+package com.drtshock.obsidiandestroyer.managers;
+
+import com.drtshock.obsidiandestroyer.ObsidianDestroyer;
+import com.drtshock.obsidiandestroyer.datatypes.BlockCapture;
+import com.drtshock.obsidiandestroyer.datatypes.ConfigSnapshot;
+import com.drtshock.obsidiandestroyer.datatypes.ExplosionPlan;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * Plans explosions on worker threads and commits the plans on the server thread.
+ * <p/>
+ * Explosions are committed in the order they happened. A plan whose worker has not started once the latency
+ * budget has passed is computed on the server thread instead, and a plan that is already being computed is
+ * waited for, so an explosion is planned only once and never applied much later than the budget plus one tick.
+ * When batching is enabled the explosions of a tick are collected, and the ones that overlap are grouped to be
+ * captured, planned and committed together on the next tick.
+ * <p/>
+ * The pending and batched explosions are only accessed from the server thread.
+ */
+class ExplosionExecutor {
+
+    private final ChunkManager manager;
+    private final ArrayDeque<ExplosionJob> pending = new ArrayDeque<ExplosionJob>();
+    private final List<ExplosionPlanner> batch = new ArrayList<ExplosionPlanner>();
+    private ExecutorService executor;
+
+    ExplosionExecutor(ChunkManager manager) {
+        this.manager = manager;
+    }
+
+    /**
+     * Adds an explosion to the batch of the current tick. Its blocks are captured when the batch is dispatched,
+     * so the planner is created without a capture.
+     *
+     * @param planner the explosion to batch
+     */
+    void batch(ExplosionPlanner planner) {
+        planner.deferred = true;
+        batch.add(planner);
+    }
+
+    /**
+     * Starts planning an explosion on a worker thread
+     *
+     * @param planner the explosion to plan
+     * @return false if the explosion has to be handled on the server thread
+     */
+    boolean submit(ExplosionPlanner planner) {
+        if (!submit(new ExplosionJob(planner), ConfigManager.getInstance().getSnapshot())) {
+            return false;
+        }
+        planner.deferred = true;
+        return true;
+    }
+
+    /**
+     * Dispatches the batch of the last tick, then commits the planned explosions, in order, until one is
+     * still being planned within the latency budget
+     */
+    void tick() {
+        final ConfigSnapshot settings = ConfigManager.getInstance().getSnapshot();
+        dispatchBatch(settings);
+        final long budget = settings.asyncExplosionLatencyBudget;
+        final long now = System.currentTimeMillis();
+        while (!pending.isEmpty()) {
+            final ExplosionJob job = pending.peek();
+            if (!job.future.isDone() && now - job.started < budget) {
+                break;
+            }
+            pending.poll();
+            manager.commitExplosions(job, result(job));
+        }
+    }
+
+    /**
+     * Commits every batched and pending explosion, planning the unfinished ones on the server thread
+     */
+    void flush() {
+        dispatchBatch(ConfigManager.getInstance().getSnapshot());
+        commitPending();
+    }
+
+    /**
+     * Commits the pending explosions and stops the worker threads
+     */
+    void shutdown() {
+        flush();
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private boolean submit(ExplosionJob job, ConfigSnapshot settings) {
+        if (pending.size() >= settings.asyncExplosionMaxPending) {
+            return false;
+        }
+        try {
+            job.future = executor(settings).submit(job);
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+        pending.add(job);
+        return true;
+    }
+
+    private void commitPending() {
+        while (!pending.isEmpty()) {
+            final ExplosionJob job = pending.poll();
+            manager.commitExplosions(job, result(job));
+        }
+    }
+
+    private void dispatchBatch(ConfigSnapshot settings) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        final List<ExplosionPlanner> explosions = new ArrayList<ExplosionPlanner>(batch);
+        batch.clear();
+        final int maxSize = settings.explosionBatchMaxSize;
+        final List<List<ExplosionPlanner>> groups = new ArrayList<List<ExplosionPlanner>>();
+        final List<int[]> boxes = new ArrayList<int[]>();
+        for (ExplosionPlanner planner : explosions) {
+            boolean grouped = false;
+            for (int i = 0; i < groups.size() && !grouped; i++) {
+                final ExplosionPlanner first = groups.get(i).get(0);
+                if (first.detonatorLoc.getWorld() == planner.detonatorLoc.getWorld() && merge(boxes.get(i), planner, maxSize)) {
+                    groups.get(i).add(planner);
+                    grouped = true;
+                }
+            }
+            if (!grouped) {
+                final List<ExplosionPlanner> group = new ArrayList<ExplosionPlanner>();
+                group.add(planner);
+                groups.add(group);
+                boxes.add(new int[]{planner.minX, planner.minY, planner.minZ, planner.maxX, planner.maxY, planner.maxZ});
+            }
+        }
+
+        for (int i = 0; i < groups.size(); i++) {
+            final List<ExplosionPlanner> group = groups.get(i);
+            final int[] box = boxes.get(i);
+            // One read of the blocks of the whole group, with the neighbours used by the fluid checks
+            final BlockCapture capture = new BlockCapture(group.get(0).detonatorLoc.getWorld(),
+                    box[0] - 1, box[1] - 1, box[2] - 1, box[3] + 1, box[4] + 1, box[5] + 1);
+            for (ExplosionPlanner planner : group) {
+                planner.setCapture(capture);
+            }
+            final ExplosionJob job = new ExplosionJob(group);
+            if (!settings.asyncExplosions || !submit(job, settings)) {
+                // Explosions are applied in order, commit the pending ones first
+                commitPending();
+                manager.commitExplosions(job, job.call());
+            }
+        }
+    }
+
+    /**
+     * Adds the box of an explosion to the box of a group if they overlap and the merged box is small enough
+     */
+    private static boolean merge(int[] box, ExplosionPlanner planner, int maxSize) {
+        if (planner.minX > box[3] || planner.maxX < box[0] || planner.minY > box[4] || planner.maxY < box[1] || planner.minZ > box[5] || planner.maxZ < box[2]) {
+            return false;
+        }
+        final int minX = Math.min(box[0], planner.minX), minY = Math.min(box[1], planner.minY), minZ = Math.min(box[2], planner.minZ);
+        final int maxX = Math.max(box[3], planner.maxX), maxY = Math.max(box[4], planner.maxY), maxZ = Math.max(box[5], planner.maxZ);
+        if (maxX - minX >= maxSize || maxY - minY >= maxSize || maxZ - minZ >= maxSize) {
+            return false;
+        }
+        box[0] = minX;
+        box[1] = minY;
+        box[2] = minZ;
+        box[3] = maxX;
+        box[4] = maxY;
+        box[5] = maxZ;
+        return true;
+    }
+
+    /**
+     * Gets the plans of a submitted job, planning it on the calling thread if no worker has started it yet
+     *
+     * @param job the submitted job
+     * @return the plans of the job
+     */
+    static ExplosionPlan[] result(ExplosionJob job) {
+        if (job.claimed.compareAndSet(false, true)) {
+            // Over the latency budget before a worker got to it
+            job.future.cancel(false);
+            return job.plan();
+        }
+        try {
+            // A worker is planning it, wait rather than planning it twice
+            final ExplosionPlan[] plans = job.future.get();
+            if (plans != null) {
+                return plans;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            ObsidianDestroyer.LOG.log(Level.WARNING, "Failed to plan an explosion, planning it again on the server thread", e.getCause());
+        } catch (CancellationException e) {
+            // The workers were stopped, planned below
+        }
+        return job.plan();
+    }
+
+    private ExecutorService executor(ConfigSnapshot settings) {
+        if (executor == null) {
+            final AtomicInteger count = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(settings.asyncExplosionThreads, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "ObsidianDestroyer Explosion Planner #" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return executor;
+    }
+}
@@ -0,0 +1,64 @@
+package com.drtshock.obsidiandestroyer.managers;
+
+import com.drtshock.obsidiandestroyer.datatypes.ExplosionPlan;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Explosions that are planned together and committed at once.
+ * <p/>
+ * A job is either a single explosion or a group of overlapping explosions of the same tick, which share
+ * one capture of their blocks. A job is planned exactly once, by whichever of the worker thread and the
+ * server thread claims it first.
+ */
+class ExplosionJob implements Callable<ExplosionPlan[]> {
+
+    final List<ExplosionPlanner> planners;
+    final long started;
+    // Set by the thread that plans the job
+    final AtomicBoolean claimed = new AtomicBoolean(false);
+    Future<ExplosionPlan[]> future;
+
+    ExplosionJob(ExplosionPlanner planner) {
+        this(Collections.singletonList(planner));
+    }
+
+    ExplosionJob(List<ExplosionPlanner> planners) {
+        this(planners, planners.get(0).started);
+    }
+
+    ExplosionJob(List<ExplosionPlanner> planners, long started) {
+        this.planners = planners;
+        this.started = started;
+    }
+
+    /**
+     * Plans the job on a worker thread, unless the server thread already claimed it
+     *
+     * @return the plans, or null if the job was claimed by the server thread
+     */
+    @Override
+    public ExplosionPlan[] call() {
+        if (!claimed.compareAndSet(false, true)) {
+            return null;
+        }
+        return plan();
+    }
+
+    /**
+     * Plans the explosions of the job on the calling thread, without claiming it
+     *
+     * @return the plans of the explosions, in order
+     */
+    ExplosionPlan[] plan() {
+        final ExplosionPlan[] plans = new ExplosionPlan[planners.size()];
+        for (int i = 0; i < plans.length; i++) {
+            plans[i] = planners.get(i).call();
+        }
+        return plans;
+    }
+}
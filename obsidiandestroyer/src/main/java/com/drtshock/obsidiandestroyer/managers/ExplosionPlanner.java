@@ -0,0 +1,285 @@
+package com.drtshock.obsidiandestroyer.managers;
+
+import com.drtshock.obsidiandestroyer.ObsidianDestroyer;
+import com.drtshock.obsidiandestroyer.datatypes.BlockCapture;
+import com.drtshock.obsidiandestroyer.datatypes.BlockId;
+import com.drtshock.obsidiandestroyer.datatypes.ConfigSnapshot;
+import com.drtshock.obsidiandestroyer.datatypes.ExplosionPlan;
+import com.drtshock.obsidiandestroyer.datatypes.OcclusionShells;
+import com.drtshock.obsidiandestroyer.datatypes.RayPaths;
+import com.drtshock.obsidiandestroyer.enumerations.BleedingMode;
+import com.drtshock.obsidiandestroyer.util.Util;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Entity;
+import org.bukkit.event.entity.EntityExplodeEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Decides what happens to the blocks of an explosion.
+ * <p/>
+ * The planner only reads the captured blocks and the material table, so it can run on a worker thread.
+ * It also carries the explosion it was created for, which is needed to commit the plan on the server thread.
+ */
+class ExplosionPlanner implements Callable<ExplosionPlan> {
+
+    // Explosion to commit, only used on the server thread
+    final EntityExplodeEvent event;
+    final Entity detonator;
+    final Location detonatorLoc;
+    final List<Block> eventBlocks;
+    final long started;
+    final boolean verbose;
+    // Settings of the explosion, read once when it happened
+    final ConfigSnapshot settings;
+    final int minX, minY, minZ, maxX, maxY, maxZ;
+    // The explosion is committed after its event, the blocks of the event are broken by the commit
+    boolean deferred;
+
+    // Planning inputs
+    private BlockCapture capture;
+    private final long[] eventPositions;
+    private final int radius;
+    private final boolean preventBleeding;
+    private final BleedingMode bleedingMode;
+    private final boolean fluidsProtectIndustructables;
+    private final boolean bypassAllFluidProtection;
+    private final boolean enabledBedrock;
+
+    ExplosionPlanner(EntityExplodeEvent event, Entity detonator, Location detonatorLoc, BlockCapture capture,
+                     int minX, int minY, int minZ, int maxX, int maxY, int maxZ, long started,
+                     boolean preventBleeding, boolean enabledBedrock, ConfigSnapshot settings) {
+        this.event = event;
+        this.detonator = detonator;
+        this.detonatorLoc = detonatorLoc.clone();
+        this.eventBlocks = new ArrayList<Block>(event.blockList());
+        this.capture = capture;
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+        this.started = started;
+        this.settings = settings;
+        this.radius = settings.radius;
+        this.preventBleeding = preventBleeding;
+        this.bleedingMode = settings.bleedingMode;
+        this.fluidsProtectIndustructables = settings.fluidsProtectIndustructables;
+        this.bypassAllFluidProtection = settings.bypassAllFluidProtection;
+        this.enabledBedrock = enabledBedrock;
+        this.verbose = ObsidianDestroyer.isVerbose();
+        this.eventPositions = new long[eventBlocks.size()];
+        for (int i = 0; i < eventPositions.length; i++) {
+            final Block block = eventBlocks.get(i);
+            eventPositions[i] = BlockId.pack(block.getX(), block.getY(), block.getZ());
+        }
+    }
+
+    /**
+     * Sets the captured blocks the explosion is planned from, which must cover the box of the explosion and
+     * one block around it
+     *
+     * @param capture the captured blocks
+     */
+    void setCapture(BlockCapture capture) {
+        this.capture = capture;
+    }
+
+    /**
+     * Gets the captured type of a block of the explosion
+     *
+     * @param block the block to look up
+     * @return the type of the block when the explosion happened
+     */
+    Material getCapturedType(Block block) {
+        return capture.getType(block.getX(), block.getY(), block.getZ());
+    }
+
+    @Override
+    public ExplosionPlan call() {
+        final MaterialManager materials = MaterialManager.getInstance();
+        final ExplosionPlan plan = new ExplosionPlan();
+        // Paths are only precomputed up to a radius, larger explosions trace their rays
+        final RayPaths paths = radius <= RayPaths.MAX_RADIUS ? RayPaths.of(radius) : null;
+        // Blocking blocks of the radius cube when occlusion is propagated, only handled materials block the unhandled event blocks
+        final OcclusionShells shells = preventBleeding && bleedingMode == BleedingMode.OCCLUSION && radius <= OcclusionShells.MAX_RADIUS
+                ? OcclusionShells.of(radius) : null;
+        final long[] solidBlockers = shells != null ? Util.getOcclusionBlockers(capture, shells, detonatorLoc, false) : null;
+        final long[] handledBlockers = shells != null && eventPositions.length > 0 ? Util.getOcclusionBlockers(capture, shells, detonatorLoc, true) : null;
+        final int originX = detonatorLoc.getBlockX();
+        final int originY = detonatorLoc.getBlockY();
+        final int originZ = detonatorLoc.getBlockZ();
+        // Fluids protect the blocks from a detonation inside of them
+        final boolean fluidProtected = fluidsProtectIndustructables && capture.isLiquid(originX, originY, originZ);
+
+        // Check explosion blocks and their distance from the detonation.
+        for (long position : eventPositions) {
+            final int bx = BlockId.unpackX(position), by = BlockId.unpackY(position), bz = BlockId.unpackZ(position);
+            final Material type = capture.getType(bx, by, bz);
+            final byte data = capture.getData(bx, by, bz);
+            // distance from detonator to the target block
+            final double dist = distance(bx, by, bz);
+
+            // check for liquid overrides and continue if none
+            if (fluidProtected && !materials.getBypassFluidProtection(type, data)) {
+                continue;
+            }
+
+            // Damage bleeding fix
+            if (preventBleeding) {
+                // Attempt to prevent bleeding of damage to materials behind blocks not destroyed
+                if (materials.contains(type, data)) {
+                    // distance checks: if max ignore; if not too close check sight; else apply damage
+                    if (dist > Util.getMaxDistance(type, data, radius) + 0.4) {
+                        plan.add(bx, by, bz, ExplosionPlan.IGNORE, Util.PATH_CLEAR, dist);
+                    } else if (dist > 1.8 && getTargetsPathBlocked(paths, shells, solidBlockers, bx, by, bz, false) != Util.PATH_CLEAR) {
+                        // Radial hitscan check for blocking blocks, ignore damage if blocked
+                        plan.add(bx, by, bz, ExplosionPlan.BLOCK, Util.PATH_CLEAR, dist);
+                        if (verbose) {
+                            ObsidianDestroyer.vdebug("[E] Blocked Bleeding Damage!! " + bx + ", " + by + ", " + bz + " -dist " + dist);
+                        }
+                    } else {
+                        plan.add(bx, by, bz, ExplosionPlan.EVENT_DAMAGE, Util.PATH_CLEAR, dist);
+                    }
+                } else if (getTargetsPathBlocked(paths, shells, handledBlockers, bx, by, bz, true) != Util.PATH_CLEAR) {
+                    // handle non tracked materials blocked and ignore non solids
+                    plan.add(bx, by, bz, ExplosionPlan.BLOCK, Util.PATH_CLEAR, dist);
+                    if (verbose) {
+                        ObsidianDestroyer.vdebug("[E] Blocked Bleeding Damage!!! " + bx + ", " + by + ", " + bz + " -dist " + dist);
+                    }
+                } else {
+                    plan.add(bx, by, bz, ExplosionPlan.UNHANDLED, Util.PATH_CLEAR, dist);
+                }
+            } else if (materials.contains(type, data)) {
+                // Original handling
+                if (dist > Util.getMaxDistance(type, data, radius) + 0.4) {
+                    plan.add(bx, by, bz, ExplosionPlan.IGNORE, Util.PATH_CLEAR, dist);
+                } else {
+                    plan.add(bx, by, bz, ExplosionPlan.EVENT_DAMAGE, Util.PATH_CLEAR, dist);
+                }
+            }
+        }
+
+        // =================================================
+        // Material Explosion radius check for all materials
+        // Loop through all blocks within the applied radius
+        for (int x = -radius; x <= radius; x++) {
+            for (int y = radius; y >= -radius; y--) {
+                for (int z = -radius; z <= radius; z++) {
+                    final int bx = originX + x, by = originY + y, bz = originZ + z;
+                    final Material type = capture.getType(bx, by, bz);
+                    // ignore if air
+                    if (type == Material.AIR) {
+                        continue;
+                    }
+                    // Bedrock check
+                    if (type == Material.BEDROCK && !enabledBedrock) {
+                        continue;
+                    }
+                    final byte data = capture.getData(bx, by, bz);
+
+                    // Radius of effect of the handled explosion that is recreated
+                    final double radiuz = Math.min(radius, Util.getMaxDistance(type, data, radius)) + 0.6;
+                    // Distance of detonator to this blocks location
+                    final double distance = distance(bx, by, bz);
+
+                    // check for liquid detonator and fluid protection overrides
+                    if (fluidProtected && !materials.getBypassFluidProtection(type, data)) {
+                        plan.add(bx, by, bz, ExplosionPlan.RADIUS | ExplosionPlan.IGNORE, Util.PATH_CLEAR, distance);
+                        continue;
+                    }
+
+                    final boolean handled = materials.contains(type, data);
+
+                    // Liquid overrides
+                    if (bypassAllFluidProtection) {
+                        // Special handling for fluids is enabled
+                        if (distance < radiuz - 0.1 && capture.isNearLiquid(bx, by, bz)) {
+                            // if within radius and is a near or a fluid
+                            if (distance > radiuz - 0.6 && Math.random() <= 0.4) {
+                                // semi random radius calculation for edges
+                                plan.add(bx, by, bz, ExplosionPlan.RADIUS | ExplosionPlan.IGNORE, Util.PATH_CLEAR, distance);
+                                continue;
+                            }
+
+                            if (handled) {
+                                // if this material is being handled for durability
+                                double damper = materials.getFluidDamperAmount(type, data);
+                                if (!capture.isLiquid(bx, by, bz) && damper > 0 && damper >= Math.random()) {
+                                    // Ignore the block if the explosion has been absorbed
+                                    if (verbose) {
+                                        ObsidianDestroyer.vdebug("Nearby Fluid Absorbed Explosion Damage to Block! " + bx + ", " + by + ", " + bz);
+                                    }
+                                    plan.add(bx, by, bz, ExplosionPlan.RADIUS | ExplosionPlan.IGNORE, Util.PATH_CLEAR, distance);
+                                    continue;
+                                }
+
+                                // Apply damage to block material
+                                plan.add(bx, by, bz, ExplosionPlan.RADIUS | ExplosionPlan.DAMAGE, Util.PATH_CLEAR, distance);
+                            } else {
+                                // add block or fluid to list to destroy
+                                plan.add(bx, by, bz, ExplosionPlan.RADIUS | ExplosionPlan.DESTROY, Util.PATH_CLEAR, distance);
+                            }
+                            continue;
+                        }
+                    }
+
+                    // Materials not being handled are only checked once they have been blocked
+                    final int flags = handled ? ExplosionPlan.RADIUS : ExplosionPlan.RADIUS | ExplosionPlan.REQUIRES_BLOCKED;
+
+                    // Radius
+                    if (distance <= radiuz) {
+                        // Block damage within the radius
+                        if (distance > radiuz - 0.4 && Math.random() <= 0.2) {
+                            // semi random edge radius calculation
+                            plan.add(bx, by, bz, flags | ExplosionPlan.IGNORE, Util.PATH_CLEAR, distance);
+                            continue;
+                        }
+
+                        // Damage bleeding fix
+                        if (preventBleeding && distance > 1.8) {
+                            // Radial hitscan check for blocking blocks, the blocking block is checked when committed
+                            final long blocking = getTargetsPathBlocked(paths, shells, solidBlockers, bx, by, bz, false);
+                            if (blocking != Util.PATH_CLEAR) {
+                                plan.add(bx, by, bz, flags | ExplosionPlan.PATH_DAMAGE, blocking, distance);
+                                continue;
+                            }
+                        }
+
+                        // Apply damage to block material
+                        plan.add(bx, by, bz, flags | ExplosionPlan.DAMAGE, Util.PATH_CLEAR, distance);
+                    } else {
+                        // Ignore blocks of the event outside of radius
+                        plan.add(bx, by, bz, flags | ExplosionPlan.OUTSIDE, Util.PATH_CLEAR, distance);
+                    }
+                }
+            }
+        }
+        return plan;
+    }
+
+    private long getTargetsPathBlocked(RayPaths paths, OcclusionShells shells, long[] blockers, int x, int y, int z, boolean useOnlyMaterialListing) {
+        if (shells != null) {
+            final int dx = x - detonatorLoc.getBlockX(), dy = y - detonatorLoc.getBlockY(), dz = z - detonatorLoc.getBlockZ();
+            if (shells.contains(dx, dy, dz)) {
+                return blockers[shells.index(dx, dy, dz)];
+            }
+        }
+        if (paths == null) {
+            return Util.getTargetsPathBlocked(capture, detonatorLoc, x, y, z, useOnlyMaterialListing, radius);
+        }
+        return Util.getTargetsPathBlocked(capture, paths, detonatorLoc, x, y, z, useOnlyMaterialListing);
+    }
+
+    private double distance(int x, int y, int z) {
+        final double dx = x + 0.5 - detonatorLoc.getX();
+        final double dy = y + 0.5 - detonatorLoc.getY();
+        final double dz = z + 0.5 - detonatorLoc.getZ();
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+}
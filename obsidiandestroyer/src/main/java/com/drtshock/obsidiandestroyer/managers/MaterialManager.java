@@ -1,6 +1,7 @@
 package com.drtshock.obsidiandestroyer.managers;
 
 import com.drtshock.obsidiandestroyer.datatypes.DurabilityMaterial;
+import org.bukkit.Material;
 import org.bukkit.entity.Creeper;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.EntityType;
@@ -12,6 +13,8 @@ public class MaterialManager {
 
     private static MaterialManager instance;
     private Map<String, DurabilityMaterial> durabilityMaterials = new HashMap<String, DurabilityMaterial>();
+    // Durability materials by material ordinal and data value, see index(Material, int)
+    private volatile DurabilityMaterial[] table = new DurabilityMaterial[Material.values().length << 4];
 
     /**
      * Stores materials that have durability enabled to track
@@ -36,6 +39,50 @@ public class MaterialManager {
     public void load() {
         durabilityMaterials.clear();
         durabilityMaterials = ConfigManager.getInstance().getDurabilityMaterials();
+        final DurabilityMaterial[] compiled = new DurabilityMaterial[Material.values().length << 4];
+        // Materials without a data value apply to every data value, unless one is configured for it
+        for (DurabilityMaterial durabilityMaterial : durabilityMaterials.values()) {
+            if (durabilityMaterial.getTypeData() < 0) {
+                final int index = index(durabilityMaterial.getType(), 0);
+                for (int data = 0; data < 16; data++) {
+                    compiled[index | data] = durabilityMaterial;
+                }
+            }
+        }
+        for (DurabilityMaterial durabilityMaterial : durabilityMaterials.values()) {
+            if (durabilityMaterial.getTypeData() >= 0 && durabilityMaterial.getTypeData() < 16) {
+                compiled[index(durabilityMaterial.getType(), durabilityMaterial.getTypeData())] = durabilityMaterial;
+            }
+        }
+        table = compiled;
+    }
+
+    /**
+     * Gets the durability material handling a block
+     *
+     * @param type the material of the block
+     * @param data the data value of the block
+     * @return the durability material, or null if the block is not handled
+     */
+    public DurabilityMaterial get(Material type, int data) {
+        if (type == null) {
+            return null;
+        }
+        return table[index(type, data)];
+    }
+
+    private static int index(Material type, int data) {
+        return (type.ordinal() << 4) | (data & 15);
+    }
+
+    /**
+     * Checks if the managed blocks contains an item
+     *
+     * @param type to compare against
+     * @return true if item equals managed block
+     */
+    public boolean contains(Material type, int data) {
+        return get(type, data) != null;
     }
 
     /**
@@ -45,8 +92,17 @@ public class MaterialManager {
      * @return true if item equals managed block
      */
     public boolean contains(String material, int data) {
-        material = getMaterialName(material, data);
-        return durabilityMaterials.containsKey(material);
+        return contains(Material.getMaterial(material), data);
+    }
+
+    /**
+     * Returns whether durability for block is enabled.
+     *
+     * @return whether durability for block is enabled
+     */
+    public boolean getDurabilityEnabled(Material type, int data) {
+        final DurabilityMaterial durabilityMaterial = get(type, data);
+        return durabilityMaterial != null && durabilityMaterial.getEnabled();
     }
 
     /**
@@ -55,16 +111,20 @@ public class MaterialManager {
      * @return whether durability for block is enabled
      */
     public boolean getDurabilityEnabled(String material, int data) {
-        material = getMaterialName(material, data);
-        return durabilityMaterials.containsKey(material) && durabilityMaterials.get(material).getEnabled();
+        return getDurabilityEnabled(Material.getMaterial(material), data);
     }
 
-    private String getMaterialName(String material, int data) {
-        if (durabilityMaterials.containsKey(material + ":" + data)) {
-            return material + ":" + data;
-        } else {
-            return material;
+    /**
+     * Returns the max durability.
+     *
+     * @return the max durability
+     */
+    public int getDurability(Material type, int data) {
+        final DurabilityMaterial durabilityMaterial = get(type, data);
+        if (durabilityMaterial != null) {
+            return durabilityMaterial.getDurability();
         }
+        return 0;
     }
 
     /**
@@ -73,11 +133,17 @@ public class MaterialManager {
      * @return the max durability
      */
     public int getDurability(String material, int data) {
-        material = getMaterialName(material, data);
-        if (durabilityMaterials.containsKey(material)) {
-            return durabilityMaterials.get(material).getDurability();
-        }
-        return 0;
+        return getDurability(Material.getMaterial(material), data);
+    }
+
+    /**
+     * Returns whether durability timer for block is enabled.
+     *
+     * @return whether durability timer for block is enabled
+     */
+    public boolean getDurabilityResetTimerEnabled(Material type, int data) {
+        final DurabilityMaterial durabilityMaterial = get(type, data);
+        return durabilityMaterial != null && durabilityMaterial.getResetEnabled();
     }
 
     /**
@@ -86,8 +152,7 @@ public class MaterialManager {
      * @return whether durability timer for block is enabled
      */
     public boolean getDurabilityResetTimerEnabled(String material, int data) {
-        material = getMaterialName(material, data);
-        return durabilityMaterials.containsKey(material) && durabilityMaterials.get(material).getResetEnabled();
+        return getDurabilityResetTimerEnabled(Material.getMaterial(material), data);
     }
 
     /**
@@ -95,27 +160,57 @@ public class MaterialManager {
      *
      * @return the time in milliseconds after which the durability gets reset
      */
-    public long getDurabilityResetTime(String material, int data) {
-        material = getMaterialName(material, data);
-        if (durabilityMaterials.containsKey(material)) {
-            return durabilityMaterials.get(material).getResetTime();
+    public long getDurabilityResetTime(Material type, int data) {
+        final DurabilityMaterial durabilityMaterial = get(type, data);
+        if (durabilityMaterial != null) {
+            return durabilityMaterial.getResetTime();
         }
         return 100000L;
     }
 
+    /**
+     * Returns the time in milliseconds after which the durability gets reset.
+     *
+     * @return the time in milliseconds after which the durability gets reset
+     */
+    public long getDurabilityResetTime(String material, int data) {
+        return getDurabilityResetTime(Material.getMaterial(material), data);
+    }
+
     /**
      * Returns the chance to drop an item from a blown up block.
      *
      * @return the chance to drop an item from a blown up block
      */
-    public double getChanceToDropBlock(String material, int data) {
-        material = getMaterialName(material, data);
-        if (durabilityMaterials.containsKey(material)) {
-            return durabilityMaterials.get(material).getChanceTopDrop();
+    public double getChanceToDropBlock(Material type, int data) {
+        final DurabilityMaterial durabilityMaterial = get(type, data);
+        if (durabilityMaterial != null) {
+            return durabilityMaterial.getChanceTopDrop();
         }
         return 0.6D;
     }
 
+    /**
+     * Returns the chance to drop an item from a blown up block.
+     *
+     * @return the chance to drop an item from a blown up block
+     */
+    public double getChanceToDropBlock(String material, int data) {
+        return getChanceToDropBlock(Material.getMaterial(material), data);
+    }
+
+    /**
+     * Returns if Fireball damage is enabled for block
+     *
+     * @param type the material to lookup
+     * @param data
+     * @return Fireball damage is enabled for block
+     */
+    public boolean getGhastsEnabled(Material type, int data) {
+        final DurabilityMaterial durabilityMaterial = get(type, data);
+        return durabilityMaterial != null && durabilityMaterial.getGhastsEnabled();
+    }
+
     /**
      * Returns if Fireball damage is enabled for block
      *
@@ -124,8 +219,19 @@ public class MaterialManager {
      * @return Fireball damage is enabled for block
      */
     public boolean getGhastsEnabled(String material, int data) {
-        material = getMaterialName(material, data);
-        return durabilityMaterials.containsKey(material) && durabilityMaterials.get(material).getGhastsEnabled();
+        return getGhastsEnabled(Material.getMaterial(material), data);
+    }
+
+    /**
+     * Returns if Creeper damage is enabled for block
+     *
+     * @param type the material to lookup
+     * @param data
+     * @return Creeper damage is enabled for block
+     */
+    public boolean getCreepersEnabled(Material type, int data) {
+        final DurabilityMaterial durabilityMaterial = get(type, data);
+        return durabilityMaterial != null && durabilityMaterial.getCreepersEnabled();
     }
 
     /**
@@ -136,8 +242,19 @@ public class MaterialManager {
      * @return Creeper damage is enabled for block
      */
     public boolean getCreepersEnabled(String material, int data) {
-        material = getMaterialName(material, data);
-        return durabilityMaterials.containsKey(material) && durabilityMaterials.get(material).getCreepersEnabled();
+        return getCreepersEnabled(Material.getMaterial(material), data);
+    }
+
+    /**
+     * Returns if Cannon damage is enabled for block
+     *
+     * @param type the material to lookup
+     * @param data
+     * @return Cannon damage is enabled for block
+     */
+    public boolean getCannonsEnabled(Material type, int data) {
+        final DurabilityMaterial durabilityMaterial = get(type, data);
+        return durabilityMaterial != null && durabilityMaterial.getCannonsEnabled();
     }
 
     /**
@@ -148,8 +265,19 @@ public class MaterialManager {
      * @return Cannon damage is enabled for block
      */
     public boolean getCannonsEnabled(String material, int data) {
-        material = getMaterialName(material, data);
-        return durabilityMaterials.containsKey(material) && durabilityMaterials.get(material).getCannonsEnabled();
+        return getCannonsEnabled(Material.getMaterial(material), data);
+    }
+
+    /**
+     * Returns if TNT damage is enabled for block
+     *
+     * @param type the material to lookup
+     * @param data
+     * @return TNT damage is enabled for block
+     */
+    public boolean getTntEnabled(Material type, int data) {
+        final DurabilityMaterial durabilityMaterial = get(type, data);
+        return durabilityMaterial != null && durabilityMaterial.getTntEnabled();
     }
 
     /**
@@ -160,8 +288,19 @@ public class MaterialManager {
      * @return TNT damage is enabled for block
      */
     public boolean getTntEnabled(String material, int data) {
-        material = getMaterialName(material, data);
-        return durabilityMaterials.containsKey(material) && durabilityMaterials.get(material).getTntEnabled();
+        return getTntEnabled(Material.getMaterial(material), data);
+    }
+
+    /**
+     * Returns if TNT minecart damage is enabled for block
+     *
+     * @param type the material to lookup
+     * @param data
+     * @return TNT minecart damage is enabled for block
+     */
+    public boolean getTntMinecartsEnabled(Material type, int data) {
+        final DurabilityMaterial durabilityMaterial = get(type, data);
+        return durabilityMaterial != null && durabilityMaterial.getTntMinecartsEnabled();
     }
 
     /**
@@ -172,8 +311,19 @@ public class MaterialManager {
      * @return TNT minecart damage is enabled for block
      */
     public boolean getTntMinecartsEnabled(String material, int data) {
-        material = getMaterialName(material, data);
-        return durabilityMaterials.containsKey(material) && durabilityMaterials.get(material).getTntMinecartsEnabled();
+        return getTntMinecartsEnabled(Material.getMaterial(material), data);
+    }
+
+    /**
+     * Returns if Wither damage is enabled for block
+     *
+     * @param type the material to lookup
+     * @param data
+     * @return Wither damage is enabled for block
+     */
+    public boolean getWithersEnabled(Material type, int data) {
+        final DurabilityMaterial durabilityMaterial = get(type, data);
+        return durabilityMaterial != null && durabilityMaterial.getWithersEnabled();
     }
 
     /**
@@ -184,56 +334,66 @@ public class MaterialManager {
      * @return Wither damage is enabled for block
      */
     public boolean getWithersEnabled(String material, int data) {
-        material = getMaterialName(material, data);
-        return durabilityMaterials.containsKey(material) && durabilityMaterials.get(material).getWithersEnabled();
+        return getWithersEnabled(Material.getMaterial(material), data);
     }
 
     /**
      * Returns the blast radius for a specific material
      *
-     * @param material the name of the material to lookup
+     * @param type the material to lookup
      * @param data
      * @return Blast Radius or 0
      */
-    public int getBlastRadius(String material, int data) {
-        material = getMaterialName(material, data);
-        if (durabilityMaterials.containsKey(material)) {
-            return durabilityMaterials.get(material).getRadius();
+    public int getBlastRadius(Material type, int data) {
+        final DurabilityMaterial durabilityMaterial = get(type, data);
+        if (durabilityMaterial != null) {
+            return durabilityMaterial.getRadius();
         }
         return 0;
     }
 
     /**
-     * Returns the amount of damage done to the material by an entity
+     * Returns the blast radius for a specific material
      *
-     * @param entity   the entity that is involved in damaging
      * @param material the name of the material to lookup
      * @param data
+     * @return Blast Radius or 0
+     */
+    public int getBlastRadius(String material, int data) {
+        return getBlastRadius(Material.getMaterial(material), data);
+    }
+
+    /**
+     * Returns the amount of damage done to the material by an entity
+     *
+     * @param entity the entity that is involved in damaging
+     * @param type   the material to lookup
+     * @param data
      * @return amount of damage done
      */
-    public int getDamageTypeAmount(Entity entity, String material, int data) {
-        material = getMaterialName(material, data);
-        if (durabilityMaterials.containsKey(material)) {
+    public int getDamageTypeAmount(Entity entity, Material type, int data) {
+        final DurabilityMaterial durabilityMaterial = get(type, data);
+        if (durabilityMaterial != null) {
             EntityType eventTypeRep = entity.getType();
             switch (eventTypeRep) {
                 case PRIMED_TNT:
-                    return durabilityMaterials.get(material).getTntDamage();
+                    return durabilityMaterial.getTntDamage();
                 case SNOWBALL:
                     return 0;
                 case CREEPER:
                     Creeper creeper = (Creeper) entity;
-                    return creeper.isPowered() ? durabilityMaterials.get(material).getChargedCreeperDamage() : durabilityMaterials.get(material).getCreepersDamage();
+                    return creeper.isPowered() ? durabilityMaterial.getChargedCreeperDamage() : durabilityMaterial.getCreepersDamage();
                 case WITHER:
                 case WITHER_SKULL:
-                    return durabilityMaterials.get(material).getWithersDamage();
+                    return durabilityMaterial.getWithersDamage();
                 case MINECART_TNT:
-                    return durabilityMaterials.get(material).getTntMinecartsDamage();
+                    return durabilityMaterial.getTntMinecartsDamage();
                 case FIREBALL:
                 case SMALL_FIREBALL:
                 case GHAST:
-                    return durabilityMaterials.get(material).getGhastsDamage();
+                    return durabilityMaterial.getGhastsDamage();
                 case BAT:
-                    return durabilityMaterials.get(material).getNullDamage();
+                    return durabilityMaterial.getNullDamage();
                 default:
                     break;
             }
@@ -241,6 +401,33 @@ public class MaterialManager {
         return 1;
     }
 
+    /**
+     * Returns the amount of damage done to the material by an entity
+     *
+     * @param entity   the entity that is involved in damaging
+     * @param material the name of the material to lookup
+     * @param data
+     * @return amount of damage done
+     */
+    public int getDamageTypeAmount(Entity entity, String material, int data) {
+        return getDamageTypeAmount(entity, Material.getMaterial(material), data);
+    }
+
+    /**
+     * Returns the amount of damage done to the material by a cannon projectile
+     *
+     * @param type the material to lookup
+     * @param data
+     * @return amount of damage done
+     */
+    public int getDamageTypeCannonsImpactAmount(Material type, int data) {
+        final DurabilityMaterial durabilityMaterial = get(type, data);
+        if (durabilityMaterial != null) {
+            return durabilityMaterial.getCannonsImpactDamage();
+        }
+        return 1;
+    }
+
     /**
      * Returns the amount of damage done to the material by a cannon projectile
      *
@@ -249,9 +436,20 @@ public class MaterialManager {
      * @return amount of damage done
      */
     public int getDamageTypeCannonsImpactAmount(String material, int data) {
-        material = getMaterialName(material, data);
-        if (durabilityMaterials.containsKey(material)) {
-            return durabilityMaterials.get(material).getCannonsImpactDamage();
+        return getDamageTypeCannonsImpactAmount(Material.getMaterial(material), data);
+    }
+
+    /**
+     * Returns the amount of damage done to the material by a cannon projectile
+     *
+     * @param type the material to lookup
+     * @param data
+     * @return amount of damage done
+     */
+    public int getDamageTypeCannonsPierceAmount(Material type, int data) {
+        final DurabilityMaterial durabilityMaterial = get(type, data);
+        if (durabilityMaterial != null) {
+            return durabilityMaterial.getCannonsPierceDamage();
         }
         return 1;
     }
@@ -264,11 +462,22 @@ public class MaterialManager {
      * @return amount of damage done
      */
     public int getDamageTypeCannonsPierceAmount(String material, int data) {
-        material = getMaterialName(material, data);
-        if (durabilityMaterials.containsKey(material)) {
-            return durabilityMaterials.get(material).getCannonsPierceDamage();
+        return getDamageTypeCannonsPierceAmount(Material.getMaterial(material), data);
+    }
+
+    /**
+     * Returns the amount to damper based on the material
+     *
+     * @param type the material to lookup
+     * @param data
+     * @return amount to damper
+     */
+    public double getFluidDamperAmount(Material type, int data) {
+        final DurabilityMaterial durabilityMaterial = get(type, data);
+        if (durabilityMaterial != null) {
+            return durabilityMaterial.getFluidDamper();
         }
-        return 1;
+        return 0;
     }
 
     /**
@@ -279,11 +488,22 @@ public class MaterialManager {
      * @return amount to damper
      */
     public double getFluidDamperAmount(String material, int data) {
-        material = getMaterialName(material, data);
-        if (durabilityMaterials.containsKey(material)) {
-            return durabilityMaterials.get(material).getFluidDamper();
+        return getFluidDamperAmount(Material.getMaterial(material), data);
+    }
+
+    /**
+     * Returns if the material is destructible
+     *
+     * @param type the material to lookup
+     * @param data
+     * @return true if destructible
+     */
+    public boolean isDestructible(Material type, int data) {
+        final DurabilityMaterial durabilityMaterial = get(type, data);
+        if (durabilityMaterial != null) {
+            return durabilityMaterial.isDestructible();
         }
-        return 0;
+        return true;
     }
 
     /**
@@ -294,9 +514,20 @@ public class MaterialManager {
      * @return true if destructible
      */
     public boolean isDestructible(String material, int data) {
-        material = getMaterialName(material, data);
-        if (durabilityMaterials.containsKey(material)) {
-            return durabilityMaterials.get(material).isDestructible();
+        return isDestructible(Material.getMaterial(material), data);
+    }
+
+    /**
+     * Returns if the material handles null explosion damage
+     *
+     * @param type the material to lookup
+     * @param data
+     * @return true if material handles null damage
+     */
+    public boolean getNullEnabled(Material type, int data) {
+        final DurabilityMaterial durabilityMaterial = get(type, data);
+        if (durabilityMaterial != null) {
+            return durabilityMaterial.isNullEnabled();
         }
         return true;
     }
@@ -309,11 +540,22 @@ public class MaterialManager {
      * @return true if material handles null damage
      */
     public boolean getNullEnabled(String material, int data) {
-        material = getMaterialName(material, data);
-        if (durabilityMaterials.containsKey(material)) {
-            return durabilityMaterials.get(material).isNullEnabled();
+        return getNullEnabled(Material.getMaterial(material), data);
+    }
+
+    /**
+     * Returns if the material bypasses fluid protections
+     *
+     * @param type the material to lookup
+     * @param data
+     * @return true if material is damageable while protected by fluids
+     */
+    public boolean getBypassFluidProtection(Material type, int data) {
+        final DurabilityMaterial durabilityMaterial = get(type, data);
+        if (durabilityMaterial != null) {
+            return durabilityMaterial.bypassFluidProtection();
         }
-        return true;
+        return false;
     }
 
     /**
@@ -324,9 +566,20 @@ public class MaterialManager {
      * @return true if material is damageable while protected by fluids
      */
     public boolean getBypassFluidProtection(String material, int data) {
-        material = getMaterialName(material, data);
-        if (durabilityMaterials.containsKey(material)) {
-            return durabilityMaterials.get(material).bypassFluidProtection();
+        return getBypassFluidProtection(Material.getMaterial(material), data);
+    }
+
+    /**
+     * Returns if the material bypasses faction power protection
+     *
+     * @param type the material to lookup
+     * @param data
+     * @return true if the material bypasses factions protection
+     */
+    public boolean getBypassFactionsProtection(Material type, int data) {
+        final DurabilityMaterial durabilityMaterial = get(type, data);
+        if (durabilityMaterial != null) {
+            return durabilityMaterial.bypassFactionsProtection();
         }
         return false;
     }
@@ -339,10 +592,6 @@ public class MaterialManager {
      * @return true if the material bypasses factions protection
      */
     public boolean getBypassFactionsProtection(String material, int data) {
-        material = getMaterialName(material, data);
-        if (durabilityMaterials.containsKey(material)) {
-            return durabilityMaterials.get(material).bypassFactionsProtection();
-        }
-        return false;
+        return getBypassFactionsProtection(Material.getMaterial(material), data);
     }
 }
@@ -0,0 +1,125 @@
+package com.drtshock.obsidiandestroyer.managers.factions;
+
+import com.drtshock.obsidiandestroyer.managers.ChunkManager;
+import com.drtshock.obsidiandestroyer.util.LongHashMap;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Faction claims of the chunks looked up during a tick.
+ * <p/>
+ * Factions claims whole chunks, so the explosion flag, power and offline state of a chunk are resolved with
+ * one lookup and reused for every block of the chunk until the cache is cleared at the start of the next tick.
+ * The chunks of an area can be resolved together before its blocks are checked. The cache is only used on the
+ * server thread.
+ */
+public class ClaimCache {
+
+    private final Map<UUID, LongHashMap<ClaimInfo>> worlds = new HashMap<UUID, LongHashMap<ClaimInfo>>();
+
+    /**
+     * Forgets every claim looked up so far
+     */
+    public void clear() {
+        if (!worlds.isEmpty()) {
+            worlds.clear();
+        }
+    }
+
+    /**
+     * Resolves the claims of the chunks covering an area that are not cached yet, with a single call to the hook
+     *
+     * @param world the world of the area
+     * @param minX  the lowest block x coordinate
+     * @param minZ  the lowest block z coordinate
+     * @param maxX  the highest block x coordinate
+     * @param maxZ  the highest block z coordinate
+     */
+    public void resolve(World world, int minX, int minZ, int maxX, int maxZ) {
+        final LongHashMap<ClaimInfo> claims = getClaims(world);
+        final int minChunkX = minX >> 4, minChunkZ = minZ >> 4, maxChunkX = maxX >> 4, maxChunkZ = maxZ >> 4;
+        final int[] chunkXs = new int[(maxChunkX - minChunkX + 1) * (maxChunkZ - minChunkZ + 1)];
+        final int[] chunkZs = new int[chunkXs.length];
+        int missing = 0;
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                if (!claims.containsKey(ChunkManager.chunkKey(chunkX, chunkZ))) {
+                    chunkXs[missing] = chunkX;
+                    chunkZs[missing] = chunkZ;
+                    missing++;
+                }
+            }
+        }
+        if (missing == 0) {
+            return;
+        }
+        final ClaimInfo[] resolved = missing == chunkXs.length
+                ? FactionsIntegration.get().getClaims(world, chunkXs, chunkZs)
+                : FactionsIntegration.get().getClaims(world, Arrays.copyOf(chunkXs, missing), Arrays.copyOf(chunkZs, missing));
+        for (int i = 0; i < missing; i++) {
+            claims.put(ChunkManager.chunkKey(chunkXs[i], chunkZs[i]), resolved[i]);
+        }
+    }
+
+    /**
+     * Checks if explosions are enabled in the claim of a location
+     *
+     * @param location the location to check
+     * @return true if explosions are enabled
+     */
+    public boolean isExplosionsEnabled(Location location) {
+        return getClaim(location).isExplosionsEnabled();
+    }
+
+    /**
+     * Checks if the faction claiming a location is at power
+     *
+     * @param location the location to check
+     * @return true if the faction has at least as much power as land
+     */
+    public boolean isFactionAtPower(Location location) {
+        return getClaim(location).isFactionAtPower();
+    }
+
+    /**
+     * Checks if the faction claiming a location is offline
+     *
+     * @param location the location to check
+     * @return true if the faction is offline
+     */
+    public boolean isFactionOffline(Location location) {
+        return getClaim(location).isFactionOffline();
+    }
+
+    /**
+     * Gets the claim of the chunk holding a location, resolving it if it is not cached yet
+     *
+     * @param location the location to check
+     * @return the state of the claim
+     */
+    public ClaimInfo getClaim(Location location) {
+        final LongHashMap<ClaimInfo> claims = getClaims(location.getWorld());
+        final int chunkX = location.getBlockX() >> 4, chunkZ = location.getBlockZ() >> 4;
+        final long key = ChunkManager.chunkKey(chunkX, chunkZ);
+        ClaimInfo claim = claims.get(key);
+        if (claim == null) {
+            claim = FactionsIntegration.get().getClaim(location.getWorld(), chunkX, chunkZ);
+            claims.put(key, claim);
+        }
+        return claim;
+    }
+
+    private LongHashMap<ClaimInfo> getClaims(World world) {
+        LongHashMap<ClaimInfo> claims = worlds.get(world.getUID());
+        if (claims == null) {
+            claims = new LongHashMap<ClaimInfo>();
+            worlds.put(world.getUID(), claims);
+        }
+        return claims;
+    }
+}
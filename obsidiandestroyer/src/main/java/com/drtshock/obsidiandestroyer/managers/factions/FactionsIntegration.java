@@ -7,6 +7,8 @@ import com.drtshock.obsidiandestroyer.managers.HookManager;
  * Created by Squid on 12/6/2014.
  */
 public class FactionsIntegration {
+    private static final ClaimCache claims = new ClaimCache();
+
     public static boolean isUsing() {
         return ConfigManager.getInstance().getUsingFactions();
     }
@@ -14,4 +16,13 @@ public class FactionsIntegration {
     public static FactionsHook get() {
         return HookManager.getInstance().getFactionsManager().getFactions();
     }
+
+    /**
+     * Gets the claims looked up during the current tick, only on the server thread
+     *
+     * @return the claim cache
+     */
+    public static ClaimCache getClaims() {
+        return claims;
+    }
 }
@@ -0,0 +1,192 @@
+package com.drtshock.obsidiandestroyer.util;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map with primitive long keys.
+ * <p/>
+ * Used to index chunks by their packed coordinates without boxing or building String keys.
+ * The map is not thread-safe.
+ *
+ * @param <V> the value type
+ */
+public class LongHashMap<V> {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+    private int resizeAt;
+
+    public LongHashMap() {
+        allocate(DEFAULT_CAPACITY);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int index = indexOf(key);
+        return index >= 0 ? (V) values[index] : null;
+    }
+
+    /**
+     * Maps a key to a non null value
+     *
+     * @param key   the key
+     * @param value the value
+     * @return the previous value of the key or null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Null values are not supported");
+        }
+        int index = slot(key);
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                V old = (V) values[index];
+                values[index] = value;
+                return old;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        if (++size >= resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        V old = (V) values[index];
+        removeAt(index);
+        return old;
+    }
+
+    public void clear() {
+        allocate(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Gets the next occupied slot, used to iterate the map without allocating.
+     * <pre>
+     * for (int slot = map.nextSlot(0); slot >= 0; slot = map.nextSlot(slot + 1))
+     * </pre>
+     *
+     * @param from the first slot to check
+     * @return the next occupied slot or -1 if there is none
+     */
+    public int nextSlot(int from) {
+        for (int i = from; i < values.length; i++) {
+            if (values[i] != null) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public long keyAt(int slot) {
+        return keys[slot];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V valueAt(int slot) {
+        return (V) values[slot];
+    }
+
+    /**
+     * Copies the current values into an array
+     *
+     * @param array the array to fill if large enough
+     * @return the values of the map
+     */
+    @SuppressWarnings("unchecked")
+    public V[] values(V[] array) {
+        V[] result = array.length >= size ? array : (V[]) Arrays.copyOf(array, size);
+        int i = 0;
+        for (int slot = nextSlot(0); slot >= 0; slot = nextSlot(slot + 1)) {
+            result[i++] = (V) values[slot];
+        }
+        if (result.length > size) {
+            result[size] = null;
+        }
+        return result;
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private int indexOf(long key) {
+        int index = slot(key);
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void removeAt(int index) {
+        // Backward shift deletion keeps probe chains intact without tombstones
+        int gap = index;
+        int next = (gap + 1) & mask;
+        while (values[next] != null) {
+            int home = slot(keys[next]);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[gap] = null;
+        size--;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeAt = (capacity * 3) >>> 2;
+        size = 0;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int index = slot(oldKeys[i]);
+                while (values[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+                size++;
+            }
+        }
+    }
+}
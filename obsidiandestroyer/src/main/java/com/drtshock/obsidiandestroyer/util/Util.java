@@ -1,15 +1,21 @@
 package com.drtshock.obsidiandestroyer.util;
 
+import com.drtshock.obsidiandestroyer.datatypes.BlockCapture;
+import com.drtshock.obsidiandestroyer.datatypes.BlockId;
+import com.drtshock.obsidiandestroyer.datatypes.ConfigSnapshot;
+import com.drtshock.obsidiandestroyer.datatypes.OcclusionShells;
+import com.drtshock.obsidiandestroyer.datatypes.RayPaths;
 import com.drtshock.obsidiandestroyer.managers.ConfigManager;
 import com.drtshock.obsidiandestroyer.managers.HookManager;
 import com.drtshock.obsidiandestroyer.managers.MaterialManager;
+import com.drtshock.obsidiandestroyer.managers.factions.ClaimCache;
 import com.drtshock.obsidiandestroyer.managers.factions.FactionsIntegration;
 import org.bukkit.ChatColor;
 import org.bukkit.Location;
 import org.bukkit.Material;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
-import org.bukkit.util.BlockIterator;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -17,6 +23,9 @@ import java.util.Random;
 
 public class Util {
 
+    // Returned by the captured path trace when nothing blocks the path
+    public static final long PATH_CLEAR = Long.MIN_VALUE;
+
     public static boolean isSolid(Material material) {
         switch (material) {
             case AIR:
@@ -194,6 +203,10 @@ public class Util {
     }
 
     public static int getMaxDistance(String material, int data, int defaultRadius) {
+        return getMaxDistance(Material.getMaterial(material), data, defaultRadius);
+    }
+
+    public static int getMaxDistance(Material material, int data, int defaultRadius) {
         int dist = MaterialManager.getInstance().getBlastRadius(material, data);
         if (dist <= 0) {
             dist = defaultRadius;
@@ -207,11 +220,19 @@ public class Util {
     }
 
     public static boolean checkIfMax(int value, String id, int data, double multi) {
-        return value >= Math.round(MaterialManager.getInstance().getDurability(id, data) * multi);
+        return checkIfMax(value, Material.getMaterial(id), data, multi);
+    }
+
+    public static boolean checkIfMax(int value, Material type, int data, double multi) {
+        return value >= Math.round(MaterialManager.getInstance().getDurability(type, data) * multi);
     }
 
     public static boolean checkIfOverMax(int value, String id, int data, double multi) {
-        final int du = MaterialManager.getInstance().getDurability(id, data);
+        return checkIfOverMax(value, Material.getMaterial(id), data, multi);
+    }
+
+    public static boolean checkIfOverMax(int value, Material type, int data, double multi) {
+        final int du = MaterialManager.getInstance().getDurability(type, data);
         return value > Math.round((du * multi) + (du * 0.18));
     }
 
@@ -237,121 +258,148 @@ public class Util {
     }
 
     public static boolean isTargetsPathBlocked(Location tLoc, Location dLoc, boolean useOnlyMaterialListing) {
+        return getBlockingBlock(tLoc, dLoc, useOnlyMaterialListing, Integer.MAX_VALUE) != null;
+    }
 
-        // check world
-        if (!dLoc.getWorld().getName().equalsIgnoreCase(tLoc.getWorld().getName())) {
-            return false;
+    public static List<Location> getTargetsPathBlocked(Location tLoc, Location dLoc, boolean useOnlyMaterialListing) {
+        ArrayList<Location> tagetsInPath = new ArrayList<Location>();
+        final Block block = getBlockingBlock(tLoc, dLoc, useOnlyMaterialListing, ConfigManager.getInstance().getRadius() + 1);
+        if (block != null) {
+            tagetsInPath.add(block.getLocation());
         }
+        return tagetsInPath;
+    }
 
-        // if the distance is too close... the path is not blocked ;)
-        if (dLoc.distance(tLoc) <= 0.9) {
-            return false;
+    /**
+     * Traces the path from a detonation to a target block against captured blocks
+     *
+     * @param capture                the blocks around the detonation
+     * @param dLoc                   the detonation location
+     * @param targetX                the target block x coordinate
+     * @param targetY                the target block y coordinate
+     * @param targetZ                the target block z coordinate
+     * @param useOnlyMaterialListing only handled materials block the path
+     * @param radius                 the explosion radius
+     * @return the packed position of the first blocking block, or {@link #PATH_CLEAR} if the path is clear
+     */
+    public static long getTargetsPathBlocked(BlockCapture capture, Location dLoc, int targetX, int targetY, int targetZ, boolean useOnlyMaterialListing, int radius) {
+        final int maxBlocks = radius + 1;
+        final int[] pathX = new int[maxBlocks], pathY = new int[maxBlocks], pathZ = new int[maxBlocks];
+        final int length = RayPaths.trace(dLoc.getX(), dLoc.getY(), dLoc.getZ(), targetX + 0.5, targetY + 0.5, targetZ + 0.5,
+                targetX, targetY, targetZ, maxBlocks, pathX, pathY, pathZ);
+        for (int i = 0; i < length; i++) {
+            if (isBlockingPath(capture.getType(pathX[i], pathY[i], pathZ[i]), capture.getData(pathX[i], pathY[i], pathZ[i]), useOnlyMaterialListing)) {
+                return BlockId.pack(pathX[i], pathY[i], pathZ[i]);
+            }
         }
+        return PATH_CLEAR;
+    }
 
-        // try to iterate through blocks between dLoc and tLoc
-        try {
-            // Create a vector block trace from the detonator location to damaged block's location
-            BlockIterator blocksInPath = new BlockIterator(tLoc.getWorld(), dLoc.toVector(), tLoc.toVector().subtract(dLoc.toVector()).normalize(), 0, (int) dLoc.distance(tLoc));
-
-            // iterate through the blocks in the path
-            while (blocksInPath.hasNext()) {
-                // the next block
-                final Block block = blocksInPath.next();
-                if (block == null) {
-                    continue;
-                }
-                // check if next block is the target block
-                if (tLoc.getWorld().getName().equals(block.getWorld().getName()) &&
-                        tLoc.getBlockX() == block.getX() &&
-                        tLoc.getBlockY() == block.getY() &&
-                        tLoc.getBlockZ() == block.getZ()) {
-                    // ignore target block
-                    continue;
-                }
+    /**
+     * Traces the path from the block of a detonation to a target block against captured blocks, using the
+     * precomputed path of the target offset. Targets outside of the radius cube are traced from the detonation.
+     *
+     * @param capture                the blocks around the detonation
+     * @param paths                  the precomputed paths of the explosion radius
+     * @param dLoc                   the detonation location
+     * @param targetX                the target block x coordinate
+     * @param targetY                the target block y coordinate
+     * @param targetZ                the target block z coordinate
+     * @param useOnlyMaterialListing only handled materials block the path
+     * @return the packed position of the first blocking block, or {@link #PATH_CLEAR} if the path is clear
+     */
+    public static long getTargetsPathBlocked(BlockCapture capture, RayPaths paths, Location dLoc, int targetX, int targetY, int targetZ, boolean useOnlyMaterialListing) {
+        final int originX = dLoc.getBlockX(), originY = dLoc.getBlockY(), originZ = dLoc.getBlockZ();
+        final int dx = targetX - originX, dy = targetY - originY, dz = targetZ - originZ;
+        if (!paths.contains(dx, dy, dz)) {
+            return getTargetsPathBlocked(capture, dLoc, targetX, targetY, targetZ, useOnlyMaterialListing, paths.getRadius());
+        }
+        final int path = paths.path(dx, dy, dz);
+        for (int step = paths.start(path); step < paths.end(path); step++) {
+            final int x = originX + paths.xAt(step), y = originY + paths.yAt(step), z = originZ + paths.zAt(step);
+            if (isBlockingPath(capture.getType(x, y, z), capture.getData(x, y, z), useOnlyMaterialListing)) {
+                return BlockId.pack(x, y, z);
+            }
+        }
+        return PATH_CLEAR;
+    }
 
-                // check if the block material is being handled
-                if (useOnlyMaterialListing) {
-                    // only handle for certain case as to not interfere with all explosions
-                    if (MaterialManager.getInstance().contains(block.getType().name(), block.getData())) {
-                        return true;
-                    } else {
-                        continue;
-                    }
-                }
-                // check if the block material is a solid
-                if (!isNonSolid(block.getType())) {
-                    return true;
+    /**
+     * Propagates occlusion outwards from the block of a detonation, shell by shell, against captured blocks.
+     * Every block inherits the blocking block of its parent, or is blocked by its parent when the parent blocks
+     * the path itself.
+     *
+     * @param capture                the blocks around the detonation
+     * @param shells                 the shells of the explosion radius
+     * @param dLoc                   the detonation location
+     * @param useOnlyMaterialListing only handled materials block the path
+     * @return the packed position of the first blocking block of every block in the radius cube, or
+     * {@link #PATH_CLEAR} if its path is clear
+     */
+    public static long[] getOcclusionBlockers(BlockCapture capture, OcclusionShells shells, Location dLoc, boolean useOnlyMaterialListing) {
+        final int originX = dLoc.getBlockX(), originY = dLoc.getBlockY(), originZ = dLoc.getBlockZ();
+        final long[] blockers = new long[shells.getCells()];
+        blockers[shells.center()] = PATH_CLEAR;
+        for (int i = 0; i < shells.getOrdered(); i++) {
+            final int cell = shells.cellAt(i);
+            final int parent = shells.parent(cell);
+            long blocker = blockers[parent];
+            if (blocker == PATH_CLEAR) {
+                final int x = originX + shells.xOf(parent), y = originY + shells.yOf(parent), z = originZ + shells.zOf(parent);
+                if (isBlockingPath(capture.getType(x, y, z), capture.getData(x, y, z), useOnlyMaterialListing)) {
+                    blocker = BlockId.pack(x, y, z);
                 }
             }
-        } catch (Exception e) {
-            // ignore the error and return no targets in path
+            blockers[cell] = blocker;
         }
-        return false;
+        return blockers;
     }
 
-    public static List<Location> getTargetsPathBlocked(Location tLoc, Location dLoc, boolean useOnlyMaterialListing) {
-        ArrayList<Location> tagetsInPath = new ArrayList<Location>();
-
+    /**
+     * Finds the first block blocking the path from a detonation to a target in the world
+     */
+    private static Block getBlockingBlock(Location tLoc, Location dLoc, boolean useOnlyMaterialListing, int maxBlocks) {
         // check world
-        if (!dLoc.getWorld().getName().equalsIgnoreCase(tLoc.getWorld().getName())) {
-            return tagetsInPath;
+        final World world = tLoc.getWorld();
+        if (dLoc.getWorld() != world) {
+            return null;
         }
-
-        // if the distance is too close... the path is not blocked ;)
-        if (dLoc.distance(tLoc) <= 0.9) {
-            return tagetsInPath;
+        // every face crossed adds a block, so the path can't be longer than three blocks per block of distance
+        final int capacity = (int) Math.min(maxBlocks, 3L * ((long) dLoc.distance(tLoc) + 2));
+        final int[] pathX = new int[capacity], pathY = new int[capacity], pathZ = new int[capacity];
+        final int length = RayPaths.trace(dLoc.getX(), dLoc.getY(), dLoc.getZ(), tLoc.getX(), tLoc.getY(), tLoc.getZ(),
+                tLoc.getBlockX(), tLoc.getBlockY(), tLoc.getBlockZ(), capacity, pathX, pathY, pathZ);
+        for (int i = 0; i < length; i++) {
+            final Block block = world.getBlockAt(pathX[i], pathY[i], pathZ[i]);
+            if (isBlockingPath(block.getType(), block.getData(), useOnlyMaterialListing)) {
+                return block;
+            }
         }
+        return null;
+    }
 
-        // try to iterate through blocks between dLoc and tLoc
-        try {
-            // Create a vector block trace from the detonator location to damaged block's location
-            BlockIterator blocksInPath = new BlockIterator(tLoc.getWorld(), dLoc.toVector(), tLoc.toVector().subtract(dLoc.toVector()).normalize(), 0, (int) dLoc.distance(tLoc));
-
-            // iterate through the blocks in the path
-            int i = ConfigManager.getInstance().getRadius() + 1;
-            while (blocksInPath.hasNext()) {
-                if (i > 0) {
-                    i--;
-                } else {
-                    break;
-                }
-                // the next block
-                final Block block = blocksInPath.next();
-                if (block == null) {
-                    continue;
-                }
-                // check if next block is the target block
-                if (tLoc.getWorld().getName().equals(block.getWorld().getName()) &&
-                        tLoc.getBlockX() == block.getX() &&
-                        tLoc.getBlockY() == block.getY() &&
-                        tLoc.getBlockZ() == block.getZ()) {
-                    // ignore target block
-                    continue;
-                }
-
-                // check if the block material is being handled
-                if (useOnlyMaterialListing) {
-                    // only handle for certain case as to not interfere with all explosions
-                    if (MaterialManager.getInstance().contains(block.getType().name(), block.getData())) {
-                        tagetsInPath.add(block.getLocation());
-                        break;
-                    } else {
-                        continue;
-                    }
-                }
-                // check if the block material is a solid
-                if (!isNonSolid(block.getType())) {
-                    tagetsInPath.add(block.getLocation());
-                    break;
-                }
-            }
-        } catch (Exception e) {
-            // ignore the error and return no targets in path
+    private static boolean isBlockingPath(Material type, int data, boolean useOnlyMaterialListing) {
+        // check if the block material is being handled
+        if (useOnlyMaterialListing) {
+            // only handle for certain case as to not interfere with all explosions
+            return MaterialManager.getInstance().contains(type, data);
         }
-        return tagetsInPath;
+        // check if the block material is a solid
+        return !isNonSolid(type);
     }
 
     public static double getMultiplier(Location location) {
+        return getMultiplier(location, ConfigManager.getInstance().getSnapshot());
+    }
+
+    /**
+     * Gets the durability multiplier of a location with the settings of the explosion or tick it belongs to
+     *
+     * @param location the location to get the multiplier of
+     * @param settings the config settings to read
+     * @return the durability multiplier, 0 if the location is protected
+     */
+    public static double getMultiplier(Location location, ConfigSnapshot settings) {
         if (!HookManager.getInstance().isFactionsFound()) {
             return 1D;
         }
@@ -359,28 +407,30 @@ public class Util {
             return 1D;
         }
 
+        // Claims are looked up once per chunk and tick
+        final ClaimCache claims = FactionsIntegration.getClaims();
         double value;
-        if (FactionsIntegration.get().isExplosionsEnabled(location)) {
+        if (claims.isExplosionsEnabled(location)) {
             value = 1D;
         } else {
             return 0;
         }
-        if (ConfigManager.getInstance().getUseFactionsPowerLevel() && FactionsIntegration.get().isFactionAtPower(location)) {
-            if (!MaterialManager.getInstance().getBypassFactionsProtection(location.getBlock().getType().name(), location.getBlock().getData())) {
+        if (settings.useFactionsPowerLevel && claims.isFactionAtPower(location)) {
+            if (!MaterialManager.getInstance().getBypassFactionsProtection(location.getBlock().getType(), location.getBlock().getData())) {
                 return 0;
             }
         }
-        if (ConfigManager.getInstance().getHandleOfflineFactions()) {
-            if (FactionsIntegration.get().isFactionOffline(location)) {
-                if (ConfigManager.getInstance().getProtectOfflineFactions()) {
+        if (settings.handleOfflineFactions) {
+            if (claims.isFactionOffline(location)) {
+                if (settings.protectOfflineFactions) {
                     return 0;
                 }
-                value = ConfigManager.getInstance().getOfflineFactionsDurabilityMultiplier();
+                value = settings.offlineFactionsDurabilityMultiplier;
             }
         }
-        if (ConfigManager.getInstance().getHandleOnlineFactions()) {
-            if (!FactionsIntegration.get().isFactionOffline(location)) {
-                value = ConfigManager.getInstance().getOnlineFactionsDurabilityMultiplier();
+        if (settings.handleOnlineFactions) {
+            if (!claims.isFactionOffline(location)) {
+                value = settings.onlineFactionsDurabilityMultiplier;
             }
         }
         if (value < 0) {
@@ -0,0 +1,189 @@
+package com.drtshock.obsidiandestroyer.managers;
+
+import com.drtshock.obsidiandestroyer.datatypes.BlockId;
+import com.drtshock.obsidiandestroyer.datatypes.ConfigSnapshot;
+import com.drtshock.obsidiandestroyer.datatypes.DamageSummary;
+import com.drtshock.obsidiandestroyer.datatypes.DurabilityMaterial;
+import com.drtshock.obsidiandestroyer.datatypes.DurabilityStore;
+import com.drtshock.obsidiandestroyer.enumerations.DamageResult;
+import com.drtshock.obsidiandestroyer.util.LongHashMap;
+import org.bukkit.Chunk;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.configuration.ConfigurationSection;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ChunkManagerTest {
+
+    private static final String WORLD = "world";
+    private static final UUID WORLD_ID = UUID.randomUUID();
+
+    private File dir;
+    private ChunkStorage storage;
+    private DurabilityJournal journal;
+    private ChunkIO io;
+
+    @Before
+    public void setUp() throws Exception {
+        installDefaultSettings();
+        dir = File.createTempFile("durabilities", "");
+        assertTrue(dir.delete() && dir.mkdirs());
+        storage = new ChunkStorage(dir);
+        journal = new DurabilityJournal(dir);
+        io = new ChunkIO(storage, journal);
+    }
+
+    @After
+    public void tearDown() {
+        io.shutdown();
+        delete(dir);
+    }
+
+    @Test
+    public void hitOnLoadingChunkCountsStoredDamage() {
+        final BlockId id = new BlockId(WORLD_ID, 3, 64, 5);
+        final DurabilityStore stored = new DurabilityStore();
+        stored.put(id.getLocalKey(), 9, 0L);
+        storage.write(WORLD, 0, 0, stored);
+
+        // The chunk is hit before its stored durabilities were handed back by the IO thread
+        final ChunkWrapper wrapper = new ChunkWrapper(chunk(0, 0), storage, journal);
+        wrapper.beginLoad();
+        assertTrue(io.awaitLoad(wrapper));
+        assertFalse(wrapper.isLoading());
+        assertEquals(9, wrapper.getDurability(id));
+
+        final DurabilityMaterial material = material(10);
+        assertEquals(DamageResult.DESTROY, ChunkManager.addDamage(wrapper, id, DurabilityStore.UNKNOWN_MATERIAL, material, 1, 1D, false));
+    }
+
+    @Test
+    public void hitOnLoadingChunkBelowMaxIsTracked() {
+        final BlockId id = new BlockId(WORLD_ID, 3, 64, 5);
+        final DurabilityStore stored = new DurabilityStore();
+        stored.put(id.getLocalKey(), 7, 0L);
+        storage.write(WORLD, 0, 0, stored);
+
+        final ChunkWrapper wrapper = new ChunkWrapper(chunk(0, 0), storage, journal);
+        wrapper.beginLoad();
+        assertTrue(io.awaitLoad(wrapper));
+
+        assertEquals(DamageResult.DAMAGE, ChunkManager.addDamage(wrapper, id, DurabilityStore.UNKNOWN_MATERIAL, material(10), 1, 1D, false));
+        assertEquals(8, wrapper.getDurability(id));
+    }
+
+    @Test
+    public void storedSummarySkipsExpiredBlocksAndCountedChunks() {
+        final long now = System.currentTimeMillis();
+        final DurabilityStore stored = new DurabilityStore();
+        stored.put(new BlockId(WORLD_ID, 1, 64, 1).getLocalKey(), 4, 0L);
+        stored.put(new BlockId(WORLD_ID, 2, 64, 1).getLocalKey(), 6, now + 60000L);
+        stored.put(new BlockId(WORLD_ID, 3, 64, 1).getLocalKey(), 9, now - 1000L);
+        storage.write(WORLD, 0, 0, stored);
+        // Already counted from memory
+        storage.write(WORLD, 1, 0, stored);
+
+        final DamageSummary summary = new DamageSummary(WORLD, 0);
+        final LongHashMap<Boolean> counted = new LongHashMap<Boolean>();
+        counted.put(ChunkManager.chunkKey(1, 0), Boolean.TRUE);
+        for (File file : storage.listFiles(WORLD)) {
+            storage.summarize(file, summary, counted, now);
+        }
+
+        assertEquals(1, summary.size());
+        assertEquals(0, summary.getChunkX(0));
+        assertEquals(2, summary.getTotalBlocks());
+        assertEquals(10L, summary.getTotalDamage());
+        assertEquals(6, summary.getMaxDamage());
+    }
+
+    /**
+     * Publishes the default settings, as read from an empty config
+     */
+    private static void installDefaultSettings() throws Exception {
+        final ConfigurationSection empty = (ConfigurationSection) Proxy.newProxyInstance(ConfigurationSection.class.getClassLoader(),
+                new Class<?>[]{ConfigurationSection.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if ("getStringList".equals(method.getName())) {
+                            return Collections.emptyList();
+                        }
+                        return args.length > 1 ? args[1] : null;
+                    }
+                });
+        final Field settings = ConfigManager.class.getDeclaredField("settings");
+        settings.setAccessible(true);
+        settings.set(new ConfigManager(true), new ConfigSnapshot(empty));
+    }
+
+    /**
+     * Creates a material without durability timers, reading every other setting from its defaults
+     */
+    private static DurabilityMaterial material(final int durability) {
+        final ConfigurationSection section = (ConfigurationSection) Proxy.newProxyInstance(ConfigurationSection.class.getClassLoader(),
+                new Class<?>[]{ConfigurationSection.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if ("Durability.Amount".equals(args[0])) {
+                            return durability;
+                        }
+                        return args[1];
+                    }
+                });
+        return new DurabilityMaterial(Material.OBSIDIAN, section);
+    }
+
+    private static Chunk chunk(final int chunkX, final int chunkZ) {
+        final World world = (World) Proxy.newProxyInstance(World.class.getClassLoader(), new Class<?>[]{World.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if ("getName".equals(method.getName())) {
+                    return WORLD;
+                }
+                if ("getUID".equals(method.getName())) {
+                    return WORLD_ID;
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }
+        });
+        return (Chunk) Proxy.newProxyInstance(Chunk.class.getClassLoader(), new Class<?>[]{Chunk.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if ("getX".equals(method.getName())) {
+                    return chunkX;
+                }
+                if ("getZ".equals(method.getName())) {
+                    return chunkZ;
+                }
+                if ("getWorld".equals(method.getName())) {
+                    return world;
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private static void delete(File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,91 @@
+package com.drtshock.obsidiandestroyer.managers;
+
+import com.drtshock.obsidiandestroyer.ObsidianDestroyer;
+import com.drtshock.obsidiandestroyer.datatypes.DurabilityStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DurabilityJournalTest {
+
+    private static final String WORLD = "world";
+
+    private File dir;
+    private ChunkStorage storage;
+    private DurabilityJournal journal;
+
+    @Before
+    public void setUp() throws Exception {
+        // Replayed resets log their report
+        ObsidianDestroyer.LOG = Logger.getLogger(DurabilityJournalTest.class.getName());
+        dir = File.createTempFile("durabilities", "");
+        assertTrue(dir.delete() && dir.mkdirs());
+        storage = new ChunkStorage(dir);
+        journal = new DurabilityJournal(dir);
+    }
+
+    @After
+    public void tearDown() {
+        journal.close();
+        storage.close();
+        delete(dir);
+    }
+
+    @Test
+    public void replayedResetDropsOlderChangesOfUnloadedChunks() {
+        storage.write(WORLD, 0, 0, damaged(5));
+        storage.write(WORLD, 40, 0, damaged(5));
+        journal.put(WORLD, 0, 0, DurabilityStore.pack(1, 64, 1), 7, 0L, DurabilityStore.UNKNOWN_MATERIAL);
+        journal.put(WORLD, 40, 0, DurabilityStore.pack(1, 64, 1), 7, 0L, DurabilityStore.UNKNOWN_MATERIAL);
+        // The server stops after the reset of chunks 0, 0 to 1, 1 was journaled
+        journal.reset(WORLD, 0, 0, 1, 1);
+        journal.put(WORLD, 1, 1, DurabilityStore.pack(1, 64, 1), 2, 0L, DurabilityStore.UNKNOWN_MATERIAL);
+        journal.append(journal.takeBatch());
+        journal.close();
+
+        journal.replay(storage);
+
+        assertNull(storage.read(WORLD, 0, 0));
+        assertEquals(2, storage.read(WORLD, 1, 1).getDurability(DurabilityStore.pack(1, 64, 1)));
+        final DurabilityStore outside = storage.read(WORLD, 40, 0);
+        assertNotNull(outside);
+        assertEquals(7, outside.getDurability(DurabilityStore.pack(1, 64, 1)));
+    }
+
+    @Test
+    public void areaListsOnlyOverlappingRegions() {
+        storage.write(WORLD, 0, 0, damaged(1));
+        storage.write(WORLD, 40, 0, damaged(1));
+        storage.write(WORLD, -1, -1, damaged(1));
+
+        final List<File> files = storage.listFiles(WORLD, 0, 0, 31, 31);
+        assertEquals(1, files.size());
+        assertEquals("r.0.0.odr", files.get(0).getName());
+        assertEquals(3, storage.listFiles(WORLD, -32, -32, 63, 0).size());
+    }
+
+    private static DurabilityStore damaged(int durability) {
+        final DurabilityStore durabilities = new DurabilityStore();
+        durabilities.put(DurabilityStore.pack(1, 64, 1), durability, 0L);
+        return durabilities;
+    }
+
+    private static void delete(File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,108 @@
+package com.drtshock.obsidiandestroyer.managers;
+
+import com.drtshock.obsidiandestroyer.datatypes.ExplosionPlan;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ExplosionExecutorTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void startedJobIsWaitedForInsteadOfPlannedAgain() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountingJob job = new CountingJob(started, release);
+        job.future = executor.submit(job);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Over the latency budget while the worker is still planning
+        release.countDown();
+        final ExplosionPlan[] plans = ExplosionExecutor.result(job);
+
+        assertSame(job.plans, plans);
+        assertEquals(1, job.planned.get());
+    }
+
+    @Test
+    public void queuedJobIsPlannedOnceOnTheCallingThread() throws Exception {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    blocked.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        final CountingJob job = new CountingJob(null, null);
+        job.future = executor.submit(job);
+
+        // Over the latency budget before a worker got to it
+        final ExplosionPlan[] plans = ExplosionExecutor.result(job);
+        assertSame(job.plans, plans);
+
+        // A worker reaching the job afterwards does not plan it again
+        blocked.countDown();
+        assertNull(job.call());
+        assertEquals(1, job.planned.get());
+    }
+
+    /**
+     * Job counting how often it is planned, optionally waiting to be released once planning started
+     */
+    private static class CountingJob extends ExplosionJob {
+
+        final ExplosionPlan[] plans = new ExplosionPlan[0];
+        final AtomicInteger planned = new AtomicInteger();
+        private final CountDownLatch started;
+        private final CountDownLatch release;
+
+        CountingJob(CountDownLatch started, CountDownLatch release) {
+            super(Collections.<ExplosionPlanner>emptyList(), System.currentTimeMillis());
+            this.started = started;
+            this.release = release;
+        }
+
+        @Override
+        ExplosionPlan[] plan() {
+            planned.incrementAndGet();
+            if (started != null) {
+                started.countDown();
+                try {
+                    // Keep planning past the latency budget
+                    Thread.sleep(50L);
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return plans;
+        }
+    }
+}